@@ -0,0 +1,144 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Define synthetic programs of benchmarks: <\br>
+ * 1. Counted loop with arithmetic, load and store <\br>
+ * 2. Counted loop which calls a subroutine using push and pop <\br>
+ * 3. Programs which fault on their first instruction <\br>
+ * 4. Large program which fills user code region <\br>
+ * Every program also has a timer handler which only returns, so it can run
+ * with any interrupt time.
+ *
+ * @author quyendm
+ */
+public final class BenchmarkPrograms {
+
+    /**
+     * number of iterations of loops
+     */
+    public static final int LOOP_COUNT = 10000;
+
+    /**
+     * timer handler: return from interrupt
+     */
+    private static final String TIMER_HANDLER = ".1000\n30\n";
+
+    /**
+     * Constructor, class has only static methods
+     */
+    private BenchmarkPrograms() {
+    }
+
+    /**
+     * counted loop: AC = X, AC += X, AC += Y, store and load AC, decrement X
+     *
+     * @return program text
+     */
+    public static String arithmeticLoop() {
+        return "1\n" + LOOP_COUNT + "\n" //0: load value
+                + "14\n" //2: copy to X
+                + "1\n0\n" //3: load value 0
+                + "10\n" //5: add X
+                + "16\n" //6: copy to Y
+                + "11\n" //7: add Y
+                + "7\n500\n" //8: store 500
+                + "2\n500\n" //10: load 500
+                + "26\n" //12: decrement X
+                + "15\n" //13: copy from X
+                + "22\n3\n" //14: jump if not equal 3
+                + "50\n" //16: end
+                + TIMER_HANDLER;
+    }
+
+    /**
+     * counted loop which calls a subroutine, subroutine pushes and pops AC
+     *
+     * @return program text
+     */
+    public static String callLoop() {
+        return "1\n" + LOOP_COUNT + "\n" //0: load value
+                + "14\n" //2: copy to X
+                + "23\n20\n" //3: call 20
+                + "26\n" //5: decrement X
+                + "15\n" //6: copy from X
+                + "22\n3\n" //7: jump if not equal 3
+                + "50\n" //9: end
+                + ".20\n"
+                + "27\n27\n28\n28\n" //20: push, push, pop, pop
+                + "24\n" //24: ret
+                + TIMER_HANDLER;
+    }
+
+    /**
+     * program which pops from empty stack
+     *
+     * @return program text
+     */
+    public static String stackFault() {
+        return "28\n50\n" + TIMER_HANDLER;
+    }
+
+    /**
+     * program which loads system memory in user mode
+     *
+     * @return program text
+     */
+    public static String accessFault() {
+        return "2\n1500\n50\n" + TIMER_HANDLER;
+    }
+
+    /**
+     * program which fills user code region with load and add instructions
+     *
+     * @return program text
+     */
+    public static String large() {
+        StringBuilder text = new StringBuilder();
+        int address = 0;
+        while (address + 3 < SysConfig.BOTTOM_USER - SysConfig.USER_STACK_LIMIT) {
+            text.append("1\n").append(address).append("\n10\n");
+            address += 3;
+        }
+        text.append("50\n").append(TIMER_HANDLER);
+        return text.toString();
+    }
+
+    /**
+     * write program to temporary file
+     *
+     * @param name prefix of file name
+     * @param text program text
+     * @return path of file
+     * @throws IOException when write file
+     */
+    public static String write(String name, String text) throws IOException {
+        File file = File.createTempFile(name, ".txt");
+        file.deleteOnExit();
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+        return file.getPath();
+    }
+
+    /**
+     * write program to temporary image file
+     *
+     * @param name prefix of file name
+     * @param text program text
+     * @return path of image
+     * @throws IOException when write file
+     */
+    public static String writeImage(String name, String text) throws IOException {
+        File image = File.createTempFile(name, ".img");
+        image.deleteOnExit();
+        ProgramImage.convert(write(name, text), image.getPath());
+        return image.getPath();
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Define benchmarks of interpreter: <\br>
+ * 1. Dispatch throughput of a counted loop <\br>
+ * 2. Same loop with timer interrupts at several interrupt times <\br>
+ * 3. Call, ret, push and pop in a loop <\br>
+ * 4. Runs which fault on their first instruction <\br>
+ * Each invocation resets a loaded machine and runs it to the end, so loading
+ * is not measured. Score divided by BenchmarkPrograms.LOOP_COUNT gives time
+ * of one iteration.
+ *
+ * @author quyendm
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InterpreterBenchmark {
+
+    /**
+     * interrupt time of timer benchmark, largest one never interrupts loop
+     */
+    @Param({"1", "10", "100", "100000000"})
+    public int interruptTime;
+
+    /**
+     * memory backend
+     */
+    @Param({"flat", "paged", "off-heap"})
+    public String profile;
+
+    /**
+     * Variable to store output of runs
+     */
+    private final BufferOutputDevice output = new BufferOutputDevice();
+    /**
+     * Variable to store input of runs
+     */
+    private final RandomInputDevice input = new RandomInputDevice(SysConfig.DEFAULT_BATCH_SEED);
+    /**
+     * Variable to store machine with arithmetic loop
+     */
+    private CPU arithmetic;
+    /**
+     * Variable to store machine with call loop
+     */
+    private CPU calls;
+    /**
+     * Variable to store machine which faults on stack
+     */
+    private CPU stackFault;
+    /**
+     * Variable to store machine which faults on access
+     */
+    private CPU accessFault;
+
+    /**
+     * load programs
+     *
+     * @throws IOException when write programs
+     */
+    @Setup
+    public void setUp() throws IOException {
+        arithmetic = load(BenchmarkPrograms.arithmeticLoop());
+        calls = load(BenchmarkPrograms.callLoop());
+        stackFault = load(BenchmarkPrograms.stackFault());
+        accessFault = load(BenchmarkPrograms.accessFault());
+    }
+
+    /**
+     * load program into new machine
+     */
+    private CPU load(String text) throws IOException {
+        CPU cpu = new CPU(interruptTime, output, input, MachineProfile.parse(profile));
+        cpu.load(BenchmarkPrograms.write("bench", text));
+        return cpu;
+    }
+
+    /**
+     * reset machine and run it to the end
+     */
+    private RunResult run(CPU cpu) {
+        output.reset();
+        cpu.reset(output, input);
+        return cpu.run();
+    }
+
+    /**
+     * arithmetic loop, timer interrupts at interrupt time
+     *
+     * @return result of run
+     */
+    @Benchmark
+    public RunResult arithmeticLoop() {
+        return run(arithmetic);
+    }
+
+    /**
+     * call loop, timer interrupts at interrupt time
+     *
+     * @return result of run
+     */
+    @Benchmark
+    public RunResult callLoop() {
+        return run(calls);
+    }
+
+    /**
+     * pop from empty stack
+     *
+     * @return result of run
+     */
+    @Benchmark
+    public RunResult stackFault() {
+        return run(stackFault);
+    }
+
+    /**
+     * load of system memory in user mode
+     *
+     * @return result of run
+     */
+    @Benchmark
+    public RunResult accessFault() {
+        return run(accessFault);
+    }
+}
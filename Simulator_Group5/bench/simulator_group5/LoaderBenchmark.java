@@ -0,0 +1,88 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Define benchmarks of Memory.initialize: small and large programs, from
+ * program text file and from program image, on each memory backend.
+ *
+ * @author quyendm
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoaderBenchmark {
+
+    /**
+     * program: small loop or large program which fills user code region
+     */
+    @Param({"small", "large"})
+    public String program;
+
+    /**
+     * format of program file
+     */
+    @Param({"text", "image"})
+    public String format;
+
+    /**
+     * memory backend
+     */
+    @Param({"flat", "paged", "off-heap"})
+    public String profile;
+
+    /**
+     * Variable to store path of program file
+     */
+    private String filePath;
+    /**
+     * Variable to store profile of memory
+     */
+    private MachineProfile machineProfile;
+
+    /**
+     * write program file
+     *
+     * @throws IOException when write file
+     */
+    @Setup
+    public void setUp() throws IOException {
+        String text = "large".equals(program) ? BenchmarkPrograms.large()
+                : BenchmarkPrograms.arithmeticLoop();
+        filePath = "image".equals(format) ? BenchmarkPrograms.writeImage("bench", text)
+                : BenchmarkPrograms.write("bench", text);
+        machineProfile = MachineProfile.parse(profile);
+    }
+
+    /**
+     * load program into new memory
+     *
+     * @return loaded memory
+     * @throws IOException when read file
+     */
+    @Benchmark
+    public Memory initialize() throws IOException {
+        Memory memory = machineProfile.createMemory();
+        memory.initialize(filePath);
+        return memory;
+    }
+}
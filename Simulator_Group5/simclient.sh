@@ -0,0 +1,45 @@
+#!/bin/bash
+#
+# Operating System Simulator
+# Group 5: DuyNQ, QuyenDM, HaiNT
+#
+# Run program on simulator daemon (--daemon) like from command line, without
+# starting a JVM: output of program is written to screen.
+#
+# Usage: simclient.sh [file name] [interrupt time] [port]
+#
+# Daemon replies one frame per line: "O line" for a line of output, "P text"
+# for output without end of line and "R json" for result record, which ends
+# request. Any other client, such as nc, can read the same frames.
+#
+
+if [ $# -ne 2 ] && [ $# -ne 3 ]; then
+    echo "Input must have format: simclient.sh [file name] [interrupt time] [port]" >&2
+    exit 1
+fi
+case "$2" in
+    ''|*[!0-9]*)
+        echo "Interrupt time must be integer and > 0!" >&2
+        exit 1
+        ;;
+esac
+port=${3:-7405}
+case "$1" in
+    /*) file=$1 ;;
+    *) file=$PWD/$1 ;;
+esac
+
+if ! exec 3<>"/dev/tcp/127.0.0.1/$port"; then
+    echo "Can not run on daemon at port $port" >&2
+    exit 1
+fi
+printf '%s %s\n' "$file" "$2" >&3
+while IFS= read -r line <&3; do
+    case "$line" in
+        "O "*) printf '%s\n' "${line#O }" ;;
+        "P "*) printf '%s' "${line#P }" ;;
+        "R "*) exec 3<&-; exit 0 ;;
+    esac
+done
+echo "Can not run on daemon at port $port: connection is lost" >&2
+exit 1
@@ -0,0 +1,312 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Define part of Memory which is same for every backend: <\br>
+ * 1. Load program from image or text file <\br>
+ * 2. Check address of each read and write <\br>
+ * 3. Track pages of SysConfig.PAGE_SIZE words written since program was
+ * loaded, so reset only restores them <\br>
+ * 4. Invalidate decoded instruction stream on write.
+ *
+ * @author duynq
+ */
+public abstract class AbstractMemory implements Memory {
+
+    /**
+     * number of entries
+     */
+    protected final int size;
+
+    /**
+     * decoded instruction stream which is invalidated on write
+     */
+    private DecodedProgram decodedProgram;
+
+    /**
+     * status of each page is written since program was loaded or not
+     */
+    private final boolean[] isDirty;
+
+    /**
+     * indexes of pages written since program was loaded
+     */
+    private final int[] dirtyPages;
+
+    /**
+     * number of pages written since program was loaded
+     */
+    private int dirtyCount;
+
+    /**
+     * status of program is loaded or not
+     */
+    private boolean isLoaded;
+
+    /**
+     * Constructor with size argument
+     *
+     * @param size number of entries
+     */
+    protected AbstractMemory(int size) {
+        int pageCount = getPageCount(size);
+        this.size = size;
+        this.isDirty = new boolean[pageCount];
+        this.dirtyPages = new int[pageCount];
+    }
+
+    /**
+     * Constructor of copy, copy has same dirty pages as source
+     *
+     * @param source memory is copied
+     */
+    protected AbstractMemory(AbstractMemory source) {
+        this.size = source.size;
+        this.isDirty = source.isDirty.clone();
+        this.dirtyPages = source.dirtyPages.clone();
+        this.dirtyCount = source.dirtyCount;
+        this.isLoaded = source.isLoaded;
+    }
+
+    /**
+     * get number of pages of memory
+     *
+     * @param size number of entries
+     * @return number of pages
+     */
+    protected static int getPageCount(int size) {
+        return (size + SysConfig.PAGE_SIZE - 1) >> SysConfig.PAGE_SHIFT;
+    }
+
+    @Override
+    public void initialize(String filePath)
+            throws IOException, IndexOutOfBoundsException {
+        isLoaded = false;
+        clear();
+        if (ProgramImage.isProgramImage(filePath)) {
+            initializeFromImage(filePath);
+        } else {
+            initializeFromText(filePath);
+        }
+        finishLoad();
+    }
+
+    @Override
+    public void initialize(ByteBuffer image)
+            throws IOException, IndexOutOfBoundsException {
+        isLoaded = false;
+        clear();
+        try {
+            ProgramImage.load(image, this);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IndexOutOfBoundsException(Messages.ERR_FILE_TOO_BIG
+                    + SysConfig.HYPHEN + e.getMessage());
+        }
+        finishLoad();
+    }
+
+    /**
+     * save loaded program and mark every page as not written
+     */
+    private void finishLoad() {
+        saveLoaded();
+        Arrays.fill(this.isDirty, false);
+        this.dirtyCount = 0;
+        isLoaded = true;
+    }
+
+    /**
+     * initialize from program image
+     *
+     * @param filePath store instruction
+     * @throws IOException when read file or image is invalid
+     * @throws IndexOutOfBoundsException when memory is full
+     */
+    private void initializeFromImage(String filePath)
+            throws IOException, IndexOutOfBoundsException {
+        try {
+            ProgramImage.load(filePath, this);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IndexOutOfBoundsException(Messages.ERR_FILE_TOO_BIG
+                    + SysConfig.HYPHEN + e.getMessage());
+        }
+    }
+
+    /**
+     * initialize from program text file
+     *
+     * @param filePath store instruction
+     * @throws IOException when read file or file is malformed
+     * @throws IndexOutOfBoundsException when memory is full
+     */
+    private void initializeFromText(String filePath)
+            throws IOException, IndexOutOfBoundsException {
+        try {
+            ProgramParser.parse(filePath, this);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IndexOutOfBoundsException(Messages.ERR_FILE_TOO_BIG
+                    + SysConfig.HYPHEN + e.getMessage());
+        }
+    }
+
+    @Override
+    public int read(int address) throws IndexOutOfBoundsException {
+        if (address < 0 || address >= this.size) {
+            throw new IndexOutOfBoundsException(Messages.ERR_MEMORY_INDEX_OUT_OF_BOUND);
+        }
+        return readEntry(address);
+    }
+
+    @Override
+    public void write(int address, int value) throws IndexOutOfBoundsException {
+        if (address < 0 || address >= this.size) {
+            throw new IndexOutOfBoundsException(Messages.ERR_MEMORY_INDEX_OUT_OF_BOUND);
+        }
+        markDirty(address >> SysConfig.PAGE_SHIFT);
+        writeEntry(address, value);
+        if (decodedProgram != null) {
+            decodedProgram.invalidate(address);
+        }
+    }
+
+    @Override
+    public int getAndAdd(int address, int delta) throws IndexOutOfBoundsException {
+        int value = read(address);
+        write(address, value + delta);
+        return value;
+    }
+
+    @Override
+    public int compareAndExchange(int address, int expected, int value)
+            throws IndexOutOfBoundsException {
+        int old = read(address);
+        if (old == expected) {
+            write(address, value);
+        }
+        return old;
+    }
+
+    @Override
+    public void write(int address, IntBuffer words) throws IndexOutOfBoundsException {
+        int length = words.remaining();
+        if (address < 0 || address > this.size - length) {
+            throw new IndexOutOfBoundsException(Messages.ERR_MEMORY_INDEX_OUT_OF_BOUND);
+        }
+        while (length > 0) {
+            int count = Math.min(length, SysConfig.PAGE_SIZE - (address & SysConfig.PAGE_MASK));
+            markDirty(address >> SysConfig.PAGE_SHIFT);
+            writeEntries(address, words, count);
+            address += count;
+            length -= count;
+        }
+        if (decodedProgram != null) {
+            decodedProgram.invalidateAll();
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (int pageIndex = 0; pageIndex < this.isDirty.length; pageIndex++) {
+            markDirty(pageIndex);
+        }
+        clearEntries();
+        if (decodedProgram != null) {
+            decodedProgram.invalidateAll();
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean canReset() {
+        return isLoaded;
+    }
+
+    /**
+     * reset memory to loaded program, only pages written since program was
+     * loaded are restored
+     */
+    @Override
+    public void reset() {
+        for (int i = 0; i < this.dirtyCount; i++) {
+            int pageIndex = this.dirtyPages[i];
+            restorePage(pageIndex);
+            this.isDirty[pageIndex] = false;
+            if (decodedProgram != null) {
+                int start = pageIndex << SysConfig.PAGE_SHIFT;
+                decodedProgram.invalidate(start, start + SysConfig.PAGE_SIZE);
+            }
+        }
+        this.dirtyCount = 0;
+    }
+
+    @Override
+    public void setDecodedProgram(DecodedProgram decodedProgram) {
+        this.decodedProgram = decodedProgram;
+    }
+
+    /**
+     * mark page as written since program was loaded
+     *
+     * @param pageIndex index of page
+     */
+    private void markDirty(int pageIndex) {
+        if (!this.isDirty[pageIndex]) {
+            this.isDirty[pageIndex] = true;
+            this.dirtyPages[this.dirtyCount++] = pageIndex;
+        }
+    }
+
+    /**
+     * read entry, address is already checked
+     *
+     * @param address of memory
+     * @return value
+     */
+    protected abstract int readEntry(int address);
+
+    /**
+     * write entry, address is already checked
+     *
+     * @param address of memory
+     * @param value is written
+     */
+    protected abstract void writeEntry(int address, int value);
+
+    /**
+     * write words inside one page, addresses are already checked
+     *
+     * @param address of memory where first word is written
+     * @param words are written
+     * @param count number of words
+     */
+    protected abstract void writeEntries(int address, IntBuffer words, int count);
+
+    /**
+     * set all entries to zero
+     */
+    protected abstract void clearEntries();
+
+    /**
+     * keep copy of loaded program which is restored by reset
+     */
+    protected abstract void saveLoaded();
+
+    /**
+     * restore page from loaded program
+     *
+     * @param pageIndex index of page
+     */
+    protected abstract void restorePage(int pageIndex);
+}
@@ -0,0 +1,104 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.nio.charset.Charset;
+
+/**
+ * Define output device which encodes values into a byte buffer: <\br>
+ * 1. Int is written as decimal digits and line separator without creating
+ * objects <\br>
+ * 2. Char is written as one byte when it is ASCII, otherwise encoded with
+ * charset of device.
+ *
+ * @author duynq
+ */
+public abstract class AbstractOutputDevice implements OutputDevice {
+
+    /**
+     * line separator written after an int
+     */
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes();
+
+    /**
+     * Variable to store charset of non ASCII chars
+     */
+    private final Charset charset;
+    /**
+     * Variable to store buffer
+     */
+    protected byte[] bytes;
+    /**
+     * Variable to store number of bytes in buffer
+     */
+    protected int count;
+
+    /**
+     * Constructor with initial capacity and charset
+     *
+     * @param capacity initial size of buffer
+     * @param charset charset of non ASCII chars
+     */
+    protected AbstractOutputDevice(int capacity, Charset charset) {
+        this.bytes = new byte[capacity];
+        this.charset = charset;
+    }
+
+    @Override
+    public void writeInt(int value) {
+        //at most 11 chars for an int
+        ensureCapacity(11 + LINE_SEPARATOR.length);
+        long number = value;
+        if (number < 0) {
+            bytes[count++] = '-';
+            number = -number;
+        }
+        int start = count;
+        do {
+            bytes[count++] = (byte) ('0' + number % 10);
+            number /= 10;
+        } while (number > 0);
+        //digits are written from last to first
+        for (int i = start, j = count - 1; i < j; i++, j--) {
+            byte temp = bytes[i];
+            bytes[i] = bytes[j];
+            bytes[j] = temp;
+        }
+        for (byte separator : LINE_SEPARATOR) {
+            bytes[count++] = separator;
+        }
+        afterWrite(true);
+    }
+
+    @Override
+    public void writeChar(int value) {
+        char character = (char) value;
+        if (character < 0x80) {
+            ensureCapacity(1);
+            bytes[count++] = (byte) character;
+        } else {
+            byte[] encoded = String.valueOf(character).getBytes(charset);
+            ensureCapacity(encoded.length);
+            System.arraycopy(encoded, 0, bytes, count, encoded.length);
+            count += encoded.length;
+        }
+        afterWrite(character == '\n');
+    }
+
+    /**
+     * make room for more bytes in buffer
+     *
+     * @param length number of bytes which will be written
+     */
+    protected abstract void ensureCapacity(int length);
+
+    /**
+     * called after each value is written
+     *
+     * @param isNewLine value ended a line
+     */
+    protected void afterWrite(boolean isNewLine) {
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import javax.management.ObjectName;
+
+/**
+ * Define batch mode: <\br>
+ * 1. Read manifest of jobs, one job per line: [file name] [interrupt time]
+ * [max instructions] [seed=N] [tape=file] [profile=backend:size], all but
+ * first two are optional, lines starting with # are comment <\br>
+ * 2. Run jobs on a work-stealing pool sized to the machine, each job with
+ * its own input device on a machine reused from earlier jobs of same
+ * program <\br>
+ * 3. Write one JSON line per job, in manifest order, with execution metrics
+ * when profile of job collects them <\br>
+ * 4. Add metrics of all jobs, published through JMX while batch runs <\br>
+ * Job without seed or tape gets random input split from seed of batch in
+ * manifest order, so a batch gives same results on every run.
+ *
+ * @author quyendm
+ */
+public class BatchRunner {
+
+    /**
+     * exit reason when program ends
+     */
+    public static final String EXIT_HALTED = "halted";
+
+    /**
+     * exit reason when run stops with error
+     */
+    public static final String EXIT_ERROR = "error";
+
+    /**
+     * exit reason when maximum number of instructions is reached
+     */
+    public static final String EXIT_LIMIT = "limit";
+
+    /**
+     * Variable to store pool which runs jobs
+     */
+    private final ForkJoinPool pool;
+    /**
+     * Variable to store random input of batch, split for each job
+     */
+    private final RandomInputDevice random;
+    /**
+     * Variable to store machines which are reused by jobs of same program
+     */
+    private final MachinePool machines = new MachinePool();
+    /**
+     * Variable to store metrics added over jobs whose profile collects them
+     */
+    private final MachineMetrics metrics = new MachineMetrics();
+
+    /**
+     * Constructor with number of threads and seed
+     *
+     * @param parallelism number of threads of pool
+     * @param seed seed of random input of batch
+     */
+    public BatchRunner(int parallelism, long seed) {
+        this.pool = new ForkJoinPool(parallelism);
+        this.random = new RandomInputDevice(seed);
+    }
+
+    /**
+     * Constructor with pool sized to number of processors
+     */
+    public BatchRunner() {
+        this(Runtime.getRuntime().availableProcessors(), SysConfig.DEFAULT_BATCH_SEED);
+    }
+
+    /**
+     * get metrics added over jobs whose profile collects them
+     *
+     * @return metrics of batch
+     */
+    public MachineMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * run all jobs of manifest
+     *
+     * @param manifestPath path of manifest, relative file names in it are
+     * relative to folder of manifest
+     * @param out is written one JSON line per job
+     * @throws IOException when read manifest or write result
+     */
+    public void run(String manifestPath, OutputStream out) throws IOException {
+        File manifest = new File(manifestPath);
+        final File folder = manifest.getAbsoluteFile().getParentFile();
+        List<ForkJoinTask<String>> tasks = new ArrayList<>();
+        ObjectName metricsName = metrics.register(SysConfig.METRICS_TYPE_BATCH);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(manifest), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith(SysConfig.MANIFEST_COMMENT)) {
+                    continue;
+                }
+                final int jobLine = lineNumber;
+                final String jobSpec = line;
+                final RandomInputDevice jobRandom = random.split();
+                tasks.add(pool.submit(() -> runJob(jobLine, jobSpec, folder, jobRandom)));
+            }
+        } catch (IOException e) {
+            MachineMetrics.unregister(metricsName);
+            throw new IOException(Messages.ERR_FILE_NOT_FOUND);
+        }
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        try {
+            for (ForkJoinTask<String> task : tasks) {
+                writer.write(task.get());
+                writer.write('\n');
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        } finally {
+            writer.flush();
+            pool.shutdown();
+            MachineMetrics.unregister(metricsName);
+        }
+    }
+
+    /**
+     * run one job
+     *
+     * @param line line of job in manifest
+     * @param spec job in format [file name] [interrupt time] [max
+     * instructions] [seed=N] [tape=file] [profile=backend:size]
+     * @param folder folder of manifest
+     * @param jobRandom random input split for job
+     * @return JSON line of result
+     */
+    private String runJob(int line, String spec, File folder, RandomInputDevice jobRandom) {
+        String[] args = spec.split("\\s+");
+        String fileName = args[0];
+        int interruptTime = -1;
+        long maxInstructions = Long.MAX_VALUE;
+        InputDevice input = jobRandom;
+        String tapeName = null;
+        MachineProfile profile = MachineProfile.DEFAULT;
+        try {
+            if (args.length >= 2) {
+                interruptTime = Integer.parseInt(args[1]);
+            }
+            for (int i = 2; i < args.length; i++) {
+                if (args[i].startsWith(SysConfig.MANIFEST_SEED)) {
+                    input = new RandomInputDevice(Long.parseLong(
+                            args[i].substring(SysConfig.MANIFEST_SEED.length())));
+                } else if (args[i].startsWith(SysConfig.MANIFEST_TAPE)) {
+                    tapeName = args[i].substring(SysConfig.MANIFEST_TAPE.length());
+                } else if (args[i].startsWith(SysConfig.MANIFEST_PROFILE)) {
+                    profile = MachineProfile.parse(
+                            args[i].substring(SysConfig.MANIFEST_PROFILE.length()));
+                } else if (i == 2) {
+                    maxInstructions = Long.parseLong(args[i]);
+                } else {
+                    interruptTime = -1;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            interruptTime = -1;
+        }
+        if (interruptTime < 0 || maxInstructions < 0) {
+            return toJson(line, fileName, interruptTime, EXIT_ERROR, 0, 0, "", 0,
+                    Messages.ERR_MANIFEST_FORMAT, null);
+        }
+        if (tapeName != null) {
+            try {
+                input = TapeInputDevice.load(resolve(folder, tapeName).getPath());
+            } catch (IOException e) {
+                return toJson(line, fileName, interruptTime, EXIT_ERROR, 0, 0, "", 0,
+                        e.getMessage(), null);
+            }
+        }
+        File file = resolve(folder, fileName);
+        BufferOutputDevice captured = new BufferOutputDevice();
+        long start = System.nanoTime();
+        CPU cpu = machines.acquire(file.getPath(), interruptTime, profile, captured, input);
+        cpu.setMaxInstructions(maxInstructions);
+        RunResult result = cpu.run();
+        long wallTime = System.nanoTime() - start;
+        MachineMetrics jobMetrics = cpu.getMetrics();
+        if (jobMetrics != null) {
+            metrics.add(jobMetrics);
+        }
+        //machine is read before another job can reuse it
+        String json = toJson(line, fileName, interruptTime, exitName(result.getExitReason()),
+                result.getInstructionCount(), result.getDispatchCount(),
+                captured.toString(), wallTime,
+                result.getMessage(), jobMetrics);
+        machines.release(file.getPath(), cpu);
+        return json;
+    }
+
+    /**
+     * get exit reason written to result
+     *
+     * @param exitReason why run ended
+     * @return name of exit reason
+     */
+    static String exitName(RunResult.ExitReason exitReason) {
+        switch (exitReason) {
+            case FAULT:
+                return EXIT_ERROR;
+            case LIMIT:
+                return EXIT_LIMIT;
+            default:
+                return EXIT_HALTED;
+        }
+    }
+
+    /**
+     * resolve file name of manifest
+     *
+     * @param folder folder of manifest
+     * @param fileName absolute or relative to folder of manifest
+     * @return file
+     */
+    private static File resolve(File folder, String fileName) {
+        File file = new File(fileName);
+        return file.isAbsolute() ? file : new File(folder, fileName);
+    }
+
+    /**
+     * build JSON line of result, metrics are written only when they are
+     * collected
+     */
+    private static String toJson(int line, String fileName, int interruptTime, String exit,
+            long instructions, long dispatches, String output, long wallTimeNanos, String error,
+            MachineMetrics metrics) {
+        return "{\"line\":" + line
+                + ",\"file\":" + Json.quote(fileName)
+                + ",\"interruptTime\":" + interruptTime
+                + ",\"exit\":" + Json.quote(exit)
+                + ",\"instructions\":" + instructions
+                + ",\"dispatches\":" + dispatches
+                + ",\"wallTimeNanos\":" + wallTimeNanos
+                + ",\"output\":" + Json.quote(output)
+                + ",\"error\":" + Json.quote(error)
+                + (metrics == null ? "" : ",\"metrics\":" + metrics.toJson())
+                + "}";
+    }
+
+    /**
+     * run batch from command line
+     *
+     * @param manifestPath path of manifest
+     * @param resultPath path of result file, null to write to screen
+     * @throws IOException when read manifest or write result
+     */
+    public static void runBatch(String manifestPath, String resultPath) throws IOException {
+        BatchRunner runner = new BatchRunner();
+        if (resultPath == null) {
+            runner.run(manifestPath, System.out);
+        } else {
+            try (OutputStream out = new FileOutputStream(resultPath)) {
+                runner.run(manifestPath, out);
+            }
+        }
+    }
+}
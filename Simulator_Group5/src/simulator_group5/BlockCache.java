@@ -0,0 +1,157 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.util.Arrays;
+
+/**
+ * Define second execution tier of CPU: <\br>
+ * 1. Count entries of each basic block <\br>
+ * 2. Compile block when it is hot, fusing frequent sequences into
+ * superinstructions <\br>
+ * 3. Drop all compiled blocks when memory inside one of them is written.
+ *
+ * @author duynq
+ */
+public class BlockCache {
+
+    /**
+     * Variable to store decoded instruction stream
+     */
+    private final DecodedProgram decodedProgram;
+    /**
+     * Variable to store number of entries of each address
+     */
+    private final int[] entryCounts;
+    /**
+     * Variable to store compiled block of each address
+     */
+    private final CompiledBlock[] blocks;
+    /**
+     * Variable to store status of each address is inside a compiled block or
+     * not
+     */
+    private final boolean[] isCompiled;
+    /**
+     * Variable to store version, changed when compiled blocks are dropped
+     */
+    private int version;
+
+    /**
+     * Constructor with decoded program argument
+     *
+     * @param decodedProgram decoded instruction stream
+     * @param size size of memory
+     */
+    public BlockCache(DecodedProgram decodedProgram, int size) {
+        this.decodedProgram = decodedProgram;
+        this.entryCounts = new int[size];
+        this.blocks = new CompiledBlock[size];
+        this.isCompiled = new boolean[size];
+    }
+
+    /**
+     * enter block at address, compile it when it becomes hot
+     *
+     * @param address of memory
+     * @return compiled block or null when block is not compiled
+     */
+    public CompiledBlock enter(int address) {
+        if (address < 0 || address >= blocks.length || !decodedProgram.isCached()) {
+            return null;
+        }
+        CompiledBlock block = blocks[address];
+        if (block == null && ++entryCounts[address] >= SysConfig.HOT_BLOCK_THRESHOLD) {
+            entryCounts[address] = 0;
+            block = compile(address);
+            blocks[address] = block;
+        }
+        return block;
+    }
+
+    /**
+     * get version
+     *
+     * @return version of compiled blocks
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * drop compiled blocks if address is inside one of them
+     *
+     * @param address of memory is written
+     */
+    public void invalidate(int address) {
+        if (address >= 0 && address < isCompiled.length && isCompiled[address]) {
+            invalidateAll();
+        }
+    }
+
+    /**
+     * drop compiled blocks if an address of range is inside one of them
+     *
+     * @param start first address is written
+     * @param end address after last address is written
+     */
+    public void invalidate(int start, int end) {
+        int to = Math.min(end, isCompiled.length);
+        for (int address = Math.max(start, 0); address < to; address++) {
+            if (isCompiled[address]) {
+                invalidateAll();
+                return;
+            }
+        }
+    }
+
+    /**
+     * drop all compiled blocks
+     */
+    public void invalidateAll() {
+        version++;
+        Arrays.fill(blocks, null);
+        Arrays.fill(isCompiled, false);
+    }
+
+    /**
+     * drop all compiled blocks and entry counts, blocks become hot again as
+     * in a new cache
+     */
+    public void reset() {
+        invalidateAll();
+        Arrays.fill(entryCounts, 0);
+    }
+
+    /**
+     * compile block from decoded stream
+     *
+     * @param startAddress start address of block
+     * @return compiled block or null when first slot can not be decoded
+     */
+    private CompiledBlock compile(int startAddress) {
+        int[] opcodes = new int[SysConfig.MAX_BLOCK_LENGTH];
+        int[] operands = new int[SysConfig.MAX_BLOCK_LENGTH];
+        int[] sizes = new int[SysConfig.MAX_BLOCK_LENGTH];
+        int length = 0;
+        int address = startAddress;
+        while (length < SysConfig.MAX_BLOCK_LENGTH && decodedProgram.isDecoded(address)) {
+            int opcode = decodedProgram.getOpcode(address);
+            opcodes[length] = opcode;
+            operands[length] = decodedProgram.getOperand(address);
+            sizes[length] = decodedProgram.getSize(address);
+            address += sizes[length];
+            length++;
+            if (CompiledBlock.isTerminator(opcode)) {
+                break;
+            }
+        }
+        if (length == 0) {
+            return null;
+        }
+        Arrays.fill(isCompiled, startAddress, address, true);
+        return Superinstructions.fuse(startAddress, opcodes, operands, sizes, length);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Define output device which keeps output of one CPU in a growable byte
+ * buffer, chars are encoded as UTF-8
+ *
+ * @author duynq
+ */
+public class BufferOutputDevice extends AbstractOutputDevice {
+
+    /**
+     * initial size of buffer
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * Constructor
+     */
+    public BufferOutputDevice() {
+        super(INITIAL_CAPACITY, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected void ensureCapacity(int length) {
+        if (count + length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, count + length));
+        }
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    /**
+     * get number of written bytes
+     *
+     * @return size of output
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * get copy of written bytes
+     *
+     * @return output
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, count);
+    }
+
+    /**
+     * discard written bytes, buffer is kept
+     */
+    public void reset() {
+        count = 0;
+    }
+
+    /**
+     * get written bytes as text
+     *
+     * @return output decoded as UTF-8
+     */
+    @Override
+    public String toString() {
+        return new String(bytes, 0, count, StandardCharsets.UTF_8);
+    }
+}
@@ -5,8 +5,9 @@
 package simulator_group5;
 
 import java.io.IOException;
-import java.util.EmptyStackException;
-import java.util.Random;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import javax.management.ObjectName;
 
 /**
  * Define CPU with 6 registers: PC, AC, SP, X, Y, IR <\br>
@@ -48,6 +49,41 @@ public class CPU {
      * Variable to store Memory
      */
     private Memory memory;
+    /**
+     * Variable to store pre-decoded instruction stream of memory
+     */
+    private DecodedProgram decodedProgram;
+    /**
+     * Variable to store slots of loaded program which are never executed in
+     * user mode, null when ProgramVerifier could not prove it
+     */
+    private boolean[] systemOnlySlots;
+    /**
+     * Variable to store status of memory still holds verified program or not
+     */
+    private boolean isCodeVerified;
+    /**
+     * Variable to store compiled blocks of decoded instruction stream
+     */
+    private BlockCache blockCache;
+    /**
+     * Variable to store status of next instruction starts a basic block or
+     * not
+     */
+    private boolean isBlockEntry;
+    /**
+     * Variable to store operand of current instruction taken from decoded
+     * stream
+     */
+    private int operand;
+    /**
+     * Variable to store second operand of current superinstruction
+     */
+    private int extraOperand;
+    /**
+     * Variable to store size of memory
+     */
+    private int memorySize;
     /**
      * Variable to store status of CPU is running or not
      */
@@ -56,6 +92,69 @@ public class CPU {
      * Variable to store interrupt time
      */
     private final int interruptTime;
+    /**
+     * Variable to store profile of machine
+     */
+    private final MachineProfile profile;
+    /**
+     * Variable to store execution metrics, null when profile does not collect
+     * them
+     */
+    private final MachineMetrics metrics;
+    /**
+     * Variable to store sampling profiler, null when program is not profiled
+     */
+    private SamplingProfiler profiler;
+    /**
+     * Variable to store recorder of execution trace, null when run is not
+     * recorded
+     */
+    private TraceRecorder tracer;
+    /**
+     * Variable to store breakpoints and watchpoints
+     */
+    private final DebugPoints debugPoints = new DebugPoints();
+    /**
+     * Variable to store coverage of memory, a word is set to 1 when an
+     * executed instruction reads it as opcode or operand, null when coverage
+     * is not recorded
+     */
+    private byte[] coverage;
+    /**
+     * Variable to store why run stopped at a breakpoint or watchpoint, null
+     * when it did not
+     */
+    private RunResult.ExitReason stopReason;
+    /**
+     * Variable to store address of breakpoint or watched access where run
+     * stopped
+     */
+    private int stopAddress = -1;
+    /**
+     * Variable to store status of run stopped at breakpoint of current
+     * instruction or not, it is passed when run continues
+     */
+    private boolean isAtBreakpoint;
+    /**
+     * Variable to store id of core, 0 when CPU is not a core of a multi-core
+     * machine
+     */
+    private int coreId;
+    /**
+     * Variable to store number of words of user stack of each core, 0 when
+     * CPU is not a core of a multi-core machine
+     */
+    private int userStackSize;
+    /**
+     * Variable to store number of words of system stack of each core, 0 when
+     * CPU is not a core of a multi-core machine
+     */
+    private int systemStackSize;
+    /**
+     * Variable to store status of timer interrupt was delivered since current
+     * process was switched to
+     */
+    private boolean isPreempted;
     /**
      * Variable to store counter
      */
@@ -64,6 +163,47 @@ public class CPU {
      * Variable to store CPU mode
      */
     private int mode;
+    /**
+     * Variable to store output device
+     */
+    private OutputDevice output;
+    /**
+     * Variable to store input device
+     */
+    private InputDevice input;
+    /**
+     * Variable to store number of executed instructions
+     */
+    private long instructionCount;
+    /**
+     * Variable to store number of dispatches saved by superinstructions
+     */
+    private long fusedDispatchCount;
+    /**
+     * Variable to store maximum number of instructions of a run
+     */
+    private long maxInstructions = Long.MAX_VALUE;
+    /**
+     * Variable to store number of instructions where current run stops
+     */
+    private long instructionLimit;
+    /**
+     * Variable to store number of instructions where current slice of run
+     * stops, the next sample of profiler or end of run
+     */
+    private long sliceLimit;
+    /**
+     * Variable to store fault which stopped the run, null if there is none
+     */
+    private Fault fault;
+    /**
+     * Variable to store id of command which faulted
+     */
+    private int faultCommand;
+    /**
+     * Variable to store message of load or device error
+     */
+    private String faultDetail;
 
     /**
      * Constructor with interrupt time argument
@@ -71,61 +211,952 @@ public class CPU {
      * @param interruptTime time for interrupt
      */
     public CPU(int interruptTime) {
+        this(interruptTime, new StreamOutputDevice(System.out, StreamOutputDevice.FlushPolicy.LINE));
+    }
+
+    /**
+     * Constructor with interrupt time and output device arguments, get
+     * instruction reads random values seeded from clock
+     *
+     * @param interruptTime time for interrupt
+     * @param output device where port instructions write
+     */
+    public CPU(int interruptTime, OutputDevice output) {
+        this(interruptTime, output, new RandomInputDevice(System.nanoTime()));
+    }
+
+    /**
+     * Constructor with interrupt time, output and input device arguments
+     *
+     * @param interruptTime time for interrupt
+     * @param output device where port instructions write
+     * @param input device where get instructions read
+     */
+    public CPU(int interruptTime, OutputDevice output, InputDevice input) {
+        this(interruptTime, output, input, MachineProfile.DEFAULT);
+    }
+
+    /**
+     * Constructor with interrupt time, output and input device and machine
+     * profile arguments
+     *
+     * @param interruptTime time for interrupt
+     * @param output device where port instructions write
+     * @param input device where get instructions read
+     * @param profile profile of machine, gives size and backend of memory
+     */
+    public CPU(int interruptTime, OutputDevice output, InputDevice input, MachineProfile profile) {
         this.interruptTime = interruptTime;
+        this.output = output;
+        this.input = input;
+        this.profile = profile;
+        this.metrics = profile.isMetricsEnabled() ? new MachineMetrics() : null;
+    }
+
+    /**
+     * Constructor of copy, memory pages are shared with source until they are
+     * written
+     *
+     * @param source CPU is copied
+     * @param output device where port instructions write
+     * @param input device where get instructions read
+     */
+    CPU(CPU source, OutputDevice output, InputDevice input) {
+        this(source, source.interruptTime, output, input);
+    }
+
+    /**
+     * Constructor of copy with other interrupt time, memory pages are shared
+     * with source until they are written
+     *
+     * @param source CPU is copied
+     * @param interruptTime time for interrupt of copy
+     * @param output device where port instructions write
+     * @param input device where get instructions read
+     */
+    CPU(CPU source, int interruptTime, OutputDevice output, InputDevice input) {
+        this(interruptTime, output, input, source.profile);
+        this.pcReg = source.pcReg;
+        this.acReg = source.acReg;
+        this.spReg = source.spReg;
+        this.xReg = source.xReg;
+        this.yReg = source.yReg;
+        this.irReg = source.irReg;
+        this.mode = source.mode;
+        this.counter = source.counter;
+        this.isRunning = source.isRunning;
+        this.instructionCount = source.instructionCount;
+        this.fusedDispatchCount = source.fusedDispatchCount;
+        this.maxInstructions = source.maxInstructions;
+        this.fault = source.fault;
+        this.faultCommand = source.faultCommand;
+        this.faultDetail = source.faultDetail;
+        this.systemOnlySlots = source.systemOnlySlots;
+        this.isCodeVerified = source.isCodeVerified;
+        if (metrics != null) {
+            metrics.add(source.metrics);
+        }
+        if (source.memory != null) {
+            //stream is decoded when copy runs
+            this.memory = source.memory.copy();
+            this.memorySize = this.memory.size();
+        }
+    }
+
+    /**
+     * set maximum number of instructions, run stops when it is reached
+     *
+     * @param maxInstructions maximum number of instructions
+     */
+    public void setMaxInstructions(long maxInstructions) {
+        this.maxInstructions = maxInstructions;
+    }
+
+    /**
+     * get interrupt time
+     *
+     * @return time for interrupt
+     */
+    public int getInterruptTime() {
+        return interruptTime;
+    }
+
+    /**
+     * get timer counter, number of ticks since last timer interrupt
+     *
+     * @return timer counter
+     */
+    public int getCounter() {
+        return counter;
+    }
+
+    /**
+     * get number of dispatches, a superinstruction is dispatched once for
+     * all its instructions
+     *
+     * @return number of dispatches
+     */
+    public long getDispatchCount() {
+        return instructionCount - fusedDispatchCount;
+    }
+
+    /**
+     * get profile of machine
+     *
+     * @return profile of machine
+     */
+    public MachineProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * get execution metrics
+     *
+     * @return metrics of runs since program was loaded or reset, null when
+     * profile does not collect them
+     */
+    public MachineMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * set sampling profiler, its call stack starts at current instruction.
+     * Snapshots and forks are not profiled.
+     *
+     * @param profiler sampling profiler, null to stop profiling
+     */
+    public void setProfiler(SamplingProfiler profiler) {
+        this.profiler = profiler;
+        if (profiler != null) {
+            profiler.restart(instructionCount);
+        }
+    }
+
+    /**
+     * set recorder of execution trace, it records the next run which starts
+     * by load or reset. Compiled blocks are not used while a run is recorded.
+     * Snapshots and forks are not recorded.
+     *
+     * @param tracer recorder of execution trace, null to stop recording
+     */
+    public void setTracer(TraceRecorder tracer) {
+        this.tracer = tracer;
+    }
+
+    /**
+     * set coverage of memory, it is marked by each executed instruction and
+     * never cleared by CPU. Snapshots and forks do not record coverage.
+     *
+     * @param coverage one entry per word of memory, null to stop recording
+     */
+    public void setCoverage(byte[] coverage) {
+        this.coverage = coverage;
+    }
+
+    /**
+     * get number of executed instructions
+     *
+     * @return number of executed instructions
+     */
+    public long getInstructionCount() {
+        return instructionCount;
+    }
+
+    /**
+     * get breakpoints and watchpoints, run uses them from its next call.
+     * Snapshots and forks have none.
+     *
+     * @return breakpoints and watchpoints
+     */
+    public DebugPoints getDebugPoints() {
+        return debugPoints;
+    }
+
+    /**
+     * get PC register
+     *
+     * @return PC, relative to top of region of current mode
+     */
+    public int getPcReg() {
+        return pcReg;
+    }
+
+    /**
+     * get AC register
+     *
+     * @return AC
+     */
+    public int getAcReg() {
+        return acReg;
+    }
+
+    /**
+     * get SP register
+     *
+     * @return SP
+     */
+    public int getSpReg() {
+        return spReg;
+    }
+
+    /**
+     * get X register
+     *
+     * @return X
+     */
+    public int getXReg() {
+        return xReg;
+    }
+
+    /**
+     * get Y register
+     *
+     * @return Y
+     */
+    public int getYReg() {
+        return yReg;
+    }
+
+    /**
+     * get IR register
+     *
+     * @return opcode of last instruction
+     */
+    public int getIrReg() {
+        return irReg;
+    }
+
+    /**
+     * get CPU mode
+     *
+     * @return user, timer or system mode
+     */
+    public int getMode() {
+        return mode;
+    }
+
+    /**
+     * get address of memory of next instruction
+     *
+     * @return address of memory
+     */
+    public int getNextAddress() {
+        return getAddressInMemoryViaPC();
+    }
+
+    /**
+     * read memory, watchpoints are not triggered
+     *
+     * @param address of memory
+     * @return value
+     * @throws IndexOutOfBoundsException when address is outside memory
+     */
+    public int readMemory(int address) throws IndexOutOfBoundsException {
+        if (memory == null) {
+            throw new IndexOutOfBoundsException(Messages.ERR_MEMORY_INDEX_OUT_OF_BOUND);
+        }
+        return memory.read(address);
+    }
+
+    /**
+     * capture state of machine: registers, mode, timer counter and memory.
+     * Memory pages are shared with the snapshot and copied when the machine
+     * writes them.
+     *
+     * @return snapshot of machine
+     */
+    public MachineSnapshot snapshot() {
+        return new MachineSnapshot(new CPU(this, null, null));
     }
 
     /**
      * CPU runs
      *
      * @param fileName stored instruction set
+     * @return result of run
+     */
+    public RunResult runs(String fileName) {
+        load(fileName);
+        return run();
+    }
+
+    /**
+     * load program, a load error is written to memory like other errors
+     *
+     * @param fileName stored instruction set
+     * @return true if program is loaded
+     */
+    public boolean load(String fileName) {
+        return load(fileName, null);
+    }
+
+    /**
+     * load program image which is already in a buffer, a load error is
+     * written to memory like other errors
+     *
+     * @param image bytes of program image
+     * @return true if program is loaded
+     */
+    public boolean load(ByteBuffer image) {
+        return load(null, image);
+    }
+
+    /**
+     * load program from file or from buffer
+     *
+     * @param fileName stored instruction set, used when image is null
+     * @param image bytes of program image, or null
+     * @return true if program is loaded
+     */
+    private boolean load(String fileName, ByteBuffer image) {
+        try {
+            //initialize with file or image
+            this.initialize(fileName, image);
+        } catch (IOException | IndexOutOfBoundsException exp) {
+            faultDetail = exp.getMessage();
+            raise(Fault.LOAD_ERROR, 0);
+            writeErrorToMemory(fault.format(faultCommand, faultDetail));
+            return false;
+        }
+        startTrace();
+        return true;
+    }
+
+    /**
+     * reset machine to loaded program in place: registers, mode and timer are
+     * cleared and only memory pages written since load are restored. Compiled
+     * blocks and their entry counts are dropped, so a reset machine dispatches
+     * same as a new one.
+     *
+     * @param output device where port instructions write
+     * @param input device where get instructions read
+     * @return false if no program was loaded
+     */
+    public boolean reset(OutputDevice output, InputDevice input) {
+        if (!canReset()) {
+            return false;
+        }
+        this.output = output;
+        this.input = input;
+        resetRegisters();
+        isCodeVerified = true;
+        if (decodedProgram != null) {
+            decodedProgram.setSystemOnlySlots(systemOnlySlots);
+        }
+        memory.reset();
+        if (blockCache != null) {
+            blockCache.reset();
+        }
+        isBlockEntry = true;
+        this.isRunning = true;
+        startTrace();
+        return true;
+    }
+
+    /**
+     * write word of loaded program before run, reset restores it. Patched
+     * program is not verified until it is reset.
+     *
+     * @param address of memory
+     * @param value is written
+     * @throws IndexOutOfBoundsException when address is outside memory
+     */
+    void patch(int address, int value) throws IndexOutOfBoundsException {
+        if (isCodeVerified && decodedProgram != null) {
+            //unchecked slots decoded from proof of loaded program are dropped
+            decodedProgram.setSystemOnlySlots(null);
+            decodedProgram.invalidateAll();
+        }
+        isCodeVerified = false;
+        memory.write(address, value);
+    }
+
+    /**
+     * start recording run, recorder is dropped if it already recorded a run
+     */
+    private void startTrace() {
+        if (tracer != null && !tracer.start(memory, interruptTime)) {
+            tracer = null;
+        }
+    }
+
+    /**
+     * check machine can be reset to loaded program or not
+     *
+     * @return true if a program was loaded without error
+     */
+    public boolean canReset() {
+        return memory != null && memory.canReset() && fault != Fault.LOAD_ERROR;
+    }
+
+    /**
+     * clear registers, mode, timer counter, number of executed instructions
+     * and fault
+     */
+    private void resetRegisters() {
+        //Set mode is user
+        mode = SysConfig.USER_MODE;
+        pcReg = 0;
+        acReg = 0;
+        spReg = 0;
+        xReg = 0;
+        yReg = 0;
+        irReg = 0;
+        counter = 0;
+        instructionCount = 0;
+        fusedDispatchCount = 0;
+        fault = null;
+        faultDetail = null;
+        stopReason = null;
+        stopAddress = -1;
+        isAtBreakpoint = false;
+        if (metrics != null) {
+            metrics.reset();
+        }
+        if (profiler != null) {
+            profiler.restart(0);
+        }
+    }
+
+    /**
+     * run loaded program or continue a run which reached maximum number of
+     * instructions or stopped at a breakpoint or watchpoint, each call runs
+     * at most maximum number of instructions
+     *
+     * @return result of run
+     */
+    public RunResult run() {
+        stopReason = null;
+        stopAddress = -1;
+        if (!this.isRunning) {
+            return getResult();
+        }
+        if (decodedProgram == null) {
+            setMemory(memory, false);
+        }
+        instructionLimit = maxInstructions > Long.MAX_VALUE - instructionCount
+                ? Long.MAX_VALUE : instructionCount + maxInstructions;
+        ObjectName metricsName = null;
+        if (metrics != null) {
+            metricsName = metrics.register(SysConfig.METRICS_TYPE_MACHINE);
+            metrics.startRun();
+        }
+        try {
+            if (debugPoints.isArmed()) {
+                runWithDebugPoints();
+            } else {
+                //while status is running do 
+                while (this.isRunning && instructionCount < instructionLimit) {
+                    //profiler stops run at each sample, it adds no check per instruction
+                    sliceLimit = profiler == null ? instructionLimit
+                            : Math.min(instructionLimit, profiler.getNextSample());
+                    runSlice();
+                }
+            }
+        } catch (RuntimeException ex) {
+            //only input and output devices may throw
+            faultDetail = ex.getMessage();
+            raise(Fault.DEVICE_ERROR, irReg);
+        } finally {
+            output.flush();
+            if (metrics != null) {
+                metrics.endRun();
+                MachineMetrics.unregister(metricsName);
+            }
+        }
+        if (fault != null) {
+            writeErrorToMemory(fault.format(faultCommand, faultDetail));
+        }
+        return getResult();
+    }
+
+    /**
+     * save state of current process into its control block, nothing is
+     * allocated
+     *
+     * @param process control block of current process
+     */
+    void saveContext(ProcessControlBlock process) {
+        process.pcReg = pcReg;
+        process.acReg = acReg;
+        process.spReg = spReg;
+        process.xReg = xReg;
+        process.yReg = yReg;
+        process.irReg = irReg;
+        process.mode = mode;
+        process.counter = counter;
+        process.isRunning = isRunning;
+        process.instructionCount = instructionCount;
+        process.fusedDispatchCount = fusedDispatchCount;
+        process.fault = fault;
+        process.faultCommand = faultCommand;
+        process.faultDetail = faultDetail;
+        process.memory = memory;
+        process.decodedProgram = decodedProgram;
+        process.blockCache = blockCache;
+        process.isCodeVerified = isCodeVerified;
+    }
+
+    /**
+     * switch to process, state of CPU is replaced by state saved in its
+     * control block. Nothing is allocated except decoded instruction stream
+     * of a process which runs for the first time.
+     *
+     * @param process control block of process
+     */
+    void restoreContext(ProcessControlBlock process) {
+        pcReg = process.pcReg;
+        acReg = process.acReg;
+        spReg = process.spReg;
+        xReg = process.xReg;
+        yReg = process.yReg;
+        irReg = process.irReg;
+        mode = process.mode;
+        counter = process.counter;
+        isRunning = process.isRunning;
+        instructionCount = process.instructionCount;
+        fusedDispatchCount = process.fusedDispatchCount;
+        instructionLimit = process.instructionLimit;
+        fault = process.fault;
+        faultCommand = process.faultCommand;
+        faultDetail = process.faultDetail;
+        systemOnlySlots = process.systemOnlySlots;
+        isCodeVerified = process.isCodeVerified;
+        output = process.output;
+        input = process.input;
+        if (process.decodedProgram == null) {
+            setMemory(process.memory, false);
+            process.decodedProgram = decodedProgram;
+            process.blockCache = blockCache;
+        } else {
+            memory = process.memory;
+            memorySize = memory.size();
+            decodedProgram = process.decodedProgram;
+            blockCache = process.blockCache;
+            isBlockEntry = true;
+        }
+    }
+
+    /**
+     * run current process until timer interrupt is delivered, then handler
+     * of interrupt runs when process is switched to again. Profiler, tracer,
+     * debug points and coverage are not used.
+     *
+     * @return true if process was preempted, false if it ended, faulted or
+     * reached its maximum number of instructions
+     */
+    boolean runUntilPreempted() {
+        isPreempted = false;
+        sliceLimit = instructionLimit;
+        try {
+            while (this.isRunning && !isPreempted && instructionCount < instructionLimit) {
+                runSlice();
+            }
+        } catch (RuntimeException ex) {
+            //only input and output devices may throw
+            faultDetail = ex.getMessage();
+            raise(Fault.DEVICE_ERROR, irReg);
+        }
+        return this.isRunning && instructionCount < instructionLimit;
+    }
+
+    /**
+     * attach CPU as a core of a multi-core machine: registers are cleared,
+     * memory is shared and each fetched instruction is decoded again. User
+     * and system stacks of one CPU are split evenly between cores, stack of
+     * a core which is full faults, so it never reaches stack of next core.
+     *
+     * @param memory memory shared by all cores, program is loaded
+     * @param coreId id of core, get core id instruction loads it into AC
+     * @param coreCount number of cores which share stacks
+     */
+    void attachCore(ConcurrentMemory memory, int coreId, int coreCount) {
+        resetRegisters();
+        this.coreId = coreId;
+        this.userStackSize = (SysConfig.USER_STACK_LIMIT + 1) / coreCount;
+        this.systemStackSize = (SysConfig.SYSTEM_STACK_LIMIT + 1) / coreCount;
+        systemOnlySlots = null;
+        isCodeVerified = false;
+        setMemory(memory, false);
+        decodedProgram.setCached(false);
+        instructionLimit = maxInstructions;
+        this.isRunning = true;
+    }
+
+    /**
+     * run for at most a number of instructions, fault stops only this CPU
+     * and is not written to memory. Profiler, tracer and debug points are
+     * not used.
+     *
+     * @param count maximum number of instructions
+     * @return true if CPU can run again, false if it ended, faulted or
+     * reached its maximum number of instructions
+     */
+    boolean runFor(long count) {
+        sliceLimit = count > instructionLimit - instructionCount ? instructionLimit
+                : instructionCount + count;
+        try {
+            while (this.isRunning && instructionCount < sliceLimit) {
+                runSlice();
+            }
+        } catch (RuntimeException ex) {
+            //only input and output devices may throw
+            faultDetail = ex.getMessage();
+            raise(Fault.DEVICE_ERROR, irReg);
+        }
+        return this.isRunning && instructionCount < instructionLimit;
+    }
+
+    /**
+     * run until sliceLimit, end of program or fault
+     */
+    private void runSlice() {
+        if (mode == SysConfig.USER_MODE) {
+            runUntilDeadline();
+        } else {
+            step(getRemainingInstructions(Integer.MAX_VALUE));
+            //returning to user mode counts for timer
+            if (mode == SysConfig.USER_MODE && this.isRunning) {
+                advanceTimer(1);
+            }
+        }
+        if (profiler != null && this.isRunning) {
+            profiler.sample(instructionCount, getAddressInMemoryViaPC());
+        }
+    }
+
+    /**
+     * run one instruction per slice, stop before instruction at a breakpoint
+     * and after instruction which accessed a watched address. Memory is
+     * watched only during this loop, plain loop never checks.
      */
-    public void runs(String fileName) {
+    private void runWithDebugPoints() {
+        Memory plainMemory = memory;
+        WatchedMemory watchedMemory = null;
+        if (debugPoints.hasWatchpoints()) {
+            watchedMemory = new WatchedMemory(plainMemory, debugPoints);
+            memory = watchedMemory;
+        }
         try {
-            //initialize with file
-            this.initialize(fileName);
-            //while status is running do 
-            while (this.isRunning) {
-                callFunction();
-                interrupt();
+            while (this.isRunning && instructionCount < instructionLimit) {
+                int address = getAddressInMemoryViaPC();
+                if (debugPoints.isBreakpoint(address) && !isAtBreakpoint) {
+                    stopReason = RunResult.ExitReason.BREAKPOINT;
+                    stopAddress = address;
+                    isAtBreakpoint = true;
+                    return;
+                }
+                isAtBreakpoint = false;
+                sliceLimit = instructionCount + 1;
+                runSlice();
+                if (watchedMemory != null && watchedMemory.getHitAddress() >= 0 && fault == null) {
+                    stopReason = RunResult.ExitReason.WATCHPOINT;
+                    stopAddress = watchedMemory.getHitAddress();
+                    return;
+                }
             }
-        } catch (IOException exp) {
-            writeErrorToMemory(exp.getMessage());
-        } catch (IndexOutOfBoundsException ex) {
-            writeErrorToMemory(ex.getMessage());
-        } catch (EmptyStackException stackExp) {
-            writeErrorToMemory(Messages.ERR_STACK_IS_EMPTY);
-        } catch (StackOverflowError stackOverExp) {
-            writeErrorToMemory(stackOverExp.getMessage());
-        } catch (Exception ex) {
-            writeErrorToMemory(ex.getMessage());
+        } finally {
+            memory = plainMemory;
+        }
+    }
+
+    /**
+     * build result of run
+     *
+     * @return result of run
+     */
+    RunResult getResult() {
+        RunResult.ExitReason exitReason;
+        if (fault != null) {
+            exitReason = RunResult.ExitReason.FAULT;
+        } else if (stopReason != null) {
+            exitReason = stopReason;
+        } else if (isRunning) {
+            exitReason = RunResult.ExitReason.LIMIT;
+        } else {
+            exitReason = RunResult.ExitReason.HALTED;
+        }
+        return new RunResult(exitReason, fault, faultCommand, faultDetail,
+                instructionCount, getDispatchCount(), stopAddress);
+    }
+
+    /**
+     * Record fault and stop CPU, only first fault of a run is kept
+     *
+     * @param fault is recorded
+     * @param command id of command which faulted
+     * @return false, status of failed check
+     */
+    private boolean raise(Fault fault, int command) {
+        if (this.fault == null) {
+            this.fault = fault;
+            this.faultCommand = command;
+        }
+        this.isRunning = false;
+        if (tracer != null) {
+            tracer.fault();
+        }
+        return false;
+    }
+
+    /**
+     * check address is inside memory, record fault of command if it is not
+     *
+     * @param address of memory
+     * @param command id of command which uses address
+     * @return true if address is inside memory
+     */
+    private boolean checkAddress(int address, int command) {
+        if (address >= 0 && address < memorySize) {
+            return true;
         }
+        return raise(Fault.COMMAND_OUT_OF_RANGE, command);
+    }
+
+    /**
+     * get number of instructions which can still be executed
+     *
+     * @param budget wanted number of instructions
+     * @return budget, limited by maximum number of instructions and next
+     * sample of profiler
+     */
+    private int getRemainingInstructions(int budget) {
+        long remaining = sliceLimit - instructionCount;
+        return remaining < budget ? (int) remaining : budget;
     }
 
     /**
      * Initialize
      *
-     * @param fileName stored instruction set
+     * @param fileName stored instruction set, used when image is null
+     * @param image bytes of program image, or null
      * @throws IOException when read file
      */
-    private void initialize(String fileName) throws IOException, IndexOutOfBoundsException {
-        //Set mode is user
-        mode = SysConfig.USER_MODE;
+    private void initialize(String fileName, ByteBuffer image)
+            throws IOException, IndexOutOfBoundsException {
+        resetRegisters();
         //Initial new Memory
-        memory = new Memory();
-        memory.initialize(fileName);
+        Memory loaded = profile.createMemory();
+        memory = loaded;
+        if (image == null) {
+            loaded.initialize(fileName);
+        } else {
+            loaded.initialize(image);
+        }
+        systemOnlySlots = ProgramVerifier.verify(loaded);
+        isCodeVerified = true;
+        setMemory(loaded, true);
         //Set status is running
         this.isRunning = true;
     }
 
+    /**
+     * set memory and build its decoded instruction stream
+     *
+     * @param memory is used by CPU
+     * @param isEager true to decode whole memory now
+     */
+    private void setMemory(Memory memory, boolean isEager) {
+        this.memory = memory;
+        memorySize = memory.size();
+        //Decode instruction stream
+        decodedProgram = new DecodedProgram(memory, isEager,
+                isCodeVerified ? systemOnlySlots : null);
+        memory.setDecodedProgram(decodedProgram);
+        blockCache = new BlockCache(decodedProgram, decodedProgram.length());
+        decodedProgram.setBlockCache(blockCache);
+        isBlockEntry = true;
+    }
+
+    /**
+     * Run user mode instructions until the next timer deadline, then deliver
+     * the timer interrupt. Timer is not checked inside the loop: each
+     * instruction which ends in user mode while CPU is running counts as one
+     * tick, and the loop never runs past the tick which fires the timer.
+     */
+    private void runUntilDeadline() {
+        int budget = interruptTime - counter;
+        if (budget < Integer.MAX_VALUE) {
+            budget++;
+        }
+        budget = getRemainingInstructions(budget);
+        int ticks = 0;
+        while (ticks < budget) {
+            int executed = step(budget - ticks);
+            if (fault != null) {
+                return;
+            }
+            if (mode != SysConfig.USER_MODE || !this.isRunning) {
+                //last instruction left user mode or ended, it is not a tick
+                ticks += executed - 1;
+                break;
+            }
+            ticks += executed;
+        }
+        advanceTimer(ticks);
+    }
+
+    /**
+     * Advance timer counter by ticks, fire timer interrupt when the last tick
+     * reaches interrupt time
+     *
+     * @param ticks number of instructions ended in user mode, never more than
+     * one past interrupt time
+     */
+    private void advanceTimer(int ticks) {
+        if (ticks > interruptTime - counter) {
+            counter += ticks - 1;
+            timerInterrupt();
+        } else {
+            counter += ticks;
+        }
+    }
+
+    /**
+     * Execute next instruction, or basic block when it is compiled
+     *
+     * @param budget maximum number of instructions to execute
+     * @return number of instructions executed
+     */
+    private int step(int budget) {
+        if (isBlockEntry && tracer == null) {
+            CompiledBlock block = blockCache.enter(getAddressInMemoryViaPC());
+            if (block != null) {
+                int executed = executeBlock(block, budget);
+                instructionCount += executed;
+                return executed;
+            }
+        }
+        int entryMode = mode;
+        int address = getAddressInMemoryViaPC();
+        callFunction(address);
+        if (fault != null) {
+            return 0;
+        }
+        isBlockEntry = CompiledBlock.isTerminator(irReg) || mode != entryMode;
+        instructionCount++;
+        if (coverage != null) {
+            Arrays.fill(coverage, address, address + decodedProgram.getSize(address), (byte) 1);
+        }
+        if (tracer != null) {
+            tracer.retire(address, irReg, acReg, xReg, yReg, spReg, mode);
+        }
+        if (metrics != null) {
+            metrics.count(irReg);
+        }
+        return 1;
+    }
+
+    /**
+     * Execute compiled block, leave it as soon as flow of control, mode or
+     * code of block changes
+     *
+     * @param block is executed
+     * @param budget maximum number of instructions to execute
+     * @return number of instructions executed
+     */
+    private int executeBlock(CompiledBlock block, int budget) {
+        int entryMode = mode;
+        int version = blockCache.getVersion();
+        int nextPc = pcReg;
+        int base = getAddressInMemoryViaPC() - pcReg;
+        int length = block.getLength();
+        int executed = 0;
+        isBlockEntry = true;
+        for (int index = 0; index < length && executed < budget; index++) {
+            int count = block.getInstructionCount(index);
+            if (executed + count > budget) {
+                //superinstruction does not fit before timer deadline, next
+                //instructions run one by one
+                isBlockEntry = false;
+                break;
+            }
+            irReg = block.getOpcode(index);
+            operand = block.getOperand(index);
+            extraOperand = block.getExtraOperand(index);
+            int address = base + nextPc;
+            nextPc += block.getSize(index);
+            pcReg = nextPc;
+            executeInstruction(irReg);
+            if (fault != null) {
+                break;
+            }
+            if (coverage != null) {
+                Arrays.fill(coverage, address, base + nextPc, (byte) 1);
+            }
+            executed += count;
+            fusedDispatchCount += count - 1;
+            if (metrics != null) {
+                metrics.count(irReg);
+            }
+            if (!isRunning || mode != entryMode || pcReg != nextPc
+                    || version != blockCache.getVersion()) {
+                break;
+            }
+        }
+        return executed;
+    }
+
     /**
      * CPU call function with decoding instruction
      *
+     * @param address of instruction in memory
      */
-    private void callFunction() throws IndexOutOfBoundsException, EmptyStackException, StackOverflowError, Exception {
-        //read 
-        irReg = readFromMemoryByPCReg();
-        //Execute each instruction
-        executeInstruction(irReg);
+    private void callFunction(int address) {
+        if (decodedProgram.isDecoded(address)) {
+            //read from decoded stream, PC goes to next PC hint
+            irReg = decodedProgram.getOpcode(address);
+            operand = decodedProgram.getOperand(address);
+            pcReg += decodedProgram.getSize(address);
+            //Execute each instruction
+            executeInstruction(irReg);
+        } else if (address < 0 || address >= memorySize) {
+            raise(Fault.MEMORY_OUT_OF_RANGE, 0);
+        } else {
+            //only a slot whose operand is outside memory is not decoded
+            irReg = memory.read(address);
+            raise(irReg == 23 ? Fault.MEMORY_OUT_OF_RANGE : Fault.COMMAND_OUT_OF_RANGE, irReg);
+        }
     }
 
     /**
@@ -133,7 +1164,7 @@ public class CPU {
      *
      * @param instruction
      */
-    private void executeInstruction(int instruction) throws IndexOutOfBoundsException, Exception {
+    private void executeInstruction(int instruction) {
         //read instruction from IR
         switch (instruction) {
             case 1:
@@ -226,9 +1257,41 @@ public class CPU {
             case 30:
                 iRet();
                 break;
+            case 32:
+                fetchAddAddr();
+                break;
+            case 33:
+                compareExchangeAddr();
+                break;
+            case 34:
+                acReg = coreId;
+                break;
             case 50:
                 end();
                 break;
+            case SysConfig.LOAD_ADDR_UNCHECKED:
+                acReg = memory.read(operand);
+                break;
+            case SysConfig.STORE_ADDR_UNCHECKED:
+                writeMemory(operand, acReg);
+                break;
+            case SysConfig.LOAD_VALUE_COPY_TO_X:
+                loadValue();
+                copyToX();
+                break;
+            case SysConfig.LOAD_VALUE_PUT:
+                loadValue();
+                put(extraOperand);
+                break;
+            case SysConfig.LOAD_ADDR_PUT:
+                acReg = memory.read(operand);
+                put(extraOperand);
+                break;
+            case SysConfig.DEC_X_JUMP_IF_NOT_ZERO:
+                decX();
+                copyFromX();
+                jumpIfNotEqualAddr();
+                break;
             default:
                 doWhenGetWrongInstruction(instruction);
                 break;
@@ -254,18 +1317,26 @@ public class CPU {
      * @param error is error message
      */
     private void writeErrorToMemory(String error) {
+        //error program is not verified
+        isCodeVerified = false;
+        if (decodedProgram != null) {
+            decodedProgram.setSystemOnlySlots(null);
+        }
         memory.clear();
+        if (tracer != null) {
+            tracer.clear();
+        }
         int address = 0;
         char[] errorCharacters = error.toCharArray();
         for (char character : errorCharacters) {
             //load character to ac
-            memory.write(address++, 1);
-            memory.write(address++, (int) character);
+            writeMemory(address++, 1);
+            writeMemory(address++, (int) character);
             //print character
-            memory.write(address++, 9);
-            memory.write(address++, 2);
+            writeMemory(address++, 9);
+            writeMemory(address++, 2);
         }
-        memory.write(address++, 2);
+        writeMemory(address++, 2);
         pcReg = 0;
         mode = SysConfig.USER_MODE;
     }
@@ -290,20 +1361,18 @@ public class CPU {
             pushValue(xReg);
             pushValue(yReg);
             counter = 0;
+            isPreempted = true;
+            if (metrics != null) {
+                metrics.countTimerInterrupt();
+            }
+            if (profiler != null) {
+                profiler.interrupt(getAddressInMemoryViaPC());
+            }
         } else {
             counter++;
         }
     }
 
-    /**
-     * turn back from system mode to user mode
-     */
-    private int readFromMemoryByPCReg() throws IndexOutOfBoundsException {
-        int address = getAddressInMemoryViaPC();
-        pcReg++;
-        return memory.read(address);
-    }
-
     /**
      * get value from memory via PC
      *
@@ -329,20 +1398,27 @@ public class CPU {
      * push value to stack
      *
      * @param value is pushed
+     * @return false when stack is full or outside memory
      */
-    private void pushValue(int value) throws StackOverflowError {
+    private boolean pushValue(int value) {
         if (isMemoryFull()) {
-            throw new StackOverflowError(Messages.ERR_STACK_IS_FULL);
+            return raise(Fault.STACK_FULL, 0);
+        }
+        int address;
+        if (mode == SysConfig.USER_MODE) {
+            address = SysConfig.BOTTOM_USER - coreId * userStackSize - spReg;
         } else {
-            int address;
-            if (mode == SysConfig.USER_MODE) {
-                address = SysConfig.BOTTOM_USER - spReg;
-            } else {
-                address = SysConfig.BOTTOM_SYSTEM - spReg;
-            }
-            spReg++;
-            memory.write(address, value);
+            address = SysConfig.BOTTOM_SYSTEM - coreId * systemStackSize - spReg;
+        }
+        if (address < 0 || address >= memorySize) {
+            return raise(Fault.MEMORY_OUT_OF_RANGE, 0);
         }
+        spReg++;
+        writeMemory(address, value);
+        if (metrics != null) {
+            metrics.recordStackDepth(mode == SysConfig.USER_MODE, spReg);
+        }
+        return true;
     }
 
     /**
@@ -351,35 +1427,45 @@ public class CPU {
     private boolean isMemoryFull() {
         boolean ret = false;
         int size = pcReg + spReg;
-        if (mode == SysConfig.USER_MODE && size > 119) {
+        if (mode == SysConfig.USER_MODE && size > SysConfig.USER_STACK_LIMIT) {
+            ret = true;
+        }
+        if (mode == SysConfig.SYSTEM_MODE && size > SysConfig.SYSTEM_STACK_LIMIT) {
             ret = true;
         }
-        if (mode == SysConfig.SYSTEM_MODE && size > 499) {
+        if (mode == SysConfig.SYSTEM_MODE && spReg > SysConfig.SYSTEM_STACK_LIMIT) {
             ret = true;
         }
-        if (mode == SysConfig.SYSTEM_MODE && spReg > 499) {
+        //stack of a core holds its share of stack only
+        if (userStackSize > 0 && spReg >= (mode == SysConfig.USER_MODE ? userStackSize
+                : systemStackSize)) {
             ret = true;
         }
         return ret;
     }
 
     /**
-     * pop value from stack
+     * pop value from stack, fault is recorded when stack is empty or outside
+     * memory
      *
      * @return value
      */
-    private int popValueFromStack() throws EmptyStackException {
+    private int popValueFromStack() {
         int address;
         if (spReg == 0) {
-            throw new EmptyStackException();
+            raise(Fault.STACK_EMPTY, 0);
+            return 0;
         }
         spReg--;
         if (mode == SysConfig.USER_MODE) {
-            address = SysConfig.BOTTOM_USER - spReg;
+            address = SysConfig.BOTTOM_USER - coreId * userStackSize - spReg;
         } else {
-            address = SysConfig.BOTTOM_SYSTEM - spReg;
+            address = SysConfig.BOTTOM_SYSTEM - coreId * systemStackSize - spReg;
+        }
+        if (address < 0 || address >= memorySize) {
+            raise(Fault.MEMORY_OUT_OF_RANGE, 0);
+            return 0;
         }
-
         return memory.read(address);
     }
 
@@ -387,147 +1473,130 @@ public class CPU {
     /**
      * Load the value into the AC
      */
-    private void loadValue() throws IndexOutOfBoundsException {
-        try {
-            int value = readFromMemoryByPCReg();
-            acReg = value;
-        } catch (IndexOutOfBoundsException exp) {
-            throw new IndexOutOfBoundsException(exp.getMessage()
-                    + SysConfig.HYPHEN + String.format(Messages.ERR_IN_COMMAND_INDEX_OUT_OF_BOUND, 1));
-        }
+    private void loadValue() {
+        acReg = operand;
     }
 
     /**
      * Load the value at the address into the AC
      */
-    private void loadAddr() throws IndexOutOfBoundsException, Exception {
-        try {
-            int address = readFromMemoryByPCReg();
-            if (mode == SysConfig.USER_MODE && address > SysConfig.BOTTOM_USER) {
-                throw new Exception(String.format(Messages.ERR_IN_COMMAND_INVALID_ACCESS, 2));
-            } else {
-                acReg = memory.read(address);
-            }
-        } catch (IndexOutOfBoundsException exp) {
-            throw new IndexOutOfBoundsException(exp.getMessage()
-                    + SysConfig.HYPHEN + String.format(Messages.ERR_IN_COMMAND_INDEX_OUT_OF_BOUND, 2));
+    private void loadAddr() {
+        int address = operand;
+        if (mode == SysConfig.USER_MODE && address > SysConfig.BOTTOM_USER) {
+            raise(Fault.INVALID_ACCESS, 2);
+        } else if (checkAddress(address, 2)) {
+            acReg = memory.read(address);
         }
     }
 
     /**
      * Load the value from the address found in the given address into the AC
      */
-    private void loadIndAddr() throws IndexOutOfBoundsException, Exception {
-        try {
-            int address = readFromMemoryByPCReg();
-            if (mode == SysConfig.USER_MODE && address > SysConfig.BOTTOM_USER) {
-                throw new Exception(String.format(Messages.ERR_IN_COMMAND_INVALID_ACCESS, 2));
-            } else {
-                int innerAddress = memory.read(address);
-                if (mode == SysConfig.USER_MODE && innerAddress > SysConfig.BOTTOM_USER) {
-                    writeErrorToMemory(String.format(Messages.ERR_IN_COMMAND_INVALID_ACCESS, 2));
-                }
+    private void loadIndAddr() {
+        int address = operand;
+        if (mode == SysConfig.USER_MODE && address > SysConfig.BOTTOM_USER) {
+            raise(Fault.INVALID_ACCESS, 2);
+        } else if (checkAddress(address, 3)) {
+            int innerAddress = memory.read(address);
+            if (mode == SysConfig.USER_MODE && innerAddress > SysConfig.BOTTOM_USER) {
+                writeErrorToMemory(String.format(Messages.ERR_IN_COMMAND_INVALID_ACCESS, 2));
+            }
+            if (checkAddress(innerAddress, 3)) {
                 acReg = memory.read(innerAddress);
             }
-        } catch (IndexOutOfBoundsException exp) {
-            throw new IndexOutOfBoundsException(exp.getMessage()
-                    + SysConfig.HYPHEN + String.format(Messages.ERR_IN_COMMAND_INDEX_OUT_OF_BOUND, 3));
         }
     }
 
     /**
      * Load the value at (address+X) into the AC
      */
-    private void loadIdXAddr() throws IndexOutOfBoundsException, Exception {
-        try {
-            int address = readFromMemoryByPCReg();
-            address = address + xReg;
-            if (mode == SysConfig.USER_MODE && address > SysConfig.BOTTOM_USER) {
-                throw new Exception(String.format(Messages.ERR_IN_COMMAND_INVALID_ACCESS, 2));
-            } else {
-                acReg = memory.read(address);
-            }
-        } catch (IndexOutOfBoundsException exp) {
-            throw new IndexOutOfBoundsException(exp.getMessage()
-                    + SysConfig.HYPHEN + String.format(Messages.ERR_IN_COMMAND_INDEX_OUT_OF_BOUND, 4));
+    private void loadIdXAddr() {
+        int address = operand + xReg;
+        if (mode == SysConfig.USER_MODE && address > SysConfig.BOTTOM_USER) {
+            raise(Fault.INVALID_ACCESS, 2);
+        } else if (checkAddress(address, 4)) {
+            acReg = memory.read(address);
         }
     }
 
     /**
      * Load the value at (address+Y) into the AC
      */
-    private void loadIdYAddr() throws IndexOutOfBoundsException, Exception {
-        try {
-            int address = readFromMemoryByPCReg();
-            address = address + yReg;
-            if (mode == SysConfig.USER_MODE && address > SysConfig.BOTTOM_USER) {
-                throw new Exception(String.format(Messages.ERR_IN_COMMAND_INVALID_ACCESS, 2));
-            } else {
-                acReg = memory.read(address);
-            }
-        } catch (IndexOutOfBoundsException exp) {
-            throw new IndexOutOfBoundsException(exp.getMessage()
-                    + SysConfig.HYPHEN + String.format(Messages.ERR_IN_COMMAND_INDEX_OUT_OF_BOUND, 5));
+    private void loadIdYAddr() {
+        int address = operand + yReg;
+        if (mode == SysConfig.USER_MODE && address > SysConfig.BOTTOM_USER) {
+            raise(Fault.INVALID_ACCESS, 2);
+        } else if (checkAddress(address, 5)) {
+            acReg = memory.read(address);
         }
     }
 
     /**
      * Load from (Sp+X) into the AC
      */
-    private void loadSpX() throws IndexOutOfBoundsException, Exception {
-        try {
-            int address = spReg + xReg;
-            if (mode == SysConfig.USER_MODE && address > SysConfig.BOTTOM_USER) {
-                throw new Exception(String.format(Messages.ERR_IN_COMMAND_INVALID_ACCESS, 2));
-            } else {
-                acReg = memory.read(address);
-            }
-        } catch (IndexOutOfBoundsException exp) {
-            throw new IndexOutOfBoundsException(exp.getMessage()
-                    + SysConfig.HYPHEN + String.format(Messages.ERR_IN_COMMAND_INDEX_OUT_OF_BOUND, 6));
+    private void loadSpX() {
+        int address = spReg + xReg;
+        if (mode == SysConfig.USER_MODE && address > SysConfig.BOTTOM_USER) {
+            raise(Fault.INVALID_ACCESS, 2);
+        } else if (checkAddress(address, 6)) {
+            acReg = memory.read(address);
         }
     }
 
     /**
      * Store the value in the AC into the address
      */
-    private void storeAddr() throws IndexOutOfBoundsException, Exception {
-        try {
-            int address = readFromMemoryByPCReg();
-            if (mode == SysConfig.USER_MODE && address > SysConfig.BOTTOM_USER) {
-                throw new Exception(String.format(Messages.ERR_IN_COMMAND_INVALID_ACCESS, 2));
-            } else {
-                memory.write(address, acReg);
-            }
-        } catch (IndexOutOfBoundsException exp) {
-            throw new IndexOutOfBoundsException(exp.getMessage()
-                    + SysConfig.HYPHEN + String.format(Messages.ERR_IN_COMMAND_INDEX_OUT_OF_BOUND, 7));
+    private void storeAddr() {
+        int address = operand;
+        if (mode == SysConfig.USER_MODE && address > SysConfig.BOTTOM_USER) {
+            raise(Fault.INVALID_ACCESS, 2);
+        } else if (checkAddress(address, 7)) {
+            writeMemory(address, acReg);
+        }
+    }
+
+    /**
+     * write value to memory, write is recorded when run is recorded
+     *
+     * @param address of memory
+     * @param value is written
+     */
+    private void writeMemory(int address, int value) {
+        memory.write(address, value);
+        if (tracer != null) {
+            tracer.write(address, value);
         }
     }
 
     /**
-     * Gets a random int from 1 to 100 into the AC
+     * Gets a value from input device into the AC, a random int from 0 to 9
+     * by default
      */
     private void get() {
-        Random random = new Random();
-        acReg = random.nextInt(10);
+        acReg = input.read();
+        if (tracer != null) {
+            tracer.input(acReg);
+        }
     }
 
     /**
      * If port=1, writes AC as an int to the screen <\br>
      * If port=2, writes AC as a char to the screen
      */
-    private void putPort() throws IndexOutOfBoundsException {
-        try {
-            int port = readFromMemoryByPCReg();
-            if (port == 1) {
-                System.out.println(acReg);
-            } else {
-                System.out.print((char) acReg);
-            }
-        } catch (IndexOutOfBoundsException exp) {
-            throw new IndexOutOfBoundsException(exp.getMessage()
-                    + SysConfig.HYPHEN + String.format(Messages.ERR_IN_COMMAND_INDEX_OUT_OF_BOUND, 9));
+    private void putPort() {
+        put(operand);
+    }
+
+    /**
+     * write AC to port
+     *
+     * @param port 1 to write AC as an int, other to write AC as a char
+     */
+    private void put(int port) {
+        if (port == 1) {
+            output.writeInt(acReg);
+        } else {
+            output.writeChar(acReg);
         }
     }
 
@@ -602,45 +1671,61 @@ public class CPU {
     }
 
     /**
-     * Jump to the address
+     * Add the AC to the value at the address and load the old value into
+     * the AC, atomic when memory is shared by cores
      */
-    private void jumpAddr() throws IndexOutOfBoundsException {
-        try {
-            int address = readFromMemoryByPCReg();
-            pcReg = address;
-        } catch (IndexOutOfBoundsException exp) {
-            throw new IndexOutOfBoundsException(exp.getMessage()
-                    + SysConfig.HYPHEN + String.format(Messages.ERR_IN_COMMAND_INDEX_OUT_OF_BOUND, 20));
+    private void fetchAddAddr() {
+        int address = operand;
+        if (mode == SysConfig.USER_MODE && address > SysConfig.BOTTOM_USER) {
+            raise(Fault.INVALID_ACCESS, 32);
+        } else if (checkAddress(address, 32)) {
+            int value = memory.getAndAdd(address, acReg);
+            if (tracer != null) {
+                tracer.write(address, value + acReg);
+            }
+            acReg = value;
         }
     }
 
     /**
-     * Jump to the address only if the value in the AC is zero
+     * Store the AC into the address if the value there equals X, then load
+     * the old value into the AC, atomic when memory is shared by cores
      */
-    private void jumpIfEqualAddr() throws IndexOutOfBoundsException {
-        try {
-            int address = readFromMemoryByPCReg();
-            if (acReg == 0) {
-                pcReg = address;
+    private void compareExchangeAddr() {
+        int address = operand;
+        if (mode == SysConfig.USER_MODE && address > SysConfig.BOTTOM_USER) {
+            raise(Fault.INVALID_ACCESS, 33);
+        } else if (checkAddress(address, 33)) {
+            int value = memory.compareAndExchange(address, xReg, acReg);
+            if (tracer != null && value == xReg) {
+                tracer.write(address, acReg);
             }
-        } catch (IndexOutOfBoundsException exp) {
-            throw new IndexOutOfBoundsException(exp.getMessage()
-                    + SysConfig.HYPHEN + String.format(Messages.ERR_IN_COMMAND_INDEX_OUT_OF_BOUND, 21));
+            acReg = value;
+        }
+    }
+
+    /**
+     * Jump to the address
+     */
+    private void jumpAddr() {
+        pcReg = operand;
+    }
+
+    /**
+     * Jump to the address only if the value in the AC is zero
+     */
+    private void jumpIfEqualAddr() {
+        if (acReg == 0) {
+            pcReg = operand;
         }
     }
 
     /**
      * Jump to the address only if the value in the AC is not zero
      */
-    private void jumpIfNotEqualAddr() throws IndexOutOfBoundsException {
-        try {
-            int address = readFromMemoryByPCReg();
-            if (acReg != 0) {
-                pcReg = address;
-            }
-        } catch (IndexOutOfBoundsException exp) {
-            throw new IndexOutOfBoundsException(exp.getMessage()
-                    + SysConfig.HYPHEN + String.format(Messages.ERR_IN_COMMAND_INDEX_OUT_OF_BOUND, 22));
+    private void jumpIfNotEqualAddr() {
+        if (acReg != 0) {
+            pcReg = operand;
         }
     }
 
@@ -648,9 +1733,12 @@ public class CPU {
      * Push return address onto stack, jump to the address
      */
     private void callAddr() {
-        int address = readFromMemoryByPCReg();
-        pushValue(pcReg);
-        pcReg = address;
+        if (pushValue(pcReg)) {
+            pcReg = operand;
+            if (profiler != null) {
+                profiler.call(getAddressInMemoryViaPC());
+            }
+        }
     }
 
     /**
@@ -658,7 +1746,12 @@ public class CPU {
      */
     private void ret() {
         int address = popValueFromStack();
-        pcReg = address;
+        if (fault == null) {
+            pcReg = address;
+            if (profiler != null) {
+                profiler.ret();
+            }
+        }
     }
 
     /**
@@ -687,13 +1780,19 @@ public class CPU {
      * Pop from stack into AC
      */
     private void pop() {
-        acReg = popValueFromStack();
+        int value = popValueFromStack();
+        if (fault == null) {
+            acReg = value;
+        }
     }
 
     /**
      * Set system mode, switch stack, push SP and PC, set new SP and PC
      */
     private void Int() {
+        if (metrics != null) {
+            metrics.countSystemCall();
+        }
         //change to system mode
         mode = SysConfig.SYSTEM_MODE;
         //stored SP
@@ -708,6 +1807,9 @@ public class CPU {
         pushValue(acReg);
         pushValue(xReg);
         pushValue(yReg);
+        if (profiler != null) {
+            profiler.interrupt(getAddressInMemoryViaPC());
+        }
     }
 
     /**
@@ -728,16 +1830,12 @@ public class CPU {
             int temp = popValueFromStack();
             spReg = temp;
             mode = SysConfig.USER_MODE;
-        }
-    }
-
-    /**
-     * Interrupt function
-     */
-    private void interrupt() {
-        //check time is interupt time
-        if (mode == SysConfig.USER_MODE && this.isRunning) {
-            timerInterrupt();
+            if (metrics != null) {
+                metrics.countInterruptReturn();
+            }
+            if (profiler != null) {
+                profiler.interruptReturn();
+            }
         }
     }
 
@@ -0,0 +1,161 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+/**
+ * Define compiled basic block: <\br>
+ * 1. Straight-line run of decoded instructions starting at an entry address
+ * <\br>
+ * 2. Ends at the first jump, call, ret, int, iret or end instruction <\br>
+ * 3. Executed by CPU without looking up decoded slots one by one <\br>
+ * 4. Frequent sequences of instructions are fused into one superinstruction
+ * entry, which is dispatched once.
+ *
+ * @author duynq
+ */
+public class CompiledBlock {
+
+    /**
+     * Variable to store start address of block
+     */
+    private final int startAddress;
+    /**
+     * Variable to store opcodes of block
+     */
+    private final int[] opcodes;
+    /**
+     * Variable to store operands of block
+     */
+    private final int[] operands;
+    /**
+     * Variable to store size in words of each entry of block
+     */
+    private final int[] sizes;
+    /**
+     * Variable to store second operand of each superinstruction entry
+     */
+    private final int[] extraOperands;
+    /**
+     * Variable to store number of instructions of each entry
+     */
+    private final int[] instructionCounts;
+
+    /**
+     * Constructor with block content
+     *
+     * @param startAddress start address of block
+     * @param opcodes opcodes of block
+     * @param operands operands of block
+     * @param extraOperands second operands of superinstruction entries
+     * @param sizes sizes of entries of block
+     * @param instructionCounts number of instructions of each entry
+     */
+    public CompiledBlock(int startAddress, int[] opcodes, int[] operands,
+            int[] extraOperands, int[] sizes, int[] instructionCounts) {
+        this.startAddress = startAddress;
+        this.opcodes = opcodes;
+        this.operands = operands;
+        this.extraOperands = extraOperands;
+        this.sizes = sizes;
+        this.instructionCounts = instructionCounts;
+    }
+
+    /**
+     * get start address
+     *
+     * @return start address of block
+     */
+    public int getStartAddress() {
+        return startAddress;
+    }
+
+    /**
+     * get length
+     *
+     * @return number of entries of block, a superinstruction is one entry
+     */
+    public int getLength() {
+        return opcodes.length;
+    }
+
+    /**
+     * get opcode
+     *
+     * @param index of instruction in block
+     * @return opcode
+     */
+    public int getOpcode(int index) {
+        return opcodes[index];
+    }
+
+    /**
+     * get operand
+     *
+     * @param index of instruction in block
+     * @return operand
+     */
+    public int getOperand(int index) {
+        return operands[index];
+    }
+
+    /**
+     * get second operand
+     *
+     * @param index of entry in block
+     * @return second operand of superinstruction, 0 for other entries
+     */
+    public int getExtraOperand(int index) {
+        return extraOperands[index];
+    }
+
+    /**
+     * get size
+     *
+     * @param index of entry in block
+     * @return number of words of entry
+     */
+    public int getSize(int index) {
+        return sizes[index];
+    }
+
+    /**
+     * get number of instructions
+     *
+     * @param index of entry in block
+     * @return number of instructions of entry, more than 1 for a
+     * superinstruction
+     */
+    public int getInstructionCount(int index) {
+        return instructionCounts[index];
+    }
+
+    /**
+     * check instruction ends a basic block or not
+     *
+     * @param opcode of instruction
+     * @return true if instruction may change flow of control
+     */
+    public static boolean isTerminator(int opcode) {
+        switch (opcode) {
+            case 20:
+            case 21:
+            case 22:
+            case 23:
+            case 24:
+            case 29:
+            case 30:
+            case 50:
+                return true;
+            case SysConfig.LOAD_ADDR_UNCHECKED:
+            case SysConfig.STORE_ADDR_UNCHECKED:
+            case SysConfig.LOAD_VALUE_COPY_TO_X:
+            case SysConfig.LOAD_VALUE_PUT:
+            case SysConfig.LOAD_ADDR_PUT:
+                return false;
+            default:
+                return opcode < 1 || opcode > 30;
+        }
+    }
+}
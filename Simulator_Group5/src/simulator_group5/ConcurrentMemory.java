@@ -0,0 +1,162 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.nio.IntBuffer;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Define Memory shared by cores which run on many threads: <\br>
+ * 1. Each read and write of a word is volatile, so all cores see all
+ * accesses in one order <\br>
+ * 2. Add and compare-and-exchange of a word are atomic <\br>
+ * 3. Writes are not tracked, reset restores whole memory and must not run
+ * while cores run <\br>
+ * 4. No decoded instruction stream is kept, each core decodes every
+ * instruction it fetches. <\br>
+ * Loading a program is not thread safe, it is done before cores start.
+ *
+ * @author duynq
+ */
+public class ConcurrentMemory extends AbstractMemory {
+
+    /**
+     * entries
+     */
+    private final AtomicIntegerArray entries;
+
+    /**
+     * entries of loaded program, restored by reset
+     */
+    private int[] pristineEntries;
+
+    /**
+     * Constructor with size argument
+     *
+     * @param size number of entries
+     */
+    public ConcurrentMemory(int size) {
+        super(size);
+        this.entries = new AtomicIntegerArray(size);
+    }
+
+    /**
+     * Constructor of copy
+     *
+     * @param source memory is copied
+     */
+    private ConcurrentMemory(ConcurrentMemory source) {
+        super(source);
+        this.entries = new AtomicIntegerArray(source.size);
+        for (int address = 0; address < source.size; address++) {
+            this.entries.set(address, source.entries.get(address));
+        }
+        this.pristineEntries = source.pristineEntries;
+    }
+
+    @Override
+    public Memory copy() {
+        return new ConcurrentMemory(this);
+    }
+
+    @Override
+    public int read(int address) throws IndexOutOfBoundsException {
+        if (address < 0 || address >= this.size) {
+            throw new IndexOutOfBoundsException(Messages.ERR_MEMORY_INDEX_OUT_OF_BOUND);
+        }
+        return this.entries.get(address);
+    }
+
+    @Override
+    public void write(int address, int value) throws IndexOutOfBoundsException {
+        if (address < 0 || address >= this.size) {
+            throw new IndexOutOfBoundsException(Messages.ERR_MEMORY_INDEX_OUT_OF_BOUND);
+        }
+        this.entries.set(address, value);
+    }
+
+    @Override
+    public int getAndAdd(int address, int delta) throws IndexOutOfBoundsException {
+        if (address < 0 || address >= this.size) {
+            throw new IndexOutOfBoundsException(Messages.ERR_MEMORY_INDEX_OUT_OF_BOUND);
+        }
+        return this.entries.getAndAdd(address, delta);
+    }
+
+    @Override
+    public int compareAndExchange(int address, int expected, int value)
+            throws IndexOutOfBoundsException {
+        if (address < 0 || address >= this.size) {
+            throw new IndexOutOfBoundsException(Messages.ERR_MEMORY_INDEX_OUT_OF_BOUND);
+        }
+        while (true) {
+            int old = this.entries.get(address);
+            if (old != expected || this.entries.compareAndSet(address, expected, value)) {
+                return old;
+            }
+        }
+    }
+
+    /**
+     * reset memory to loaded program, whole memory is restored
+     */
+    @Override
+    public void reset() {
+        for (int address = 0; address < this.size; address++) {
+            this.entries.set(address, this.pristineEntries[address]);
+        }
+    }
+
+    /**
+     * decoded instruction stream is not kept, a core can not see writes of
+     * other cores in it
+     *
+     * @param decodedProgram decoded instruction stream, ignored
+     */
+    @Override
+    public void setDecodedProgram(DecodedProgram decodedProgram) {
+    }
+
+    @Override
+    protected int readEntry(int address) {
+        return this.entries.get(address);
+    }
+
+    @Override
+    protected void writeEntry(int address, int value) {
+        this.entries.set(address, value);
+    }
+
+    @Override
+    protected void writeEntries(int address, IntBuffer words, int count) {
+        for (int i = 0; i < count; i++) {
+            this.entries.set(address + i, words.get());
+        }
+    }
+
+    @Override
+    protected void clearEntries() {
+        for (int address = 0; address < this.size; address++) {
+            this.entries.set(address, 0);
+        }
+    }
+
+    @Override
+    protected void saveLoaded() {
+        this.pristineEntries = new int[this.size];
+        for (int address = 0; address < this.size; address++) {
+            this.pristineEntries[address] = this.entries.get(address);
+        }
+    }
+
+    @Override
+    protected void restorePage(int pageIndex) {
+        int start = pageIndex << SysConfig.PAGE_SHIFT;
+        int end = Math.min(start + SysConfig.PAGE_SIZE, this.size);
+        for (int address = start; address < end; address++) {
+            this.entries.set(address, this.pristineEntries[address]);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Define breakpoints and watchpoints of a machine: <\br>
+ * 1. Breakpoint stops run before instruction at its address is executed
+ * <\br>
+ * 2. Watchpoint stops run after an instruction reads or writes an address of
+ * its range <\br>
+ * Addresses are addresses of memory, code of timer and system regions is
+ * addressed from their top. CPU runs its plain loop while no point is set.
+ *
+ * @author duynq
+ */
+public class DebugPoints {
+
+    /**
+     * Define watched range of memory
+     */
+    private static final class Watchpoint {
+
+        /**
+         * Variable to store first watched address
+         */
+        private final int start;
+        /**
+         * Variable to store address after last watched address
+         */
+        private final int end;
+        /**
+         * Variable to store status of reads are watched or not
+         */
+        private final boolean isRead;
+        /**
+         * Variable to store status of writes are watched or not
+         */
+        private final boolean isWrite;
+
+        /**
+         * Constructor with range and access
+         */
+        private Watchpoint(int start, int end, boolean isRead, boolean isWrite) {
+            this.start = start;
+            this.end = end;
+            this.isRead = isRead;
+            this.isWrite = isWrite;
+        }
+    }
+
+    /**
+     * Variable to store addresses of breakpoints
+     */
+    private final BitSet breakpoints = new BitSet();
+    /**
+     * Variable to store watchpoints
+     */
+    private final List<Watchpoint> watchpoints = new ArrayList<>();
+
+    /**
+     * set breakpoint
+     *
+     * @param address of memory
+     */
+    public void addBreakpoint(int address) {
+        if (address < 0) {
+            throw new IllegalArgumentException(Messages.ERR_DEBUG_ADDRESS);
+        }
+        breakpoints.set(address);
+    }
+
+    /**
+     * remove breakpoint
+     *
+     * @param address of memory
+     */
+    public void removeBreakpoint(int address) {
+        if (address >= 0) {
+            breakpoints.clear(address);
+        }
+    }
+
+    /**
+     * set watchpoint on range of memory
+     *
+     * @param start first watched address
+     * @param end address after last watched address
+     * @param isRead true to stop on read
+     * @param isWrite true to stop on write
+     */
+    public void addWatchpoint(int start, int end, boolean isRead, boolean isWrite) {
+        if (start < 0 || end <= start || (!isRead && !isWrite)) {
+            throw new IllegalArgumentException(Messages.ERR_DEBUG_ADDRESS);
+        }
+        watchpoints.add(new Watchpoint(start, end, isRead, isWrite));
+    }
+
+    /**
+     * remove watchpoints which start and end at given addresses
+     *
+     * @param start first watched address
+     * @param end address after last watched address
+     */
+    public void removeWatchpoint(int start, int end) {
+        watchpoints.removeIf(watchpoint -> watchpoint.start == start && watchpoint.end == end);
+    }
+
+    /**
+     * remove all breakpoints and watchpoints
+     */
+    public void clear() {
+        breakpoints.clear();
+        watchpoints.clear();
+    }
+
+    /**
+     * check any breakpoint or watchpoint is set
+     *
+     * @return true if run must be watched
+     */
+    public boolean isArmed() {
+        return !breakpoints.isEmpty() || !watchpoints.isEmpty();
+    }
+
+    /**
+     * check any watchpoint is set
+     *
+     * @return true if memory accesses must be watched
+     */
+    public boolean hasWatchpoints() {
+        return !watchpoints.isEmpty();
+    }
+
+    /**
+     * check breakpoint is set at address
+     *
+     * @param address of memory
+     * @return true if breakpoint is set
+     */
+    public boolean isBreakpoint(int address) {
+        return address >= 0 && breakpoints.get(address);
+    }
+
+    /**
+     * check access of addresses is watched
+     *
+     * @param start first accessed address
+     * @param end address after last accessed address
+     * @param isWrite true for write, false for read
+     * @return first watched address of access, -1 when access is not watched
+     */
+    public int findWatched(int start, int end, boolean isWrite) {
+        int found = -1;
+        for (Watchpoint watchpoint : watchpoints) {
+            if ((isWrite ? watchpoint.isWrite : watchpoint.isRead)
+                    && start < watchpoint.end && watchpoint.start < end) {
+                int address = Math.max(start, watchpoint.start);
+                if (found < 0 || address < found) {
+                    found = address;
+                }
+            }
+        }
+        return found;
+    }
+}
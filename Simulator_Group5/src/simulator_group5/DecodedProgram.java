@@ -0,0 +1,302 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.util.Arrays;
+
+/**
+ * Define pre-decoded instruction stream of a Memory: <\br>
+ * 1. One slot per memory address: opcode, operand and next PC hint <\br>
+ * 2. Slots are decoded when the program is loaded and again lazily after
+ * they are invalidated by a write to memory <\br>
+ * 3. A slot whose operand falls outside memory is never decoded, the CPU
+ * records a fault when it reaches such a slot <\br>
+ * 4. Load and store of a verified address are decoded to internal opcodes
+ * which run without checks: an address of user memory is verified in any
+ * slot, an address of system memory only in a slot which the
+ * ProgramVerifier proved is never executed in user mode <\br>
+ * 5. Without cache every slot is decoded again each time it is executed, for
+ * memory which other cores write.
+ *
+ * @author duynq
+ */
+public class DecodedProgram {
+
+    /**
+     * Variable to store memory which is decoded
+     */
+    private final Memory memory;
+    /**
+     * Variable to store opcode of each slot
+     */
+    private final int[] opcodes;
+    /**
+     * Variable to store operand of each slot
+     */
+    private final int[] operands;
+    /**
+     * Variable to store size in words of each slot, added to PC to get the
+     * next PC when the instruction does not jump
+     */
+    private final byte[] sizes;
+    /**
+     * Variable to store status of each slot is decoded or not
+     */
+    private final boolean[] decoded;
+    /**
+     * Variable to store status of each slot is never executed in user mode,
+     * null when it is not proved
+     */
+    private boolean[] systemOnlySlots;
+    /**
+     * Variable to store compiled blocks which are built from this stream
+     */
+    private BlockCache blockCache;
+    /**
+     * Variable to store status of decoded slots are kept or not
+     */
+    private boolean isCached = true;
+
+    /**
+     * Constructor with memory argument, decode whole memory
+     *
+     * @param memory is decoded
+     */
+    public DecodedProgram(Memory memory) {
+        this(memory, true, null);
+    }
+
+    /**
+     * Constructor with memory argument
+     *
+     * @param memory is decoded
+     * @param isEager true to decode whole memory now, false to decode each
+     * slot when it is first executed
+     * @param systemOnlySlots status of each slot is never executed in user
+     * mode, from ProgramVerifier, null when it is not proved
+     */
+    public DecodedProgram(Memory memory, boolean isEager, boolean[] systemOnlySlots) {
+        this.memory = memory;
+        this.systemOnlySlots = systemOnlySlots;
+        int size = memory.size();
+        this.opcodes = new int[size];
+        this.operands = new int[size];
+        this.sizes = new byte[size];
+        this.decoded = new boolean[size];
+        if (isEager) {
+            for (int address = 0; address < size; address++) {
+                decode(address);
+            }
+        }
+    }
+
+    /**
+     * check slot is decoded or not, decode it again if it was invalidated
+     *
+     * @param address of memory
+     * @return true if slot can be executed from decoded stream
+     */
+    public boolean isDecoded(int address) {
+        if (address < 0 || address >= decoded.length) {
+            return false;
+        }
+        return (decoded[address] && isCached) || decode(address);
+    }
+
+    /**
+     * set decoded slots are kept or not, without cache no slot is verified
+     * and no block is compiled
+     *
+     * @param isCached false to decode each slot each time it is executed
+     */
+    public void setCached(boolean isCached) {
+        this.isCached = isCached;
+        if (!isCached) {
+            systemOnlySlots = null;
+            invalidateAll();
+        }
+    }
+
+    /**
+     * check decoded slots are kept or not
+     *
+     * @return true if decoded slots are kept
+     */
+    public boolean isCached() {
+        return isCached;
+    }
+
+    /**
+     * get opcode of slot
+     *
+     * @param address of memory
+     * @return opcode
+     */
+    public int getOpcode(int address) {
+        return opcodes[address];
+    }
+
+    /**
+     * get operand of slot
+     *
+     * @param address of memory
+     * @return operand, 0 if instruction has no operand
+     */
+    public int getOperand(int address) {
+        return operands[address];
+    }
+
+    /**
+     * get size of slot
+     *
+     * @param address of memory
+     * @return number of words of instruction
+     */
+    public int getSize(int address) {
+        return sizes[address];
+    }
+
+    /**
+     * invalidate slots which read the written address: the slot itself and
+     * the slot before it which may use the address as operand
+     *
+     * @param address of memory is written
+     */
+    public void invalidate(int address) {
+        if (address >= 0 && address < decoded.length) {
+            decoded[address] = false;
+        }
+        if (address > 0 && address <= decoded.length) {
+            decoded[address - 1] = false;
+        }
+        if (blockCache != null) {
+            blockCache.invalidate(address);
+        }
+    }
+
+    /**
+     * invalidate slots which read written addresses
+     *
+     * @param start first address is written
+     * @param end address after last address is written
+     */
+    public void invalidate(int start, int end) {
+        int from = Math.max(start - 1, 0);
+        int to = Math.min(end, decoded.length);
+        if (from < to) {
+            Arrays.fill(decoded, from, to, false);
+        }
+        if (blockCache != null) {
+            blockCache.invalidate(start, end);
+        }
+    }
+
+    /**
+     * invalidate all slots
+     */
+    public void invalidateAll() {
+        Arrays.fill(decoded, false);
+        if (blockCache != null) {
+            blockCache.invalidateAll();
+        }
+    }
+
+    /**
+     * set slots which are never executed in user mode, slots decoded before
+     * keep their opcodes until they are invalidated
+     *
+     * @param systemOnlySlots status of each slot is never executed in user
+     * mode, null when it is not proved
+     */
+    public void setSystemOnlySlots(boolean[] systemOnlySlots) {
+        this.systemOnlySlots = systemOnlySlots;
+    }
+
+    /**
+     * set compiled blocks which are dropped when slots are invalidated
+     *
+     * @param blockCache compiled blocks
+     */
+    public void setBlockCache(BlockCache blockCache) {
+        this.blockCache = blockCache;
+    }
+
+    /**
+     * get size of stream
+     *
+     * @return number of slots
+     */
+    public int length() {
+        return decoded.length;
+    }
+
+    /**
+     * decode a slot
+     *
+     * @param address of memory
+     * @return true if slot is decoded
+     */
+    private boolean decode(int address) {
+        int opcode = memory.read(address);
+        int size = hasOperand(opcode) ? 2 : 1;
+        if (address + size > decoded.length) {
+            return false;
+        }
+        int operand = size == 2 ? memory.read(address + 1) : 0;
+        if (opcode >= SysConfig.FIRST_INTERNAL_OPCODE) {
+            opcode = SysConfig.UNKNOWN_INSTRUCTION;
+        } else if ((opcode == 2 || opcode == 7) && isVerified(address, operand)) {
+            opcode += SysConfig.FIRST_INTERNAL_OPCODE;
+        }
+        opcodes[address] = opcode;
+        operands[address] = operand;
+        sizes[address] = (byte) size;
+        decoded[address] = true;
+        return true;
+    }
+
+    /**
+     * check load or store needs no check of its address
+     *
+     * @param address of slot
+     * @param operand address which is loaded or stored
+     * @return true if address is inside memory and is user memory or slot is
+     * never executed in user mode
+     */
+    private boolean isVerified(int address, int operand) {
+        if (operand < 0 || operand >= decoded.length) {
+            return false;
+        }
+        return operand <= SysConfig.BOTTOM_USER
+                || (systemOnlySlots != null && systemOnlySlots[address]);
+    }
+
+    /**
+     * check instruction has operand or not
+     *
+     * @param opcode of instruction
+     * @return true if instruction reads next word as operand
+     */
+    public static boolean hasOperand(int opcode) {
+        switch (opcode) {
+            case 1:
+            case 2:
+            case 3:
+            case 4:
+            case 5:
+            case 7:
+            case 9:
+            case 20:
+            case 21:
+            case 22:
+            case 23:
+            case 32:
+            case 33:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+/**
+ * Define fault which stops a run. CPU only records fault and command id,
+ * message is built when fault is reported.
+ *
+ * @author quyendm
+ */
+public enum Fault {
+
+    /**
+     * instruction or stack address is outside memory
+     */
+    MEMORY_OUT_OF_RANGE,
+    /**
+     * operand or address used by a command is outside memory
+     */
+    COMMAND_OUT_OF_RANGE,
+    /**
+     * user mode command accesses system memory
+     */
+    INVALID_ACCESS,
+    /**
+     * pop from empty stack
+     */
+    STACK_EMPTY,
+    /**
+     * push to full stack
+     */
+    STACK_FULL,
+    /**
+     * program can not be loaded
+     */
+    LOAD_ERROR,
+    /**
+     * input or output device fails
+     */
+    DEVICE_ERROR;
+
+    /**
+     * build message of fault
+     *
+     * @param command id of command which faulted
+     * @param detail message of load or device error
+     * @return message
+     */
+    public String format(int command, String detail) {
+        switch (this) {
+            case MEMORY_OUT_OF_RANGE:
+                return Messages.ERR_MEMORY_INDEX_OUT_OF_BOUND;
+            case COMMAND_OUT_OF_RANGE:
+                return Messages.ERR_MEMORY_INDEX_OUT_OF_BOUND + SysConfig.HYPHEN
+                        + String.format(Messages.ERR_IN_COMMAND_INDEX_OUT_OF_BOUND, command);
+            case INVALID_ACCESS:
+                return String.format(Messages.ERR_IN_COMMAND_INVALID_ACCESS, command);
+            case STACK_EMPTY:
+                return Messages.ERR_STACK_IS_EMPTY;
+            case STACK_FULL:
+                return Messages.ERR_STACK_IS_FULL;
+            default:
+                return detail;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+/**
+ * Define multilevel feedback policy: <\br>
+ * 1. New process starts at first level, first level is served first <\br>
+ * 2. Quantum doubles at each level, a process which uses its whole quantum
+ * moves down one level <\br>
+ * 3. After a fixed number of dispatches all processes move back to first
+ * level, so no process starves.
+ *
+ * @author duynq
+ */
+public class FeedbackPolicy implements SchedulingPolicy {
+
+    /**
+     * Variable to store ready processes, one level per feedback level
+     */
+    private final ReadyQueue queue = new ReadyQueue(SysConfig.FEEDBACK_LEVELS);
+    /**
+     * Variable to store number of dispatches until all processes move back
+     * to first level
+     */
+    private int dispatchesToBoost = SysConfig.FEEDBACK_BOOST_INTERVAL;
+
+    @Override
+    public void add(ProcessControlBlock process) {
+        queue.add(process, 0);
+    }
+
+    @Override
+    public ProcessControlBlock next() {
+        if (--dispatchesToBoost == 0) {
+            dispatchesToBoost = SysConfig.FEEDBACK_BOOST_INTERVAL;
+            queue.mergeIntoFirstLevel();
+        }
+        return queue.poll();
+    }
+
+    @Override
+    public int getQuantum(ProcessControlBlock process) {
+        return 1 << process.level;
+    }
+
+    @Override
+    public void expire(ProcessControlBlock process) {
+        queue.add(process, Math.min(process.level + 1, queue.getLevelCount() - 1));
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Define flat Memory: <\br>
+ * 1. Entries are kept in one array on heap <\br>
+ * 2. Reset copies written pages back from a copy of loaded program <\br>
+ * 3. Copy of memory copies whole array.
+ *
+ * @author duynq
+ */
+public class FlatMemory extends AbstractMemory {
+
+    /**
+     * entries
+     */
+    private final int[] entries;
+
+    /**
+     * entries of loaded program, restored by reset
+     */
+    private int[] pristineEntries;
+
+    /**
+     * Constructor with size argument
+     *
+     * @param size number of entries
+     */
+    public FlatMemory(int size) {
+        super(size);
+        this.entries = new int[size];
+    }
+
+    /**
+     * Constructor of copy
+     *
+     * @param source memory is copied
+     */
+    private FlatMemory(FlatMemory source) {
+        super(source);
+        this.entries = source.entries.clone();
+        this.pristineEntries = source.pristineEntries;
+    }
+
+    @Override
+    public Memory copy() {
+        return new FlatMemory(this);
+    }
+
+    @Override
+    protected int readEntry(int address) {
+        return this.entries[address];
+    }
+
+    @Override
+    protected void writeEntry(int address, int value) {
+        this.entries[address] = value;
+    }
+
+    @Override
+    protected void writeEntries(int address, IntBuffer words, int count) {
+        words.get(this.entries, address, count);
+    }
+
+    @Override
+    protected void clearEntries() {
+        Arrays.fill(this.entries, 0);
+    }
+
+    @Override
+    protected void saveLoaded() {
+        this.pristineEntries = this.entries.clone();
+    }
+
+    @Override
+    protected void restorePage(int pageIndex) {
+        int start = pageIndex << SysConfig.PAGE_SHIFT;
+        int length = Math.min(SysConfig.PAGE_SIZE, this.size - start);
+        System.arraycopy(this.pristineEntries, start, this.entries, start, length);
+    }
+}
@@ -0,0 +1,634 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Define coverage-guided fuzzer of a program: <\br>
+ * 1. A case is an input tape and a list of words patched into the program,
+ * target of fuzzer decides which of them is mutated <\br>
+ * 2. Program is parsed once, each worker keeps one machine which is reset in
+ * place before each execution and runs at most a fixed number of
+ * instructions <\br>
+ * 3. Coverage of an execution is the set of memory words read as opcode or
+ * operand, a case which covers a new word is kept in corpus <\br>
+ * 4. A case which faults is minimised and kept once per fault, command and
+ * message <\br>
+ * 5. Workers run on a work-stealing pool sized to the machine, each with
+ * its own random generator split from seed of fuzzer <\br>
+ * Input tape gives 0 after its last value, so a case never ends with error
+ * of input device and such error is always an error of the simulator.
+ *
+ * @author quyendm
+ */
+public class Fuzzer {
+
+    /**
+     * Define what fuzzer mutates
+     */
+    public enum Target {
+        /**
+         * values of input tape
+         */
+        TAPE,
+        /**
+         * words of program image
+         */
+        IMAGE
+    }
+
+    /**
+     * Variable to store program file
+     */
+    private final String filePath;
+    /**
+     * Variable to store time for interrupt
+     */
+    private final int interruptTime;
+    /**
+     * Variable to store what is mutated
+     */
+    private final Target target;
+    /**
+     * Variable to store profile of machines
+     */
+    private final MachineProfile profile;
+    /**
+     * Variable to store words of loaded program, source of image mutations
+     */
+    private final int[] program;
+    /**
+     * Variable to store coverage of all executions
+     */
+    private final byte[] coverage;
+    /**
+     * Variable to store number of covered words
+     */
+    private int coveredCount;
+    /**
+     * Variable to store cases which reached new coverage
+     */
+    private final List<Case> corpus = new CopyOnWriteArrayList<>();
+    /**
+     * Variable to store minimised case of each fault, in order of discovery
+     */
+    private final Map<String, Case> findings = new LinkedHashMap<>();
+    /**
+     * Variable to store number of executions
+     */
+    private final LongAdder executions = new LongAdder();
+    /**
+     * Variable to store random generator of fuzzer, split for each worker
+     */
+    private final RandomInputDevice random;
+    /**
+     * Variable to store time of last run in nanoseconds
+     */
+    private long elapsedTime;
+
+    /**
+     * Constructor with program, program is loaded once
+     *
+     * @param filePath program file
+     * @param interruptTime time for interrupt
+     * @param target what is mutated
+     * @param seed seed of random generator
+     * @throws IOException when read file
+     * @throws IndexOutOfBoundsException when memory is full
+     */
+    public Fuzzer(String filePath, int interruptTime, Target target, long seed)
+            throws IOException, IndexOutOfBoundsException {
+        this.filePath = filePath;
+        this.interruptTime = interruptTime;
+        this.target = target;
+        this.profile = MachineProfile.DEFAULT;
+        this.random = new RandomInputDevice(seed);
+        Memory memory = profile.createMemory();
+        memory.initialize(filePath);
+        this.program = new int[memory.size()];
+        for (int address = 0; address < program.length; address++) {
+            program[address] = memory.read(address);
+        }
+        this.coverage = new byte[program.length];
+        corpus.add(new Case(new int[0], new int[0]));
+    }
+
+    /**
+     * fuzz program for a time
+     *
+     * @param durationMillis time to fuzz in milliseconds
+     * @param parallelism number of workers
+     * @throws IOException when a worker fails
+     */
+    public void run(long durationMillis, int parallelism) throws IOException {
+        long start = System.nanoTime();
+        long deadline = start + durationMillis * 1000000L;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int i = 0; i < parallelism; i++) {
+            final RandomInputDevice workerRandom = random.split();
+            tasks.add(pool.submit(() -> new Worker(workerRandom).fuzz(deadline)));
+        }
+        try {
+            for (ForkJoinTask<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        } finally {
+            pool.shutdown();
+            elapsedTime += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * get number of executions
+     *
+     * @return number of executions
+     */
+    public long getExecutionCount() {
+        return executions.sum();
+    }
+
+    /**
+     * get number of covered words
+     *
+     * @return number of words covered by any execution
+     */
+    public synchronized int getCoveredCount() {
+        return coveredCount;
+    }
+
+    /**
+     * get number of cases which reached new coverage
+     *
+     * @return size of corpus
+     */
+    public int getCorpusSize() {
+        return corpus.size();
+    }
+
+    /**
+     * get faults which were found
+     *
+     * @return description of each fault, in order of discovery
+     */
+    public synchronized List<String> getFindings() {
+        return new ArrayList<>(findings.keySet());
+    }
+
+    /**
+     * write summary and one line per fault with its reproducer
+     *
+     * @param folder folder where reproducers are written
+     * @param out is written report
+     * @throws IOException when write reproducer
+     */
+    public synchronized void report(String folder, PrintStream out) throws IOException {
+        long executionCount = getExecutionCount();
+        long perSecond = elapsedTime == 0 ? 0 : executionCount * 1000000000L / elapsedTime;
+        out.println(String.format(Messages.FUZZ_SUMMARY, executionCount, perSecond,
+                coveredCount, corpus.size(), findings.size()));
+        File directory = new File(folder);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException(Messages.ERR_FILE_NOT_FOUND);
+        }
+        int index = 0;
+        for (Map.Entry<String, Case> finding : findings.entrySet()) {
+            String name = SysConfig.FUZZ_FINDING_PREFIX + (++index);
+            File tapeFile = new File(directory, name + SysConfig.FUZZ_TAPE_EXTENSION);
+            writeTape(finding.getValue().tape, tapeFile);
+            String programPath = filePath;
+            if (finding.getValue().patches.length > 0) {
+                File imageFile = new File(directory, name + SysConfig.FUZZ_IMAGE_EXTENSION);
+                writeImage(finding.getValue().patches, imageFile);
+                programPath = imageFile.getPath();
+            }
+            out.println(String.format(Messages.FUZZ_FINDING, finding.getKey(), programPath,
+                    interruptTime, SysConfig.FUZZ_MAX_INSTRUCTIONS, tapeFile.getPath()));
+        }
+    }
+
+    /**
+     * write values of tape, in format of tape file
+     *
+     * @param tape values
+     * @param file is written
+     * @throws IOException when write file
+     */
+    private static void writeTape(int[] tape, File file) throws IOException {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file),
+                StandardCharsets.UTF_8)) {
+            for (int value : tape) {
+                writer.write(Integer.toString(value));
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * write program with patches as image
+     *
+     * @param patches address and value of each patched word
+     * @param file is written
+     * @throws IOException when write file
+     */
+    private void writeImage(int[] patches, File file) throws IOException {
+        Memory memory = profile.createMemory();
+        for (int address = 0; address < program.length; address++) {
+            memory.write(address, program[address]);
+        }
+        for (int i = 0; i < patches.length; i += 2) {
+            memory.write(patches[i], patches[i + 1]);
+        }
+        ProgramImage.write(memory, file.getPath());
+    }
+
+    /**
+     * add coverage of an execution
+     *
+     * @param executionCoverage coverage of execution
+     * @return true if execution covered a new word
+     */
+    private synchronized boolean addCoverage(byte[] executionCoverage) {
+        boolean isNew = false;
+        for (int address = 0; address < coverage.length; address++) {
+            if (executionCoverage[address] != 0 && coverage[address] == 0) {
+                coverage[address] = 1;
+                coveredCount++;
+                isNew = true;
+            }
+        }
+        return isNew;
+    }
+
+    /**
+     * check execution covered a word which no execution covered before,
+     * without lock: words are only ever set so a stale read is confirmed by
+     * addCoverage
+     *
+     * @param executionCoverage coverage of execution
+     * @return true if execution may have covered a new word
+     */
+    private boolean hasNewCoverage(byte[] executionCoverage) {
+        for (int address = 0; address < coverage.length; address++) {
+            if (executionCoverage[address] != 0 && coverage[address] == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * check fault was found before
+     *
+     * @param key description of fault
+     * @return true if fault was found
+     */
+    private synchronized boolean isFound(String key) {
+        return findings.containsKey(key);
+    }
+
+    /**
+     * keep minimised case of fault, only first case of each fault is kept
+     *
+     * @param key description of fault
+     * @param minimised case of fault
+     */
+    private synchronized void addFinding(String key, Case minimised) {
+        findings.putIfAbsent(key, minimised);
+    }
+
+    /**
+     * Define case of fuzzer: input tape and patched words, never changed
+     * after it is built
+     */
+    private static final class Case {
+
+        /**
+         * Variable to store values of input tape
+         */
+        private final int[] tape;
+        /**
+         * Variable to store address and value of each patched word
+         */
+        private final int[] patches;
+
+        /**
+         * Constructor with tape and patches
+         *
+         * @param tape values of input tape
+         * @param patches address and value of each patched word
+         */
+        private Case(int[] tape, int[] patches) {
+            this.tape = tape;
+            this.patches = patches;
+        }
+    }
+
+    /**
+     * Define input device of a case, gives 0 after last value of tape
+     */
+    private static final class CaseInputDevice implements InputDevice {
+
+        /**
+         * Variable to store values of tape
+         */
+        private int[] tape;
+        /**
+         * Variable to store number of values which were read
+         */
+        private int position;
+
+        @Override
+        public int read() {
+            int value = position < tape.length ? tape[position] : 0;
+            position++;
+            return value;
+        }
+    }
+
+    /**
+     * Define worker of fuzzer, it owns one machine and is used by one thread
+     */
+    private final class Worker {
+
+        /**
+         * Variable to store random generator of worker
+         */
+        private final RandomInputDevice random;
+        /**
+         * Variable to store input device of machine
+         */
+        private final CaseInputDevice input = new CaseInputDevice();
+        /**
+         * Variable to store output device of machine, output is dropped
+         * before each execution
+         */
+        private final BufferOutputDevice output = new BufferOutputDevice();
+        /**
+         * Variable to store coverage of last execution
+         */
+        private final byte[] executionCoverage = new byte[program.length];
+        /**
+         * Variable to store machine, loaded once
+         */
+        private final CPU cpu;
+
+        /**
+         * Constructor with random generator
+         *
+         * @param random random generator of worker
+         */
+        private Worker(RandomInputDevice random) {
+            this.random = random;
+            cpu = new CPU(interruptTime, output, input, profile);
+            cpu.load(filePath);
+            cpu.setMaxInstructions(SysConfig.FUZZ_MAX_INSTRUCTIONS);
+            cpu.setCoverage(executionCoverage);
+        }
+
+        /**
+         * run mutated cases until deadline
+         *
+         * @param deadline value of System.nanoTime when fuzzing stops
+         */
+        private void fuzz(long deadline) {
+            if (!cpu.canReset()) {
+                return;
+            }
+            while (System.nanoTime() < deadline) {
+                for (int i = 0; i < SysConfig.FUZZ_EXECUTIONS_PER_CHECK; i++) {
+                    Case parent = corpus.get(random.nextInt(corpus.size()));
+                    Case child = target == Target.TAPE
+                            ? new Case(mutateTape(parent.tape), parent.patches)
+                            : new Case(parent.tape, mutatePatches(parent.patches));
+                    String key = execute(child);
+                    if (hasNewCoverage(executionCoverage) && addCoverage(executionCoverage)) {
+                        corpus.add(child);
+                    }
+                    if (key != null && !isFound(key)) {
+                        addFinding(key, minimise(child, key));
+                    }
+                }
+                executions.add(SysConfig.FUZZ_EXECUTIONS_PER_CHECK);
+            }
+        }
+
+        /**
+         * run case on machine reset to loaded program
+         *
+         * @param fuzzCase is run
+         * @return description of fault, null when case did not fault
+         */
+        private String execute(Case fuzzCase) {
+            Arrays.fill(executionCoverage, (byte) 0);
+            input.tape = fuzzCase.tape;
+            input.position = 0;
+            output.reset();
+            cpu.reset(output, input);
+            for (int i = 0; i < fuzzCase.patches.length; i += 2) {
+                cpu.patch(fuzzCase.patches[i], fuzzCase.patches[i + 1]);
+            }
+            RunResult result = cpu.run();
+            if (result.getExitReason() != RunResult.ExitReason.FAULT) {
+                return null;
+            }
+            return result.getMessage();
+        }
+
+        /**
+         * remove values of tape and patches while case gives same fault,
+         * then add the zeros which the case read after end of its tape
+         *
+         * @param fuzzCase faulted
+         * @param key description of fault
+         * @return smaller case with same fault
+         */
+        private Case minimise(Case fuzzCase, String key) {
+            int[] tape = fuzzCase.tape;
+            int[] patches = fuzzCase.patches;
+            for (int chunk = Math.max(tape.length / 2, 1); chunk >= 1 && tape.length > 0; chunk /= 2) {
+                for (int start = 0; start < tape.length;) {
+                    int[] smaller = remove(tape, start, Math.min(chunk, tape.length - start));
+                    if (key.equals(execute(new Case(smaller, patches)))) {
+                        tape = smaller;
+                    } else {
+                        start += chunk;
+                    }
+                }
+            }
+            for (int i = 0; i < patches.length;) {
+                int[] smaller = remove(patches, i, 2);
+                if (key.equals(execute(new Case(tape, smaller)))) {
+                    patches = smaller;
+                } else {
+                    i += 2;
+                }
+            }
+            execute(new Case(tape, patches));
+            return new Case(Arrays.copyOf(tape, Math.max(tape.length, input.position)), patches);
+        }
+
+        /**
+         * mutate input tape: change, insert, delete or repeat values
+         *
+         * @param tape values of parent
+         * @return new values
+         */
+        private int[] mutateTape(int[] tape) {
+            int position = random.nextInt(tape.length + 1);
+            switch (random.nextInt(4)) {
+                case 0:
+                    if (position < tape.length) {
+                        int[] changed = tape.clone();
+                        changed[position] = nextValue(changed[position]);
+                        return changed;
+                    }
+                    //nothing to change at end of tape
+                    return insert(tape, position);
+                case 1:
+                    return insert(tape, position);
+                case 2:
+                    return position < tape.length ? remove(tape, position, 1) : tape;
+                default:
+                    int length = Math.min(random.nextInt(tape.length - position + 1),
+                            SysConfig.FUZZ_MAX_TAPE_LENGTH - tape.length);
+                    int[] repeated = Arrays.copyOf(tape, tape.length + length);
+                    System.arraycopy(tape, position, repeated, tape.length, length);
+                    return repeated;
+            }
+        }
+
+        /**
+         * insert new value into input tape, tape is kept when it is full
+         *
+         * @param tape values of parent
+         * @param position index of new value
+         * @return new values
+         */
+        private int[] insert(int[] tape, int position) {
+            if (tape.length >= SysConfig.FUZZ_MAX_TAPE_LENGTH) {
+                return tape;
+            }
+            int[] inserted = new int[tape.length + 1];
+            System.arraycopy(tape, 0, inserted, 0, position);
+            inserted[position] = nextValue(0);
+            System.arraycopy(tape, position, inserted, position + 1, tape.length - position);
+            return inserted;
+        }
+
+        /**
+         * mutate patches of program: patch a word or drop a patch
+         *
+         * @param patches address and value of each patched word of parent
+         * @return new patches
+         */
+        private int[] mutatePatches(int[] patches) {
+            if (patches.length > 0 && (random.nextInt(SysConfig.FUZZ_DROP_PATCH_BOUND) == 0
+                    || patches.length == 2 * SysConfig.FUZZ_MAX_PATCHES)) {
+                return remove(patches, 2 * random.nextInt(patches.length / 2), 2);
+            }
+            int address = random.nextInt(program.length);
+            int value;
+            switch (random.nextInt(3)) {
+                case 0:
+                    //an opcode, or a small operand
+                    value = random.nextInt(SysConfig.FUZZ_OPCODE_BOUND);
+                    break;
+                case 1:
+                    value = program[random.nextInt(program.length)];
+                    break;
+                default:
+                    value = nextValue(program[address]);
+                    break;
+            }
+            int[] patched = Arrays.copyOf(patches, patches.length + 2);
+            patched[patches.length] = address;
+            patched[patches.length + 1] = value;
+            return patched;
+        }
+
+        /**
+         * get value near old value, a random input or a boundary value
+         *
+         * @param value old value
+         * @return new value
+         */
+        private int nextValue(int value) {
+            switch (random.nextInt(4)) {
+                case 0:
+                    return value + 1;
+                case 1:
+                    return value - 1;
+                case 2:
+                    return random.nextInt(SysConfig.RANDOM_INPUT_BOUND);
+                default:
+                    return SysConfig.FUZZ_BOUNDARY_VALUES[random.nextInt(
+                            SysConfig.FUZZ_BOUNDARY_VALUES.length)];
+            }
+        }
+    }
+
+    /**
+     * remove values of array
+     *
+     * @param values array
+     * @param start first value is removed
+     * @param count number of values are removed
+     * @return new array without values
+     */
+    private static int[] remove(int[] values, int start, int count) {
+        int[] removed = new int[values.length - count];
+        System.arraycopy(values, 0, removed, 0, start);
+        System.arraycopy(values, start + count, removed, start, values.length - start - count);
+        return removed;
+    }
+
+    /**
+     * fuzz program from command line
+     *
+     * @param filePath program file
+     * @param interruptTime time for interrupt
+     * @param targetName tape or image
+     * @param seconds time to fuzz
+     * @param folder folder where reproducers are written
+     * @throws IOException when read program or write reproducer
+     */
+    public static void runFuzzer(String filePath, int interruptTime, String targetName,
+            long seconds, String folder) throws IOException {
+        Target target;
+        if (SysConfig.FUZZ_TARGET_TAPE.equals(targetName)) {
+            target = Target.TAPE;
+        } else if (SysConfig.FUZZ_TARGET_IMAGE.equals(targetName)) {
+            target = Target.IMAGE;
+        } else {
+            throw new IllegalArgumentException(Messages.ERR_FUZZ_FORMAT);
+        }
+        Fuzzer fuzzer = new Fuzzer(filePath, interruptTime, target, SysConfig.DEFAULT_FUZZ_SEED);
+        fuzzer.run(seconds * 1000L, Runtime.getRuntime().availableProcessors());
+        fuzzer.report(folder, System.out);
+    }
+}
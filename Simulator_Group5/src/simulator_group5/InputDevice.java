@@ -0,0 +1,20 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+/**
+ * Define input device where get instruction of CPU reads
+ *
+ * @author duynq
+ */
+public interface InputDevice {
+
+    /**
+     * read next value
+     *
+     * @return value is loaded into AC
+     */
+    int read();
+}
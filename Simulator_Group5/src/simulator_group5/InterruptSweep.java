@@ -0,0 +1,406 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Define sweep of one program over many interrupt times: <\br>
+ * 1. Program is loaded and verified once, each run is forked from snapshot
+ * of loaded machine, with paged memory it shares memory pages until it
+ * writes them, other backends copy whole memory for each fork <\br>
+ * 2. Runs are done in parallel on a work-stealing pool, every run reads same
+ * random input <\br>
+ * 3. With checkpoints, one machine whose timer never fires runs ahead: run
+ * of interrupt time T is same as it until timer counter reaches T, so each
+ * run is forked from that point instead of from start <\br>
+ * 4. When machine which runs ahead ends before timer counter reaches T, no
+ * run of interrupt time T or more is ever interrupted and all of them share
+ * its result <\br>
+ * Result of each interrupt time has exit reason, number of instructions,
+ * length of output and digest of output.
+ *
+ * @author quyendm
+ */
+public class InterruptSweep {
+
+    /**
+     * Variable to store snapshot of loaded program, it is never run
+     */
+    private final MachineSnapshot loaded;
+    /**
+     * Variable to store maximum number of instructions of each run
+     */
+    private final long maxInstructions;
+    /**
+     * Variable to store seed of random input of every run
+     */
+    private final long seed;
+    /**
+     * Variable to store pool which runs forked machines
+     */
+    private final ForkJoinPool pool;
+    /**
+     * Variable to store number of machines run by last sweep
+     */
+    private int runCount;
+    /**
+     * Variable to store number of interrupt times of last sweep whose result
+     * is shared with machine which runs ahead
+     */
+    private int sharedCount;
+    /**
+     * Variable to store time of last sweep in nanoseconds
+     */
+    private long elapsedTime;
+
+    /**
+     * Constructor with program, limit, seed and number of threads
+     *
+     * @param fileName program file, it is loaded once for all runs
+     * @param maxInstructions maximum number of instructions of each run
+     * @param seed seed of random input of every run
+     * @param parallelism number of threads of pool
+     * @throws IOException when program can not be loaded
+     */
+    public InterruptSweep(String fileName, long maxInstructions, long seed, int parallelism)
+            throws IOException {
+        CPU cpu = new CPU(0, null, null, MachineProfile.DEFAULT);
+        if (!cpu.load(fileName)) {
+            throw new IOException(cpu.getResult().getMessage());
+        }
+        this.loaded = cpu.snapshot();
+        this.maxInstructions = maxInstructions;
+        this.seed = seed;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * run program once for each interrupt time
+     *
+     * @param interruptTimes interrupt times in increasing order
+     * @param isCheckpointed true to fork runs from machine which runs ahead,
+     * false to run each of them from start
+     * @return result of each interrupt time, in same order
+     * @throws IOException when a run fails
+     */
+    public Result[] run(int[] interruptTimes, boolean isCheckpointed) throws IOException {
+        long start = System.nanoTime();
+        runCount = 0;
+        sharedCount = 0;
+        Result[] results = new Result[interruptTimes.length];
+        List<ForkJoinTask<Result>> tasks = new ArrayList<>();
+        try {
+            if (isCheckpointed) {
+                runFromCheckpoints(interruptTimes, results, tasks);
+            } else {
+                for (int interruptTime : interruptTimes) {
+                    tasks.add(pool.submit(() -> finish(loaded, interruptTime,
+                            new RandomInputDevice(seed), newDigest(), 0)));
+                    runCount++;
+                }
+            }
+            int next = 0;
+            for (ForkJoinTask<Result> task : tasks) {
+                while (results[next] != null) {
+                    next++;
+                }
+                results[next] = task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        } finally {
+            elapsedTime = System.nanoTime() - start;
+        }
+        return results;
+    }
+
+    /**
+     * run machine whose timer never fires up to timer counter of each
+     * interrupt time and fork run of that interrupt time from there
+     *
+     * @param interruptTimes interrupt times in increasing order
+     * @param results is set result of interrupt times which share result of
+     * machine which runs ahead
+     * @param tasks is added forked run of each other interrupt time
+     */
+    private void runFromCheckpoints(int[] interruptTimes, Result[] results,
+            List<ForkJoinTask<Result>> tasks) {
+        RandomInputDevice input = new RandomInputDevice(seed);
+        BufferOutputDevice output = new BufferOutputDevice();
+        MessageDigest digest = newDigest();
+        long outputLength = 0;
+        CPU ahead = loaded.fork(SysConfig.SWEEP_AHEAD_INTERRUPT_TIME, output, input);
+        RunResult ended = null;
+        String endedDigest = null;
+        for (int i = 0; i < interruptTimes.length; i++) {
+            int interruptTime = interruptTimes[i];
+            //each instruction ticks at most once, so a run of the ticks
+            //which are left never passes the interrupt time
+            while (ended == null && ahead.getCounter() < interruptTime) {
+                long remaining = maxInstructions - ahead.getInstructionCount();
+                ahead.setMaxInstructions(Math.max(0,
+                        Math.min(interruptTime - ahead.getCounter(), remaining)));
+                RunResult result = ahead.run();
+                digest.update(output.toByteArray());
+                outputLength += output.size();
+                output.reset();
+                if (result.getExitReason() != RunResult.ExitReason.LIMIT
+                        || ahead.getInstructionCount() >= maxInstructions) {
+                    ended = result;
+                    endedDigest = toHex(digest.digest());
+                }
+            }
+            if (ended != null) {
+                results[i] = new Result(interruptTime, ended, outputLength, endedDigest);
+                sharedCount++;
+                continue;
+            }
+            MachineSnapshot checkpoint = ahead.snapshot();
+            RandomInputDevice forkInput = input.copy();
+            MessageDigest forkDigest = cloneDigest(digest);
+            long forkOutputLength = outputLength;
+            tasks.add(pool.submit(() -> finish(checkpoint, interruptTime, forkInput,
+                    forkDigest, forkOutputLength)));
+            runCount++;
+        }
+    }
+
+    /**
+     * fork machine from snapshot and run it until it ends, faults or reaches
+     * maximum number of instructions
+     *
+     * @param snapshot loaded program or checkpoint
+     * @param interruptTime time for interrupt of machine
+     * @param input device where get instructions read
+     * @param digest digest of output written before fork
+     * @param outputLength length of output written before fork
+     * @return result of interrupt time
+     */
+    private Result finish(MachineSnapshot snapshot, int interruptTime, InputDevice input,
+            MessageDigest digest, long outputLength) {
+        BufferOutputDevice output = new BufferOutputDevice();
+        CPU cpu = snapshot.fork(interruptTime, output, input);
+        cpu.setMaxInstructions(Math.max(0, maxInstructions - cpu.getInstructionCount()));
+        RunResult result = cpu.run();
+        digest.update(output.toByteArray());
+        return new Result(interruptTime, result, outputLength + output.size(),
+                toHex(digest.digest()));
+    }
+
+    /**
+     * get number of machines run by last sweep
+     *
+     * @return number of runs
+     */
+    public int getRunCount() {
+        return runCount;
+    }
+
+    /**
+     * get number of interrupt times of last sweep which share result of
+     * machine which runs ahead
+     *
+     * @return number of shared results
+     */
+    public int getSharedCount() {
+        return sharedCount;
+    }
+
+    /**
+     * get time of last sweep
+     *
+     * @return time in nanoseconds
+     */
+    public long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    /**
+     * stop threads of pool, sweep can not run again
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * create digest of output
+     *
+     * @return new digest
+     */
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(SysConfig.OUTPUT_DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            //every Java platform has SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * copy digest with bytes it was given
+     *
+     * @param digest is copied
+     * @return copy
+     */
+    private static MessageDigest cloneDigest(MessageDigest digest) {
+        try {
+            return (MessageDigest) digest.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * write bytes as hexadecimal text
+     *
+     * @param bytes is written
+     * @return two lowercase digits per byte
+     */
+    private static String toHex(byte[] bytes) {
+        StringBuilder text = new StringBuilder(bytes.length * 2);
+        for (byte value : bytes) {
+            text.append(Character.forDigit((value >> 4) & 0xF, 16));
+            text.append(Character.forDigit(value & 0xF, 16));
+        }
+        return text.toString();
+    }
+
+    /**
+     * sweep program from command line, write result of each interrupt time
+     * and summary
+     *
+     * @param fileName program file
+     * @param firstInterruptTime first interrupt time
+     * @param lastInterruptTime last interrupt time
+     * @param maxInstructions maximum number of instructions of each run
+     * @param modeName checkpoint or full
+     * @param out is written report
+     * @throws IOException when program can not be loaded or a run fails
+     */
+    public static void runSweep(String fileName, int firstInterruptTime, int lastInterruptTime,
+            long maxInstructions, String modeName, PrintStream out) throws IOException {
+        boolean isCheckpointed;
+        if (SysConfig.SWEEP_CHECKPOINT.equals(modeName)) {
+            isCheckpointed = true;
+        } else if (SysConfig.SWEEP_FULL.equals(modeName)) {
+            isCheckpointed = false;
+        } else {
+            throw new IllegalArgumentException(Messages.ERR_SWEEP_FORMAT);
+        }
+        if (firstInterruptTime < 0 || lastInterruptTime < firstInterruptTime) {
+            throw new IllegalArgumentException(Messages.ERR_SWEEP_FORMAT);
+        }
+        int[] interruptTimes = new int[lastInterruptTime - firstInterruptTime + 1];
+        for (int i = 0; i < interruptTimes.length; i++) {
+            interruptTimes[i] = firstInterruptTime + i;
+        }
+        InterruptSweep sweep = new InterruptSweep(fileName, maxInstructions,
+                SysConfig.DEFAULT_SWEEP_SEED, Runtime.getRuntime().availableProcessors());
+        Result[] results;
+        try {
+            results = sweep.run(interruptTimes, isCheckpointed);
+        } finally {
+            sweep.shutdown();
+        }
+        long instructionCount = 0;
+        for (Result result : results) {
+            RunResult runResult = result.getRunResult();
+            instructionCount += runResult.getInstructionCount();
+            out.println(String.format(Messages.SWEEP_RESULT, result.getInterruptTime(),
+                    runResult.getExitReason(), runResult.getInstructionCount(),
+                    result.getOutputLength(), result.getDigest(),
+                    runResult.getMessage() == null ? "" : runResult.getMessage()));
+        }
+        out.println(String.format(Messages.SWEEP_SUMMARY, results.length, sweep.getRunCount(),
+                sweep.getSharedCount(), instructionCount, sweep.getElapsedTime() / 1000000));
+    }
+
+    /**
+     * Define result of one interrupt time
+     */
+    public static final class Result {
+
+        /**
+         * Variable to store interrupt time
+         */
+        private final int interruptTime;
+        /**
+         * Variable to store result of run
+         */
+        private final RunResult runResult;
+        /**
+         * Variable to store number of bytes of output
+         */
+        private final long outputLength;
+        /**
+         * Variable to store digest of output
+         */
+        private final String digest;
+
+        /**
+         * Constructor with all values
+         *
+         * @param interruptTime interrupt time
+         * @param runResult result of run
+         * @param outputLength number of bytes of output
+         * @param digest digest of output in hexadecimal
+         */
+        private Result(int interruptTime, RunResult runResult, long outputLength,
+                String digest) {
+            this.interruptTime = interruptTime;
+            this.runResult = runResult;
+            this.outputLength = outputLength;
+            this.digest = digest;
+        }
+
+        /**
+         * get interrupt time
+         *
+         * @return interrupt time
+         */
+        public int getInterruptTime() {
+            return interruptTime;
+        }
+
+        /**
+         * get result of run
+         *
+         * @return result of run
+         */
+        public RunResult getRunResult() {
+            return runResult;
+        }
+
+        /**
+         * get number of bytes of output
+         *
+         * @return length of output
+         */
+        public long getOutputLength() {
+            return outputLength;
+        }
+
+        /**
+         * get digest of output
+         *
+         * @return digest in hexadecimal
+         */
+        public String getDigest() {
+            return digest;
+        }
+    }
+}
@@ -0,0 +1,1165 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.TreeMap;
+
+/**
+ * Define engine which runs many machines on same program in lanes: <\br>
+ * 1. Registers of all lanes are kept in one array per register and memory
+ * in one array where each word of all lanes is contiguous, so an
+ * instruction runs over all its lanes in one loop <\br>
+ * 2. Lanes with same mode and PC form a group, each instruction is fetched
+ * and dispatched once per group, not once per lane <\br>
+ * 3. Group with lowest mode and PC runs next, so lanes which branched away
+ * wait at higher PC until others reach them and groups merge again <\br>
+ * 4. Each lane has its own input and output devices, timer counter and
+ * number of instructions, a lane runs exactly as it would run alone on a
+ * CPU <\br>
+ * 5. A lane which would replace its memory by an error program is moved to
+ * a CPU and runs there until it ends <\br>
+ * Instruction words which no lane wrote are fetched from loaded program,
+ * others are fetched for each lane.
+ *
+ * @author duynq
+ */
+public class LaneEngine {
+
+    /**
+     * Variable to store program file
+     */
+    private final String fileName;
+    /**
+     * Variable to store time for interrupt of every lane
+     */
+    private final int interruptTime;
+    /**
+     * Variable to store number of lanes
+     */
+    private final int laneCount;
+    /**
+     * Variable to store number of words of memory of each lane
+     */
+    private final int memorySize;
+    /**
+     * Variable to store loaded program
+     */
+    private final int[] image;
+    /**
+     * Variable to store memory of all lanes, word of lane is at index
+     * address * laneCount + lane
+     */
+    private final int[] words;
+    /**
+     * Variable to store addresses which some lane wrote
+     */
+    private final boolean[] isWritten;
+    /**
+     * Variable to store PC register of each lane
+     */
+    private final int[] pcRegs;
+    /**
+     * Variable to store AC register of each lane
+     */
+    private final int[] acRegs;
+    /**
+     * Variable to store SP register of each lane
+     */
+    private final int[] spRegs;
+    /**
+     * Variable to store X register of each lane
+     */
+    private final int[] xRegs;
+    /**
+     * Variable to store Y register of each lane
+     */
+    private final int[] yRegs;
+    /**
+     * Variable to store mode of each lane
+     */
+    private final int[] modes;
+    /**
+     * Variable to store timer counter of each lane
+     */
+    private final int[] counters;
+    /**
+     * Variable to store status of each lane is running or not
+     */
+    private final boolean[] isRunning;
+    /**
+     * Variable to store status of each lane has its result or not
+     */
+    private final boolean[] isFinished;
+    /**
+     * Variable to store number of executed instructions of each lane
+     */
+    private final long[] instructionCounts;
+    /**
+     * Variable to store fault of each lane, null when it did not fault
+     */
+    private final Fault[] faults;
+    /**
+     * Variable to store id of command which faulted of each lane
+     */
+    private final int[] faultCommands;
+    /**
+     * Variable to store detail of fault of each lane
+     */
+    private final String[] faultDetails;
+    /**
+     * Variable to store output device of each lane
+     */
+    private final OutputDevice[] outputs;
+    /**
+     * Variable to store input device of each lane
+     */
+    private final InputDevice[] inputs;
+    /**
+     * Variable to store result of each lane
+     */
+    private final RunResult[] results;
+    /**
+     * Variable to store groups which wait to run, by key of mode and PC
+     */
+    private final TreeMap<Long, Group> groups = new TreeMap<>();
+    /**
+     * Variable to store groups which are not used, they are used again
+     */
+    private final ArrayDeque<Group> freeGroups = new ArrayDeque<>();
+    /**
+     * Variable to store lanes which leave running group
+     */
+    private final int[] leavingLanes;
+    /**
+     * Variable to store status of a fault was raised by last instruction
+     */
+    private boolean isFaultRaised;
+    /**
+     * Variable to store number of instructions where each lane is stopped
+     */
+    private long instructionLimit;
+    /**
+     * Variable to store number of instructions dispatched for groups
+     */
+    private long dispatchCount;
+    /**
+     * Variable to store number of lanes which were moved to a CPU
+     */
+    private int evictedCount;
+    /**
+     * Variable to store time of run in nanoseconds
+     */
+    private long elapsedTime;
+    /**
+     * Variable to store CPU which runs moved lanes, null until a lane is
+     * moved
+     */
+    private CPU cpu;
+
+    /**
+     * Constructor with program, interrupt time and devices of lanes
+     *
+     * @param fileName program file, it is loaded once for all lanes
+     * @param interruptTime time for interrupt of every lane
+     * @param outputs device where port instructions of each lane write
+     * @param inputs device where get instructions of each lane read
+     * @throws IOException when read file
+     * @throws IndexOutOfBoundsException when memory is full
+     * @throws IllegalArgumentException when number of lanes is not from 1 to
+     * SysConfig.MAX_LANES or devices are not given for each lane
+     */
+    public LaneEngine(String fileName, int interruptTime, OutputDevice[] outputs,
+            InputDevice[] inputs)
+            throws IOException, IndexOutOfBoundsException, IllegalArgumentException {
+        if (inputs.length < 1 || inputs.length > SysConfig.MAX_LANES
+                || outputs.length != inputs.length) {
+            throw new IllegalArgumentException(Messages.ERR_LANE_COUNT);
+        }
+        Memory memory = MachineProfile.DEFAULT.createMemory();
+        memory.initialize(fileName);
+        this.fileName = fileName;
+        this.interruptTime = interruptTime;
+        this.laneCount = inputs.length;
+        this.memorySize = memory.size();
+        this.image = new int[memorySize];
+        this.words = new int[memorySize * laneCount];
+        for (int address = 0; address < memorySize; address++) {
+            image[address] = memory.read(address);
+            Arrays.fill(words, address * laneCount, (address + 1) * laneCount, image[address]);
+        }
+        this.isWritten = new boolean[memorySize];
+        this.pcRegs = new int[laneCount];
+        this.acRegs = new int[laneCount];
+        this.spRegs = new int[laneCount];
+        this.xRegs = new int[laneCount];
+        this.yRegs = new int[laneCount];
+        this.modes = new int[laneCount];
+        this.counters = new int[laneCount];
+        this.isRunning = new boolean[laneCount];
+        this.isFinished = new boolean[laneCount];
+        this.instructionCounts = new long[laneCount];
+        this.faults = new Fault[laneCount];
+        this.faultCommands = new int[laneCount];
+        this.faultDetails = new String[laneCount];
+        this.outputs = outputs;
+        this.inputs = inputs;
+        this.results = new RunResult[laneCount];
+        this.leavingLanes = new int[laneCount];
+        Arrays.fill(modes, SysConfig.USER_MODE);
+        Arrays.fill(isRunning, true);
+    }
+
+    /**
+     * write initial word of memory of one lane, must be done before run
+     *
+     * @param lane index of lane
+     * @param address of memory
+     * @param value is written
+     * @throws IndexOutOfBoundsException when lane or address does not exist
+     */
+    public void setMemory(int lane, int address, int value) throws IndexOutOfBoundsException {
+        if (lane < 0 || lane >= laneCount || address < 0 || address >= memorySize) {
+            throw new IndexOutOfBoundsException(Messages.ERR_MEMORY_INDEX_OUT_OF_BOUND);
+        }
+        words[address * laneCount + lane] = value;
+        isWritten[address] = true;
+    }
+
+    /**
+     * run all lanes until each of them ends, faults or reaches its maximum
+     * number of instructions. Engine runs once.
+     *
+     * @param maxInstructions maximum number of instructions of each lane
+     * @return result of each lane, index is index of lane
+     */
+    public RunResult[] run(long maxInstructions) {
+        long start = System.nanoTime();
+        instructionLimit = maxInstructions;
+        if (maxInstructions <= 0) {
+            for (int lane = 0; lane < laneCount; lane++) {
+                finish(lane);
+            }
+        } else {
+            Group first = obtainGroup(key(SysConfig.USER_MODE, 0));
+            for (int lane = 0; lane < laneCount; lane++) {
+                first.add(lane);
+                first.slack = Math.min(first.slack, getSlack(lane));
+            }
+            groups.put(first.key, first);
+        }
+        while (!groups.isEmpty()) {
+            Group group = groups.pollFirstEntry().getValue();
+            //run group while no other group has lower key
+            do {
+                step(group);
+            } while (group.count > 0 && (groups.isEmpty() || group.key < groups.firstKey()));
+            if (group.count > 0) {
+                insertGroup(group);
+            } else {
+                freeGroups.push(group);
+            }
+        }
+        elapsedTime = System.nanoTime() - start;
+        return results;
+    }
+
+    /**
+     * get number of instructions dispatched for groups, each of them ran for
+     * all lanes of its group
+     *
+     * @return number of dispatches
+     */
+    public long getDispatchCount() {
+        return dispatchCount;
+    }
+
+    /**
+     * get number of lanes which were moved to a CPU
+     *
+     * @return number of moved lanes
+     */
+    public int getEvictedCount() {
+        return evictedCount;
+    }
+
+    /**
+     * get time of run
+     *
+     * @return time in nanoseconds
+     */
+    public long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    /**
+     * fetch instruction at mode and PC of group and run it for all lanes of
+     * group. When flow of control can not differ between lanes and no lane
+     * can reach its timer interrupt or maximum number of instructions,
+     * lanes keep their group and their counts and timers are updated later,
+     * otherwise lanes whose mode or PC is no longer same as others move to
+     * other groups.
+     *
+     * @param group is run
+     */
+    private void step(Group group) {
+        int mode = (int) (group.key >>> 32);
+        int pc = (int) group.key;
+        int address = base(mode) + pc;
+        boolean isUser = mode == SysConfig.USER_MODE;
+        dispatchCount++;
+        if (address < 0 || address >= memorySize) {
+            flush(group);
+            for (int k = 0; k < group.count; k++) {
+                raise(group.lanes[k], Fault.MEMORY_OUT_OF_RANGE, 0);
+            }
+            retire(group);
+            return;
+        }
+        if (isWritten[address] || (address + 1 < memorySize && isWritten[address + 1])) {
+            //code was written by some lane, each lane is fetched from its own memory
+            flush(group);
+            for (int k = 0; k < group.count; k++) {
+                int lane = group.lanes[k];
+                int opcode = words[address * laneCount + lane];
+                int size = DecodedProgram.hasOperand(opcode) ? 2 : 1;
+                if (address + size > memorySize) {
+                    raise(lane, opcode == 23 ? Fault.MEMORY_OUT_OF_RANGE
+                            : Fault.COMMAND_OUT_OF_RANGE, opcode);
+                    continue;
+                }
+                int operand = size == 2 ? words[(address + 1) * laneCount + lane] : 0;
+                opcode = opcode >= SysConfig.FIRST_INTERNAL_OPCODE
+                        ? SysConfig.UNKNOWN_INSTRUCTION : opcode;
+                if (isUser && isWritingError(lane, opcode, operand)) {
+                    evict(lane);
+                } else {
+                    pcRegs[lane] += size;
+                    execute(opcode, operand, isUser, group.lanes, k, k + 1);
+                }
+            }
+            retire(group);
+            return;
+        }
+        int opcode = image[address];
+        int size = DecodedProgram.hasOperand(opcode) ? 2 : 1;
+        if (address + size > memorySize) {
+            flush(group);
+            for (int k = 0; k < group.count; k++) {
+                raise(group.lanes[k], opcode == 23 ? Fault.MEMORY_OUT_OF_RANGE
+                        : Fault.COMMAND_OUT_OF_RANGE, opcode);
+            }
+            retire(group);
+            return;
+        }
+        int operand = size == 2 ? image[address + 1] : 0;
+        opcode = opcode >= SysConfig.FIRST_INTERNAL_OPCODE
+                ? SysConfig.UNKNOWN_INSTRUCTION : opcode;
+        if (isUser && (opcode == 3 || opcode == 30)) {
+            int count = 0;
+            for (int k = 0; k < group.count; k++) {
+                int lane = group.lanes[k];
+                if (isWritingError(lane, opcode, operand)) {
+                    flush(group);
+                    evict(lane);
+                } else {
+                    group.lanes[count++] = lane;
+                }
+            }
+            group.count = count;
+        }
+        if (isSequential(opcode)) {
+            isFaultRaised = false;
+            execute(opcode, operand, isUser, group.lanes, 0, group.count);
+            int nextPc = opcode == 20 ? operand : pc + size;
+            if (!isFaultRaised && group.slack > 0) {
+                //all lanes go on to same PC
+                group.pending++;
+                group.slack--;
+                group.key = key(mode, nextPc);
+                return;
+            }
+            flush(group);
+            for (int k = 0; k < group.count; k++) {
+                pcRegs[group.lanes[k]] = nextPc;
+            }
+        } else {
+            flush(group);
+            for (int k = 0; k < group.count; k++) {
+                pcRegs[group.lanes[k]] = pc + size;
+            }
+            execute(opcode, operand, isUser, group.lanes, 0, group.count);
+        }
+        retire(group);
+    }
+
+    /**
+     * count instruction and tick timer of each lane of group, finish lanes
+     * which stopped and move lanes which left mode and PC of group
+     *
+     * @param group which ran an instruction, it has no pending instructions
+     */
+    private void retire(Group group) {
+        int count = 0;
+        int leavingCount = 0;
+        long groupKey = 0;
+        long slack = Long.MAX_VALUE;
+        for (int k = 0; k < group.count; k++) {
+            int lane = group.lanes[k];
+            if (isFinished[lane]) {
+                continue;
+            }
+            if (faults[lane] != null) {
+                //instruction which faulted is not counted
+                finish(lane);
+                continue;
+            }
+            instructionCounts[lane]++;
+            if (isRunning[lane] && modes[lane] == SysConfig.USER_MODE) {
+                timerInterrupt(lane);
+            }
+            if (!isRunning[lane] || instructionCounts[lane] >= instructionLimit) {
+                finish(lane);
+                continue;
+            }
+            long laneKey = key(modes[lane], pcRegs[lane]);
+            if (count == 0) {
+                groupKey = laneKey;
+            }
+            if (laneKey == groupKey) {
+                group.lanes[count++] = lane;
+                slack = Math.min(slack, getSlack(lane));
+            } else {
+                leavingLanes[leavingCount++] = lane;
+            }
+        }
+        group.count = count;
+        group.key = groupKey;
+        group.slack = slack;
+        for (int k = 0; k < leavingCount; k++) {
+            int lane = leavingLanes[k];
+            long laneKey = key(modes[lane], pcRegs[lane]);
+            Group target = groups.get(laneKey);
+            if (target == null) {
+                target = obtainGroup(laneKey);
+                groups.put(laneKey, target);
+            } else {
+                flush(target);
+            }
+            target.add(lane);
+            target.slack = Math.min(target.slack, getSlack(lane));
+        }
+    }
+
+    /**
+     * add pending instructions of group to count and timer of each of its
+     * lanes and set their PC to PC of group
+     *
+     * @param group whose pending instructions are added
+     */
+    private void flush(Group group) {
+        long pending = group.pending;
+        if (pending == 0) {
+            return;
+        }
+        boolean isUser = (int) (group.key >>> 32) == SysConfig.USER_MODE;
+        int pc = (int) group.key;
+        for (int k = 0; k < group.count; k++) {
+            int lane = group.lanes[k];
+            instructionCounts[lane] += pending;
+            if (isUser) {
+                //pending instructions never reach interrupt time
+                counters[lane] += (int) pending;
+            }
+            pcRegs[lane] = pc;
+        }
+        group.pending = 0;
+    }
+
+    /**
+     * get number of next instructions of lane which neither deliver its timer
+     * interrupt nor reach its maximum number of instructions
+     *
+     * @param lane index of lane
+     * @return number of instructions
+     */
+    private long getSlack(int lane) {
+        long slack = instructionLimit - 1 - instructionCounts[lane];
+        if (modes[lane] == SysConfig.USER_MODE) {
+            slack = Math.min(slack, interruptTime - counters[lane]);
+        }
+        return slack;
+    }
+
+    /**
+     * check instruction sends all lanes to same PC and keeps their mode, it
+     * neither reads nor writes PC of each lane
+     *
+     * @param opcode decoded instruction
+     * @return true if instruction is sequential or an unconditional jump
+     */
+    private static boolean isSequential(int opcode) {
+        switch (opcode) {
+            case 21:
+            case 22:
+            case 23:
+            case 24:
+            case 27:
+            case 29:
+            case 30:
+            case 50:
+            case SysConfig.EMPTY_INSTRUCTION_SET:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * run one instruction for lanes, PC of each of them already points to
+     * next instruction unless instruction is sequential
+     *
+     * @param opcode decoded instruction
+     * @param operand operand of instruction
+     * @param isUser true if lanes run in user mode
+     * @param lanes indexes of lanes
+     * @param from first index of lanes
+     * @param to index after last index of lanes
+     */
+    private void execute(int opcode, int operand, boolean isUser, int[] lanes, int from,
+            int to) {
+        switch (opcode) {
+            case 1:
+                for (int k = from; k < to; k++) {
+                    acRegs[lanes[k]] = operand;
+                }
+                break;
+            case 2:
+                for (int k = from; k < to; k++) {
+                    load(lanes[k], operand, isUser, 2);
+                }
+                break;
+            case 3:
+                for (int k = from; k < to; k++) {
+                    int lane = lanes[k];
+                    if (isUser && operand > SysConfig.BOTTOM_USER) {
+                        raise(lane, Fault.INVALID_ACCESS, 2);
+                    } else if (checkAddress(lane, operand, 3)) {
+                        //lanes which would write error program were moved
+                        int innerAddress = words[operand * laneCount + lane];
+                        if (checkAddress(lane, innerAddress, 3)) {
+                            acRegs[lane] = words[innerAddress * laneCount + lane];
+                        }
+                    }
+                }
+                break;
+            case 4:
+                for (int k = from; k < to; k++) {
+                    load(lanes[k], operand + xRegs[lanes[k]], isUser, 4);
+                }
+                break;
+            case 5:
+                for (int k = from; k < to; k++) {
+                    load(lanes[k], operand + yRegs[lanes[k]], isUser, 5);
+                }
+                break;
+            case 6:
+                for (int k = from; k < to; k++) {
+                    load(lanes[k], spRegs[lanes[k]] + xRegs[lanes[k]], isUser, 6);
+                }
+                break;
+            case 7:
+                for (int k = from; k < to; k++) {
+                    int lane = lanes[k];
+                    if (isUser && operand > SysConfig.BOTTOM_USER) {
+                        raise(lane, Fault.INVALID_ACCESS, 2);
+                    } else if (checkAddress(lane, operand, 7)) {
+                        writeMemory(lane, operand, acRegs[lane]);
+                    }
+                }
+                break;
+            case 8:
+                for (int k = from; k < to; k++) {
+                    int lane = lanes[k];
+                    try {
+                        acRegs[lane] = inputs[lane].read();
+                    } catch (RuntimeException ex) {
+                        //only input and output devices may throw
+                        faultDetails[lane] = ex.getMessage();
+                        raise(lane, Fault.DEVICE_ERROR, opcode);
+                    }
+                }
+                break;
+            case 9:
+                for (int k = from; k < to; k++) {
+                    int lane = lanes[k];
+                    try {
+                        if (operand == 1) {
+                            outputs[lane].writeInt(acRegs[lane]);
+                        } else {
+                            outputs[lane].writeChar(acRegs[lane]);
+                        }
+                    } catch (RuntimeException ex) {
+                        faultDetails[lane] = ex.getMessage();
+                        raise(lane, Fault.DEVICE_ERROR, opcode);
+                    }
+                }
+                break;
+            case 10:
+                for (int k = from; k < to; k++) {
+                    acRegs[lanes[k]] += xRegs[lanes[k]];
+                }
+                break;
+            case 11:
+                for (int k = from; k < to; k++) {
+                    acRegs[lanes[k]] += yRegs[lanes[k]];
+                }
+                break;
+            case 12:
+                for (int k = from; k < to; k++) {
+                    acRegs[lanes[k]] -= xRegs[lanes[k]];
+                }
+                break;
+            case 13:
+                for (int k = from; k < to; k++) {
+                    acRegs[lanes[k]] -= yRegs[lanes[k]];
+                }
+                break;
+            case 14:
+                for (int k = from; k < to; k++) {
+                    xRegs[lanes[k]] = acRegs[lanes[k]];
+                }
+                break;
+            case 15:
+                for (int k = from; k < to; k++) {
+                    acRegs[lanes[k]] = xRegs[lanes[k]];
+                }
+                break;
+            case 16:
+                for (int k = from; k < to; k++) {
+                    yRegs[lanes[k]] = acRegs[lanes[k]];
+                }
+                break;
+            case 17:
+                for (int k = from; k < to; k++) {
+                    acRegs[lanes[k]] = yRegs[lanes[k]];
+                }
+                break;
+            case 18:
+                for (int k = from; k < to; k++) {
+                    spRegs[lanes[k]] = acRegs[lanes[k]];
+                }
+                break;
+            case 19:
+                for (int k = from; k < to; k++) {
+                    acRegs[lanes[k]] = spRegs[lanes[k]];
+                }
+                break;
+            case 20:
+                for (int k = from; k < to; k++) {
+                    pcRegs[lanes[k]] = operand;
+                }
+                break;
+            case 21:
+                for (int k = from; k < to; k++) {
+                    if (acRegs[lanes[k]] == 0) {
+                        pcRegs[lanes[k]] = operand;
+                    }
+                }
+                break;
+            case 22:
+                for (int k = from; k < to; k++) {
+                    if (acRegs[lanes[k]] != 0) {
+                        pcRegs[lanes[k]] = operand;
+                    }
+                }
+                break;
+            case 23:
+                for (int k = from; k < to; k++) {
+                    int lane = lanes[k];
+                    if (pushValue(lane, pcRegs[lane])) {
+                        pcRegs[lane] = operand;
+                    }
+                }
+                break;
+            case 24:
+                for (int k = from; k < to; k++) {
+                    int lane = lanes[k];
+                    int address = popValueFromStack(lane);
+                    if (faults[lane] == null) {
+                        pcRegs[lane] = address;
+                    }
+                }
+                break;
+            case 25:
+                for (int k = from; k < to; k++) {
+                    xRegs[lanes[k]]++;
+                }
+                break;
+            case 26:
+                for (int k = from; k < to; k++) {
+                    xRegs[lanes[k]]--;
+                }
+                break;
+            case 27:
+                for (int k = from; k < to; k++) {
+                    pushValue(lanes[k], acRegs[lanes[k]]);
+                }
+                break;
+            case 28:
+                for (int k = from; k < to; k++) {
+                    int lane = lanes[k];
+                    int value = popValueFromStack(lane);
+                    if (faults[lane] == null) {
+                        acRegs[lane] = value;
+                    }
+                }
+                break;
+            case 29:
+                for (int k = from; k < to; k++) {
+                    interrupt(lanes[k], SysConfig.SYSTEM_MODE);
+                }
+                break;
+            case 30:
+                //lanes in user mode were moved
+                for (int k = from; k < to; k++) {
+                    iRet(lanes[k]);
+                }
+                break;
+            case 32:
+                for (int k = from; k < to; k++) {
+                    int lane = lanes[k];
+                    if (isUser && operand > SysConfig.BOTTOM_USER) {
+                        raise(lane, Fault.INVALID_ACCESS, 32);
+                    } else if (checkAddress(lane, operand, 32)) {
+                        int value = words[operand * laneCount + lane];
+                        writeMemory(lane, operand, value + acRegs[lane]);
+                        acRegs[lane] = value;
+                    }
+                }
+                break;
+            case 33:
+                for (int k = from; k < to; k++) {
+                    int lane = lanes[k];
+                    if (isUser && operand > SysConfig.BOTTOM_USER) {
+                        raise(lane, Fault.INVALID_ACCESS, 33);
+                    } else if (checkAddress(lane, operand, 33)) {
+                        int value = words[operand * laneCount + lane];
+                        if (value == xRegs[lane]) {
+                            writeMemory(lane, operand, acRegs[lane]);
+                        }
+                        acRegs[lane] = value;
+                    }
+                }
+                break;
+            case 34:
+                //every lane is core 0
+                for (int k = from; k < to; k++) {
+                    acRegs[lanes[k]] = 0;
+                }
+                break;
+            case 50:
+                for (int k = from; k < to; k++) {
+                    isRunning[lanes[k]] = false;
+                }
+                break;
+            case SysConfig.EMPTY_INSTRUCTION_SET:
+                for (int k = from; k < to; k++) {
+                    if (isUser) {
+                        isRunning[lanes[k]] = false;
+                    } else {
+                        iRet(lanes[k]);
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * check instruction of lane in user mode would replace memory by error
+     * program, as CPU does for interrupt return in user mode and for
+     * indirect load of system memory
+     *
+     * @param lane index of lane
+     * @param opcode decoded instruction
+     * @param operand operand of instruction
+     * @return true if lane must be moved to a CPU
+     */
+    private boolean isWritingError(int lane, int opcode, int operand) {
+        if (opcode == 30) {
+            return true;
+        }
+        return opcode == 3 && operand >= 0 && operand <= SysConfig.BOTTOM_USER
+                && operand < memorySize
+                && words[operand * laneCount + lane] > SysConfig.BOTTOM_USER;
+    }
+
+    /**
+     * move lane to a CPU before its current instruction and run it there
+     * until it ends, faults or reaches its maximum number of instructions
+     *
+     * @param lane index of lane
+     */
+    private void evict(int lane) {
+        if (cpu == null) {
+            cpu = new CPU(interruptTime, null, null, MachineProfile.DEFAULT);
+        }
+        Memory memory = new FlatMemory(memorySize);
+        for (int address = 0; address < memorySize; address++) {
+            memory.write(address, words[address * laneCount + lane]);
+        }
+        ProcessControlBlock process = new ProcessControlBlock(lane, fileName, 0, memory, null,
+                instructionLimit, outputs[lane], inputs[lane]);
+        process.pcReg = pcRegs[lane];
+        process.acReg = acRegs[lane];
+        process.spReg = spRegs[lane];
+        process.xReg = xRegs[lane];
+        process.yReg = yRegs[lane];
+        process.mode = modes[lane];
+        process.counter = counters[lane];
+        process.instructionCount = instructionCounts[lane];
+        process.isCodeVerified = false;
+        cpu.restoreContext(process);
+        boolean isReady = true;
+        while (isReady) {
+            isReady = cpu.runUntilPreempted();
+        }
+        cpu.saveContext(process);
+        outputs[lane].flush();
+        results[lane] = process.getResult();
+        isFinished[lane] = true;
+        evictedCount++;
+    }
+
+    /**
+     * record result of lane and flush its output
+     *
+     * @param lane index of lane
+     */
+    private void finish(int lane) {
+        RunResult.ExitReason exitReason;
+        if (faults[lane] != null) {
+            exitReason = RunResult.ExitReason.FAULT;
+        } else if (isRunning[lane]) {
+            exitReason = RunResult.ExitReason.LIMIT;
+        } else {
+            exitReason = RunResult.ExitReason.HALTED;
+        }
+        outputs[lane].flush();
+        results[lane] = new RunResult(exitReason, faults[lane], faultCommands[lane],
+                faultDetails[lane], instructionCounts[lane], instructionCounts[lane]);
+        isFinished[lane] = true;
+    }
+
+    /**
+     * record fault of lane and stop it, only first fault is kept
+     *
+     * @param lane index of lane
+     * @param fault fault
+     * @param command id of command which faulted
+     * @return false
+     */
+    private boolean raise(int lane, Fault fault, int command) {
+        if (faults[lane] == null) {
+            faults[lane] = fault;
+            faultCommands[lane] = command;
+        }
+        isRunning[lane] = false;
+        isFaultRaised = true;
+        return false;
+    }
+
+    /**
+     * check address is inside memory, record fault of command if it is not
+     *
+     * @param lane index of lane
+     * @param address of memory
+     * @param command id of command which uses address
+     * @return true if address is inside memory
+     */
+    private boolean checkAddress(int lane, int address, int command) {
+        if (address >= 0 && address < memorySize) {
+            return true;
+        }
+        return raise(lane, Fault.COMMAND_OUT_OF_RANGE, command);
+    }
+
+    /**
+     * load word of lane into its AC
+     *
+     * @param lane index of lane
+     * @param address of memory
+     * @param isUser true if lane runs in user mode
+     * @param command id of command which loads
+     */
+    private void load(int lane, int address, boolean isUser, int command) {
+        if (isUser && address > SysConfig.BOTTOM_USER) {
+            raise(lane, Fault.INVALID_ACCESS, 2);
+        } else if (checkAddress(lane, address, command)) {
+            acRegs[lane] = words[address * laneCount + lane];
+        }
+    }
+
+    /**
+     * write word of lane, instruction at address is fetched for each lane
+     * from then on
+     *
+     * @param lane index of lane
+     * @param address of memory
+     * @param value is written
+     */
+    private void writeMemory(int lane, int address, int value) {
+        words[address * laneCount + lane] = value;
+        isWritten[address] = true;
+    }
+
+    /**
+     * tick timer of lane, deliver timer interrupt when counter reaches
+     * interrupt time
+     *
+     * @param lane index of lane
+     */
+    private void timerInterrupt(int lane) {
+        if (counters[lane] == interruptTime) {
+            interrupt(lane, SysConfig.TIMER_MODE);
+            counters[lane] = 0;
+        } else {
+            counters[lane]++;
+        }
+    }
+
+    /**
+     * set mode of lane, switch stack, push SP, PC, AC, X and Y, set PC to 0
+     *
+     * @param lane index of lane
+     * @param mode timer or system mode
+     */
+    private void interrupt(int lane, int mode) {
+        modes[lane] = mode;
+        int temp = spRegs[lane];
+        spRegs[lane] = 0;
+        pushValue(lane, temp);
+        pushValue(lane, pcRegs[lane]);
+        pcRegs[lane] = 0;
+        pushValue(lane, acRegs[lane]);
+        pushValue(lane, xRegs[lane]);
+        pushValue(lane, yRegs[lane]);
+    }
+
+    /**
+     * return lane to user mode, lane is not in user mode
+     *
+     * @param lane index of lane
+     */
+    private void iRet(int lane) {
+        spRegs[lane] = 5;
+        yRegs[lane] = popValueFromStack(lane);
+        xRegs[lane] = popValueFromStack(lane);
+        acRegs[lane] = popValueFromStack(lane);
+        pcRegs[lane] = popValueFromStack(lane);
+        spRegs[lane] = popValueFromStack(lane);
+        modes[lane] = SysConfig.USER_MODE;
+    }
+
+    /**
+     * push value to stack of lane
+     *
+     * @param lane index of lane
+     * @param value is pushed
+     * @return false when stack is full or outside memory
+     */
+    private boolean pushValue(int lane, int value) {
+        int mode = modes[lane];
+        int size = pcRegs[lane] + spRegs[lane];
+        if ((mode == SysConfig.USER_MODE && size > SysConfig.USER_STACK_LIMIT)
+                || (mode == SysConfig.SYSTEM_MODE && (size > SysConfig.SYSTEM_STACK_LIMIT
+                || spRegs[lane] > SysConfig.SYSTEM_STACK_LIMIT))) {
+            return raise(lane, Fault.STACK_FULL, 0);
+        }
+        int address = (mode == SysConfig.USER_MODE ? SysConfig.BOTTOM_USER
+                : SysConfig.BOTTOM_SYSTEM) - spRegs[lane];
+        if (address < 0 || address >= memorySize) {
+            return raise(lane, Fault.MEMORY_OUT_OF_RANGE, 0);
+        }
+        spRegs[lane]++;
+        writeMemory(lane, address, value);
+        return true;
+    }
+
+    /**
+     * pop value from stack of lane, fault is recorded when stack is empty or
+     * outside memory
+     *
+     * @param lane index of lane
+     * @return value
+     */
+    private int popValueFromStack(int lane) {
+        if (spRegs[lane] == 0) {
+            raise(lane, Fault.STACK_EMPTY, 0);
+            return 0;
+        }
+        spRegs[lane]--;
+        int address = (modes[lane] == SysConfig.USER_MODE ? SysConfig.BOTTOM_USER
+                : SysConfig.BOTTOM_SYSTEM) - spRegs[lane];
+        if (address < 0 || address >= memorySize) {
+            raise(lane, Fault.MEMORY_OUT_OF_RANGE, 0);
+            return 0;
+        }
+        return words[address * laneCount + lane];
+    }
+
+    /**
+     * get group which is not used or a new one
+     *
+     * @param key mode and PC of group
+     * @return empty group
+     */
+    private Group obtainGroup(long key) {
+        Group group = freeGroups.poll();
+        if (group == null) {
+            group = new Group();
+        }
+        group.key = key;
+        group.count = 0;
+        group.pending = 0;
+        group.slack = Long.MAX_VALUE;
+        return group;
+    }
+
+    /**
+     * put group back to groups which wait, it is merged into group with same
+     * key
+     *
+     * @param group is put back
+     */
+    private void insertGroup(Group group) {
+        Group target = groups.get(group.key);
+        if (target == null) {
+            groups.put(group.key, group);
+            return;
+        }
+        flush(target);
+        flush(group);
+        for (int k = 0; k < group.count; k++) {
+            target.add(group.lanes[k]);
+        }
+        target.slack = Math.min(target.slack, group.slack);
+        freeGroups.push(group);
+    }
+
+    /**
+     * get first address of memory of mode
+     *
+     * @param mode user, timer or system mode
+     * @return address where PC 0 is
+     */
+    private static int base(int mode) {
+        switch (mode) {
+            case SysConfig.USER_MODE:
+                return 0;
+            case SysConfig.TIMER_MODE:
+                return SysConfig.TOP_TIMER;
+            default:
+                return SysConfig.TOP_SYSTEM;
+        }
+    }
+
+    /**
+     * get key of mode and PC, groups of user mode and lower PC come first
+     *
+     * @param mode user, timer or system mode
+     * @param pc PC register
+     * @return key
+     */
+    private static long key(int mode, int pc) {
+        return ((long) mode << 32) | (pc & 0xFFFFFFFFL);
+    }
+
+    /**
+     * run program in lanes from command line, lane i reads random input of
+     * seed i, write result of each lane and summary
+     *
+     * @param fileName program file
+     * @param interruptTime time for interrupt
+     * @param laneCount number of lanes
+     * @param maxInstructions maximum number of instructions of each lane
+     * @param out is written report
+     * @throws IOException when read program
+     */
+    public static void runLanes(String fileName, int interruptTime, int laneCount,
+            long maxInstructions, PrintStream out) throws IOException {
+        if (laneCount < 1 || laneCount > SysConfig.MAX_LANES) {
+            throw new IllegalArgumentException(Messages.ERR_LANE_COUNT);
+        }
+        BufferOutputDevice[] outputs = new BufferOutputDevice[laneCount];
+        InputDevice[] inputs = new InputDevice[laneCount];
+        for (int lane = 0; lane < laneCount; lane++) {
+            outputs[lane] = new BufferOutputDevice();
+            inputs[lane] = new RandomInputDevice(lane);
+        }
+        LaneEngine engine = new LaneEngine(fileName, interruptTime, outputs, inputs);
+        RunResult[] results = engine.run(maxInstructions);
+        long instructionCount = 0;
+        for (int lane = 0; lane < laneCount; lane++) {
+            instructionCount += results[lane].getInstructionCount();
+            out.println(String.format(Messages.LANE_RESULT, lane, results[lane].getExitReason(),
+                    results[lane].getInstructionCount(), Json.quote(outputs[lane].toString()),
+                    results[lane].getMessage() == null ? "" : results[lane].getMessage()));
+        }
+        long elapsedTime = engine.getElapsedTime();
+        long dispatchCount = engine.getDispatchCount();
+        out.println(String.format(Messages.LANES_SUMMARY, laneCount, instructionCount,
+                elapsedTime == 0 ? 0 : instructionCount * 1000000000L / elapsedTime,
+                dispatchCount, dispatchCount == 0 ? 0 : (double) instructionCount / dispatchCount,
+                engine.getEvictedCount()));
+    }
+
+    /**
+     * Define group of lanes which have same mode and PC
+     */
+    private static final class Group {
+
+        /**
+         * Variable to store mode and PC of lanes
+         */
+        private long key;
+        /**
+         * Variable to store indexes of lanes
+         */
+        private int[] lanes = new int[SysConfig.LANE_GROUP_CAPACITY];
+        /**
+         * Variable to store number of lanes
+         */
+        private int count;
+        /**
+         * Variable to store number of instructions which ran for all lanes
+         * and are not yet added to their counts and timers
+         */
+        private long pending;
+        /**
+         * Variable to store number of next instructions which can be pending,
+         * none of them delivers timer interrupt or reaches maximum number of
+         * instructions of a lane
+         */
+        private long slack;
+
+        /**
+         * add lane at end of group
+         *
+         * @param lane index of lane
+         */
+        private void add(int lane) {
+            if (count == lanes.length) {
+                lanes = Arrays.copyOf(lanes, count * 2);
+            }
+            lanes[count++] = lane;
+        }
+    }
+}
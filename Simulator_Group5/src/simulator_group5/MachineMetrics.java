@@ -0,0 +1,306 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Define execution metrics of a machine or of a batch of machines: <\br>
+ * 1. Retired instructions of each opcode, a superinstruction counts as the
+ * instructions it replaces <\br>
+ * 2. Timer interrupts, Int and IRet transitions <\br>
+ * 3. High water marks of user and system stacks <\br>
+ * 4. Run time and instruction rate <\br>
+ * Counters are written only by the thread which runs the machine, values
+ * read through JMX while it runs may lag behind. Metrics of a batch are
+ * added from many threads.
+ *
+ * @author quyendm
+ */
+public class MachineMetrics implements MachineMetricsMBean {
+
+    /**
+     * Variable to store sequence of names of published metrics
+     */
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+
+    /**
+     * Variable to store retired instructions of each opcode
+     */
+    private final long[] opcodeCounts = new long[SysConfig.FIRST_INTERNAL_OPCODE];
+    /**
+     * Variable to store number of retired instructions
+     */
+    private long instructionsRetired;
+    /**
+     * Variable to store number of timer interrupts
+     */
+    private long timerInterrupts;
+    /**
+     * Variable to store number of Int instructions
+     */
+    private long systemCalls;
+    /**
+     * Variable to store number of IRet instructions
+     */
+    private long interruptReturns;
+    /**
+     * Variable to store deepest user stack
+     */
+    private int userStackHighWater;
+    /**
+     * Variable to store deepest system stack
+     */
+    private int systemStackHighWater;
+    /**
+     * Variable to store time spent in finished runs
+     */
+    private long runTimeNanos;
+    /**
+     * Variable to store start time of current run, 0 when no run is going on
+     */
+    private volatile long runStart;
+
+    /**
+     * count retired instruction or superinstruction
+     *
+     * @param opcode of decoded instruction
+     */
+    public void count(int opcode) {
+        switch (opcode) {
+            case SysConfig.LOAD_ADDR_UNCHECKED:
+                retire(2);
+                break;
+            case SysConfig.STORE_ADDR_UNCHECKED:
+                retire(7);
+                break;
+            case SysConfig.LOAD_VALUE_COPY_TO_X:
+                retire(1);
+                retire(14);
+                break;
+            case SysConfig.LOAD_VALUE_PUT:
+                retire(1);
+                retire(9);
+                break;
+            case SysConfig.LOAD_ADDR_PUT:
+                retire(2);
+                retire(9);
+                break;
+            case SysConfig.DEC_X_JUMP_IF_NOT_ZERO:
+                retire(26);
+                retire(15);
+                retire(22);
+                break;
+            default:
+                retire(opcode);
+                break;
+        }
+    }
+
+    /**
+     * count retired instruction of architectural opcode
+     */
+    private void retire(int opcode) {
+        opcodeCounts[opcode < 0 || opcode >= opcodeCounts.length
+                ? SysConfig.UNKNOWN_INSTRUCTION : opcode]++;
+        instructionsRetired++;
+    }
+
+    /**
+     * count timer interrupt
+     */
+    public void countTimerInterrupt() {
+        timerInterrupts++;
+    }
+
+    /**
+     * count Int instruction
+     */
+    public void countSystemCall() {
+        systemCalls++;
+    }
+
+    /**
+     * count IRet instruction
+     */
+    public void countInterruptReturn() {
+        interruptReturns++;
+    }
+
+    /**
+     * record depth of stack after push
+     *
+     * @param isUserStack true for user stack, false for system stack
+     * @param depth number of entries of stack
+     */
+    public void recordStackDepth(boolean isUserStack, int depth) {
+        if (isUserStack) {
+            userStackHighWater = Math.max(userStackHighWater, depth);
+        } else {
+            systemStackHighWater = Math.max(systemStackHighWater, depth);
+        }
+    }
+
+    /**
+     * start timing a run
+     */
+    public void startRun() {
+        runStart = System.nanoTime();
+    }
+
+    /**
+     * stop timing a run
+     */
+    public void endRun() {
+        runTimeNanos += System.nanoTime() - runStart;
+        runStart = 0;
+    }
+
+    /**
+     * clear all metrics
+     */
+    public void reset() {
+        Arrays.fill(opcodeCounts, 0);
+        instructionsRetired = 0;
+        timerInterrupts = 0;
+        systemCalls = 0;
+        interruptReturns = 0;
+        userStackHighWater = 0;
+        systemStackHighWater = 0;
+        runTimeNanos = 0;
+    }
+
+    /**
+     * add metrics of other machine, stack high water marks are the deepest of
+     * both
+     *
+     * @param other metrics which are added
+     */
+    public synchronized void add(MachineMetrics other) {
+        for (int i = 0; i < opcodeCounts.length; i++) {
+            opcodeCounts[i] += other.opcodeCounts[i];
+        }
+        instructionsRetired += other.instructionsRetired;
+        timerInterrupts += other.timerInterrupts;
+        systemCalls += other.systemCalls;
+        interruptReturns += other.interruptReturns;
+        userStackHighWater = Math.max(userStackHighWater, other.userStackHighWater);
+        systemStackHighWater = Math.max(systemStackHighWater, other.systemStackHighWater);
+        runTimeNanos += other.runTimeNanos;
+    }
+
+    @Override
+    public long getInstructionsRetired() {
+        return instructionsRetired;
+    }
+
+    @Override
+    public long[] getOpcodeCounts() {
+        return opcodeCounts.clone();
+    }
+
+    @Override
+    public long getTimerInterrupts() {
+        return timerInterrupts;
+    }
+
+    @Override
+    public long getSystemCalls() {
+        return systemCalls;
+    }
+
+    @Override
+    public long getInterruptReturns() {
+        return interruptReturns;
+    }
+
+    @Override
+    public int getUserStackHighWater() {
+        return userStackHighWater;
+    }
+
+    @Override
+    public int getSystemStackHighWater() {
+        return systemStackHighWater;
+    }
+
+    @Override
+    public long getRunTimeNanos() {
+        long start = runStart;
+        return start == 0 ? runTimeNanos : runTimeNanos + System.nanoTime() - start;
+    }
+
+    @Override
+    public double getInstructionsPerSecond() {
+        long nanos = getRunTimeNanos();
+        return nanos == 0 ? 0 : instructionsRetired * 1e9 / nanos;
+    }
+
+    /**
+     * publish metrics to platform MBean server
+     *
+     * @param type type of name, machine or batch
+     * @return name of published metrics, null if they could not be published
+     */
+    public ObjectName register(String type) {
+        try {
+            ObjectName name = new ObjectName(SysConfig.METRICS_DOMAIN + ":type=" + type
+                    + ",id=" + NEXT_ID.incrementAndGet());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            return name;
+        } catch (JMException e) {
+            //metrics stay available through the machine
+            return null;
+        }
+    }
+
+    /**
+     * remove published metrics from platform MBean server
+     *
+     * @param name of published metrics, may be null
+     */
+    public static void unregister(ObjectName name) {
+        if (name == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (JMException e) {
+            //already removed
+        }
+    }
+
+    /**
+     * build JSON object of metrics, opcodes which never ran are left out
+     *
+     * @return JSON object
+     */
+    public synchronized String toJson() {
+        StringBuilder opcodes = new StringBuilder("{");
+        for (int i = 0; i < opcodeCounts.length; i++) {
+            if (opcodeCounts[i] != 0) {
+                if (opcodes.length() > 1) {
+                    opcodes.append(',');
+                }
+                opcodes.append('"').append(i).append("\":").append(opcodeCounts[i]);
+            }
+        }
+        opcodes.append('}');
+        return "{\"instructionsRetired\":" + instructionsRetired
+                + ",\"timerInterrupts\":" + timerInterrupts
+                + ",\"systemCalls\":" + systemCalls
+                + ",\"interruptReturns\":" + interruptReturns
+                + ",\"userStackHighWater\":" + userStackHighWater
+                + ",\"systemStackHighWater\":" + systemStackHighWater
+                + ",\"runTimeNanos\":" + getRunTimeNanos()
+                + ",\"instructionsPerSecond\":" + (long) getInstructionsPerSecond()
+                + ",\"opcodes\":" + opcodes
+                + "}";
+    }
+}
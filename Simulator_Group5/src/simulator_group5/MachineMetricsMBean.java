@@ -0,0 +1,77 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+/**
+ * Define management interface of machine metrics which is published through
+ * JMX
+ *
+ * @author quyendm
+ */
+public interface MachineMetricsMBean {
+
+    /**
+     * get number of retired instructions
+     *
+     * @return number of instructions
+     */
+    long getInstructionsRetired();
+
+    /**
+     * get number of retired instructions of each opcode
+     *
+     * @return counts indexed by opcode
+     */
+    long[] getOpcodeCounts();
+
+    /**
+     * get number of timer interrupts taken
+     *
+     * @return number of timer interrupts
+     */
+    long getTimerInterrupts();
+
+    /**
+     * get number of Int instructions which entered system mode
+     *
+     * @return number of system calls
+     */
+    long getSystemCalls();
+
+    /**
+     * get number of IRet instructions which returned to user mode
+     *
+     * @return number of interrupt returns
+     */
+    long getInterruptReturns();
+
+    /**
+     * get deepest user stack
+     *
+     * @return maximum number of entries of user stack
+     */
+    int getUserStackHighWater();
+
+    /**
+     * get deepest system stack
+     *
+     * @return maximum number of entries of system stack
+     */
+    int getSystemStackHighWater();
+
+    /**
+     * get time spent in runs
+     *
+     * @return nanoseconds
+     */
+    long getRunTimeNanos();
+
+    /**
+     * get instruction rate of runs
+     *
+     * @return retired instructions per second of run time
+     */
+    double getInstructionsPerSecond();
+}
@@ -0,0 +1,75 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Define pool of machines which are reused between runs: <\br>
+ * 1. Machines are kept per program file, interrupt time and machine profile
+ * <\br>
+ * 2. A released machine is reset in place when it is acquired again, only
+ * memory pages written by the last run are restored and its compiled blocks
+ * are dropped, so a run reports same dispatches as on a new machine <\br>
+ * 3. Machine whose program failed to load is never kept. <\br>
+ * Program files must not change while the pool is used. Pool can be used by
+ * many threads.
+ *
+ * @author quyendm
+ */
+public class MachinePool {
+
+    /**
+     * Variable to store idle machines of each program file, interrupt time
+     * and machine profile
+     */
+    private final ConcurrentHashMap<String, Queue<CPU>> idleMachines
+            = new ConcurrentHashMap<>();
+
+    /**
+     * get machine with program loaded and reset
+     *
+     * @param filePath program file
+     * @param interruptTime time for interrupt
+     * @param profile profile of machine
+     * @param output device where port instructions write
+     * @param input device where get instructions read
+     * @return machine ready to run
+     */
+    public CPU acquire(String filePath, int interruptTime, MachineProfile profile,
+            OutputDevice output, InputDevice input) {
+        Queue<CPU> machines = idleMachines.get(getKey(filePath, interruptTime, profile));
+        CPU cpu = machines == null ? null : machines.poll();
+        if (cpu != null && cpu.reset(output, input)) {
+            return cpu;
+        }
+        cpu = new CPU(interruptTime, output, input, profile);
+        cpu.load(filePath);
+        return cpu;
+    }
+
+    /**
+     * give machine back to pool after run
+     *
+     * @param filePath program file of machine
+     * @param cpu machine
+     */
+    public void release(String filePath, CPU cpu) {
+        if (!cpu.canReset()) {
+            return;
+        }
+        idleMachines.computeIfAbsent(getKey(filePath, cpu.getInterruptTime(), cpu.getProfile()),
+                key -> new ConcurrentLinkedQueue<>()).offer(cpu);
+    }
+
+    /**
+     * get key of program file, interrupt time and machine profile
+     */
+    private static String getKey(String filePath, int interruptTime, MachineProfile profile) {
+        return profile + SysConfig.HYPHEN + interruptTime + SysConfig.HYPHEN + filePath;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+/**
+ * Define profile of a machine: <\br>
+ * 1. Number of entries of memory <\br>
+ * 2. Memory backend: flat array on heap, sparse pages or direct buffer off
+ * heap <\br>
+ * 3. Execution metrics are collected or not <\br>
+ * Profile is written as [backend][:memory size][:metrics], for example
+ * paged:100000 or flat:metrics. Only paged memory makes snapshot and fork
+ * cheap, other backends copy all entries of memory each time, so sweep with
+ * checkpoints and scheduler with many copies should keep paged memory.
+ *
+ * @author quyendm
+ */
+public final class MachineProfile {
+
+    /**
+     * Define memory backend
+     */
+    public enum Backend {
+        /**
+         * one array on heap, copied whole by snapshot and fork
+         */
+        FLAT,
+        /**
+         * sparse copy-on-write pages on heap, shared by snapshot and fork
+         */
+        PAGED,
+        /**
+         * direct buffer outside heap, copied whole by snapshot and fork
+         */
+        OFF_HEAP
+    }
+
+    /**
+     * default profile: paged memory which covers user, timer and system
+     * regions
+     */
+    public static final MachineProfile DEFAULT
+            = new MachineProfile(Backend.PAGED, SysConfig.MEMORY_SIZE);
+
+    /**
+     * Variable to store memory backend
+     */
+    private final Backend backend;
+    /**
+     * Variable to store number of entries of memory
+     */
+    private final int memorySize;
+    /**
+     * Variable to store status of execution metrics are collected or not
+     */
+    private final boolean isMetricsEnabled;
+
+    /**
+     * Constructor with backend and memory size, metrics are not collected
+     *
+     * @param backend memory backend
+     * @param memorySize number of entries of memory
+     */
+    public MachineProfile(Backend backend, int memorySize) {
+        this(backend, memorySize, false);
+    }
+
+    /**
+     * Constructor with backend, memory size and metrics
+     *
+     * @param backend memory backend
+     * @param memorySize number of entries of memory
+     * @param isMetricsEnabled true to collect execution metrics
+     */
+    public MachineProfile(Backend backend, int memorySize, boolean isMetricsEnabled) {
+        if (memorySize <= 0) {
+            throw new IllegalArgumentException(Messages.ERR_PROFILE_FORMAT);
+        }
+        this.backend = backend;
+        this.memorySize = memorySize;
+        this.isMetricsEnabled = isMetricsEnabled;
+    }
+
+    /**
+     * create empty memory of profile
+     *
+     * @return memory
+     */
+    public Memory createMemory() {
+        switch (backend) {
+            case FLAT:
+                return new FlatMemory(memorySize);
+            case OFF_HEAP:
+                return new OffHeapMemory(memorySize);
+            default:
+                return new PagedMemory(memorySize);
+        }
+    }
+
+    /**
+     * get memory backend
+     *
+     * @return memory backend
+     */
+    public Backend getBackend() {
+        return backend;
+    }
+
+    /**
+     * get number of entries of memory
+     *
+     * @return number of entries
+     */
+    public int getMemorySize() {
+        return memorySize;
+    }
+
+    /**
+     * check execution metrics are collected or not
+     *
+     * @return true if machines of profile collect metrics
+     */
+    public boolean isMetricsEnabled() {
+        return isMetricsEnabled;
+    }
+
+    /**
+     * parse profile written as [backend][:memory size][:metrics], backend is
+     * flat, paged or off-heap
+     *
+     * @param text profile
+     * @return profile
+     * @throws IllegalArgumentException when profile is malformed
+     */
+    public static MachineProfile parse(String text) throws IllegalArgumentException {
+        String[] parts = text.split(SysConfig.PROFILE_SEPARATOR, -1);
+        try {
+            Backend backend = Backend.valueOf(parts[0].toUpperCase().replace('-', '_'));
+            int index = 1;
+            int memorySize = SysConfig.MEMORY_SIZE;
+            if (index < parts.length && !SysConfig.PROFILE_METRICS.equals(parts[index])) {
+                memorySize = Integer.parseInt(parts[index++]);
+            }
+            boolean isMetricsEnabled = index < parts.length;
+            if (isMetricsEnabled && (index + 1 < parts.length
+                    || !SysConfig.PROFILE_METRICS.equals(parts[index]))) {
+                throw new IllegalArgumentException(Messages.ERR_PROFILE_FORMAT);
+            }
+            return new MachineProfile(backend, memorySize, isMetricsEnabled);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(Messages.ERR_PROFILE_FORMAT);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return backend.name().toLowerCase().replace('_', '-')
+                + SysConfig.PROFILE_SEPARATOR + memorySize
+                + (isMetricsEnabled ? SysConfig.PROFILE_SEPARATOR + SysConfig.PROFILE_METRICS : "");
+    }
+}
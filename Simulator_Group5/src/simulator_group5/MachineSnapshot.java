@@ -0,0 +1,65 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+/**
+ * Define snapshot of a machine: <\br>
+ * 1. Registers, mode, timer counter and number of executed instructions <\br>
+ * 2. Memory, copied as Memory.copy of its backend does: paged memory shares
+ * its pages copy-on-write with the machine and with every fork, flat and off
+ * heap memory are copied whole by snapshot and by each fork <\br>
+ * 3. Snapshot never changes, any number of machines can be forked from it.
+ *
+ * @author duynq
+ */
+public class MachineSnapshot {
+
+    /**
+     * Variable to store captured machine, it never runs
+     */
+    private final CPU state;
+
+    /**
+     * Constructor with captured machine
+     *
+     * @param state captured machine
+     */
+    MachineSnapshot(CPU state) {
+        this.state = state;
+    }
+
+    /**
+     * create new runnable machine from snapshot, call run to continue it
+     *
+     * @param output device where port instructions write
+     * @param input device where get instructions read
+     * @return new machine
+     */
+    public CPU fork(OutputDevice output, InputDevice input) {
+        return new CPU(state, output, input);
+    }
+
+    /**
+     * create new runnable machine from snapshot with other interrupt time,
+     * call run to continue it
+     *
+     * @param interruptTime time for interrupt of new machine
+     * @param output device where port instructions write
+     * @param input device where get instructions read
+     * @return new machine
+     */
+    public CPU fork(int interruptTime, OutputDevice output, InputDevice input) {
+        return new CPU(state, interruptTime, output, input);
+    }
+
+    /**
+     * get number of instructions executed before snapshot
+     *
+     * @return number of executed instructions
+     */
+    public long getInstructionCount() {
+        return state.getInstructionCount();
+    }
+}
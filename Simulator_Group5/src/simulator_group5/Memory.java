@@ -4,174 +4,128 @@
  */
 package simulator_group5;
 
-import java.io.File;
 import java.io.IOException;
-import java.util.Scanner;
-import org.omg.Messaging.SYNC_WITH_TRANSPORT;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
 
 /**
- * Define Memory class: <\br>
- * 1. Consist of 2000 integer entries <\br>
+ * Define Memory: <\br>
+ * 1. Consist of integer entries, number of entries comes from machine
+ * profile <\br>
  * 2. Support 2 operations: read and write <\br>
- * 3. Initialize itself by reading a program file.
+ * 3. Initialize itself by reading a program file <\br>
+ * 4. Reset to loaded program and copy itself for snapshots.
  *
  * @author duynq
  */
-public class Memory {
+public interface Memory {
 
     /**
-     * entries
-     */
-    private int[] entries;
-
-    /**
-     * initialize
+     * initialize from program image or program text file
      *
      * @param filePath store instruction
      * @throws IOException when read file
      * @throws IndexOutOfBoundsException when memory is full
      */
-    public void initialize(String filePath)
-            throws IOException, IndexOutOfBoundsException {
-        try {
-            this.entries = new int[SysConfig.MEMORY_SIZE];
-            int address = 0;
-            boolean isReadForUserMode = true;
-
-            File file = new File(filePath);
-            Scanner scanner = new Scanner(file);
-            while (scanner.hasNext()) {
-                String line = scanner.nextLine();
-                line = line.trim();
-                if (isInterruptComment(line) && isReadForUserMode) {
-                    address = SysConfig.TOP_TIMER;
-                } else if (!line.isEmpty() && isNotCommentLine(line)) {
-                    checkMemoryIsFullForAddress(isReadForUserMode, address);
-                    int instruction = getInstructionFromLine(line);
-                    write(address++, instruction);
-                }
-            }
-        } catch (IOException e) {
-            throw new IOException(Messages.ERR_FILE_NOT_FOUND);
-        } catch (IndexOutOfBoundsException e) {
-            throw new IndexOutOfBoundsException(Messages.ERR_FILE_TOO_BIG
-                    + SysConfig.HYPHEN + e.getMessage());
-        }
-    }
+    void initialize(String filePath) throws IOException, IndexOutOfBoundsException;
 
     /**
-     * Check memory if full or not, if full throw IndexofBound Error
+     * initialize from program image which is already in a buffer
+     *
+     * @param image bytes of program image
+     * @throws IOException when image is invalid
+     * @throws IndexOutOfBoundsException when memory is full
      */
-    private void checkMemoryIsFullForAddress(boolean isReadForUserMode, int address)
-            throws IndexOutOfBoundsException {
-        if (isReadForUserMode && address == 999) {
-            throw new IndexOutOfBoundsException(Messages.ERR_IN_USER_MODE);
-        } else if (address == 1499) {
-            throw new IndexOutOfBoundsException(Messages.ERR_IN_SYSTEM_MODE);
-        }
-    }
+    void initialize(ByteBuffer image) throws IOException, IndexOutOfBoundsException;
 
     /**
-     * check line is comment line or not
+     * read
      *
-     * @param line is check return true if line is comment
+     * @param address of memory
+     * @return value
+     * @throws IndexOutOfBoundsException when address is outside memory
      */
-    private boolean isNotCommentLine(String line) {
-        boolean ret;
-        char character = line.charAt(0);
-        if (isMinus(character) && line.length() < 2) {
-            ret = false;
-        } else if (isMinus(character)) {
-            character = line.charAt(1);
-            ret = isDigit(character);
-        } else {
-            ret = isDigit(character);
-        }
-        return ret;
-    }
+    int read(int address) throws IndexOutOfBoundsException;
 
     /**
-     * check character is digit or not
+     * write
      *
-     * @param character is check return true if character is digit
+     * @param address of memory
+     * @param value is written
+     * @throws IndexOutOfBoundsException when address is outside memory
      */
-    private boolean isDigit(char character) {
-        return (character >= '0' && character <= '9');
-    }
+    void write(int address, int value) throws IndexOutOfBoundsException;
 
     /**
-     * check character is minus or not
+     * add delta to word and get old value, atomic when memory is shared by
+     * cores
      *
-     * @param character is check return true if character is minus
+     * @param address of memory
+     * @param delta is added
+     * @return value before delta is added
+     * @throws IndexOutOfBoundsException when address is outside memory
      */
-    private boolean isMinus(char character) {
-        return character == '-';
-    }
+    int getAndAdd(int address, int delta) throws IndexOutOfBoundsException;
 
     /**
-     * write
+     * write value when word equals expected value, atomic when memory is
+     * shared by cores
      *
      * @param address of memory
+     * @param expected value which word must have
      * @param value is written
+     * @return value of word before, value was written if it equals expected
+     * value
+     * @throws IndexOutOfBoundsException when address is outside memory
      */
-    public void write(int address, int value) {
-        this.entries[address] = value;
-    }
+    int compareAndExchange(int address, int expected, int value) throws IndexOutOfBoundsException;
+
+    /**
+     * write block of words
+     *
+     * @param address of memory where first word is written
+     * @param words are written, from position to limit
+     * @throws IndexOutOfBoundsException when block is outside memory
+     */
+    void write(int address, IntBuffer words) throws IndexOutOfBoundsException;
 
     /**
      * clear memory
      */
-    public void clear() {
-        this.entries = new int[SysConfig.MEMORY_SIZE];
-    }
+    void clear();
 
     /**
-     * read
+     * size
      *
-     * @param address of memory
-     * @return value
+     * @return number of entries
+     */
+    int size();
+
+    /**
+     * check memory can be reset to loaded program or not
+     *
+     * @return true if a program was loaded
+     */
+    boolean canReset();
+
+    /**
+     * reset memory to loaded program
      */
-    public int read(int address) throws IndexOutOfBoundsException {
-        int memoryAddr;
-        try {
-            memoryAddr = this.entries[address];
-        } catch (IndexOutOfBoundsException e) {
-            throw new IndexOutOfBoundsException(Messages.ERR_MEMORY_INDEX_OUT_OF_BOUND);
-        }
-        return memoryAddr;
-    }
+    void reset();
 
     /**
-     * get instruction from line
+     * copy memory, copy can be reset to same loaded program. Paged memory
+     * shares pages with copy until one of them writes, flat and off heap
+     * memory copy all entries
      *
-     * @param line return instruction
+     * @return copy of memory
      */
-    private int getInstructionFromLine(String line) {
-        int endOfInstruction = 1;
-        boolean hasNextDigit = true;
-        for (int i = 1; i < line.length() && hasNextDigit; i++) {
-            char character = line.charAt(i);
-            if (isDigit(character)) {
-                endOfInstruction++;
-            } else {
-                hasNextDigit = false;
-            }
-        }
-        String sInstruction = line.substring(0, endOfInstruction);
-        int instruction = Integer.parseInt(sInstruction);
-        return instruction;
-    }
+    Memory copy();
 
     /**
-     * check line is interrupt comment or not
+     * set decoded instruction stream which is invalidated on write
      *
-     * @param line is check return true if line is interrupt comment
+     * @param decodedProgram decoded instruction stream
      */
-    private boolean isInterruptComment(String line) {
-        if (line.length() < 6) {
-            return line.equals(SysConfig.INTERRUPT_COMMENT);
-        } else {
-            return line.substring(0, 5).equals(SysConfig.INTERRUPT_COMMENT);
-        }
-    }
+    void setDecodedProgram(DecodedProgram decodedProgram);
 }
@@ -68,6 +68,246 @@ public class Messages {
      * message for file is too big error
      */
     public static final String ERR_FILE_TOO_BIG = "File is too big";
+
+    /**
+     * message for invalid program image error
+     */
+    public static final String ERR_INVALID_IMAGE = "Invalid program image!";
+
+    /**
+     * message for breakpoint or watchpoint which is not valid
+     */
+    public static final String ERR_DEBUG_ADDRESS = "Breakpoint or watchpoint must have valid address range and access";
+
+    /**
+     * message for invalid execution trace error
+     */
+    public static final String ERR_INVALID_TRACE = "Invalid execution trace!";
+
+    /**
+     * message for malformed program text file, with line, column and reason
+     */
+    public static final String ERR_MALFORMED_PROGRAM = "Malformed program at line %d, column %d: %s";
+
+    /**
+     * reason of malformed program: number does not fit in a word
+     */
+    public static final String ERR_NUMBER_TOO_BIG = "number is too big";
+
+    /**
+     * reason of malformed program: address directive is outside memory
+     */
+    public static final String ERR_ADDRESS_OUTSIDE_MEMORY = "address is outside memory";
+
+    /**
+     * message for error batch input format
+     */
+    public static final String ERR_BATCH_FORMAT = "Please input with format: --batch [manifest_file] [result_file]";
+
+    /**
+     * message for error job format in manifest
+     */
+    public static final String ERR_MANIFEST_FORMAT = "Job must have format: [file_name] [interrupt_time] [max_instructions] [seed=N] [tape=file] [profile=backend:size]";
+
+    /**
+     * message for input tape which has no more value
+     */
+    public static final String ERR_INPUT_TAPE_EXHAUSTED = "Input tape has no more value";
+
+    /**
+     * message for execution trace which has no more input value
+     */
+    public static final String ERR_TRACE_INPUT_EXHAUSTED = "Execution trace has no more input value";
+
+    /**
+     * message for error record input format
+     */
+    public static final String ERR_RECORD_FORMAT = "Input must have format: --record [file name] [interrupt time] [trace file]";
+
+    /**
+     * message for error replay input format
+     */
+    public static final String ERR_REPLAY_FORMAT = "Input must have format: --replay [trace file] [instruction], instruction is optional";
+
+    /**
+     * state of machine after instruction of execution trace
+     */
+    public static final String TRACE_STATE = "instruction=%d address=%d opcode=%d AC=%d X=%d Y=%d SP=%d mode=%d";
+
+    /**
+     * message for input tape file with value which is not integer
+     */
+    public static final String ERR_INPUT_TAPE_FORMAT = "Input tape must contain integers only";
+
+    /**
+     * header of opcode sequences of one length in n-gram report
+     */
+    public static final String NGRAM_HEADER = "Sequences of %d opcodes:";
+
+    /**
+     * message for error n-gram input format
+     */
+    public static final String ERR_NGRAMS_FORMAT = "Input must have format: --ngrams [file name] ...";
+
+    /**
+     * header of report of hot addresses
+     */
+    public static final String HOT_ADDRESS_HEADER = "Hot addresses of %d samples, one every %d instructions:";
+
+    /**
+     * message for error sample input format
+     */
+    public static final String ERR_SAMPLE_FORMAT
+            = "Input must have format: --sample [file name] [interrupt time] [stack file] [sample interval], sample interval is optional and positive";
+
+    /**
+     * message for error cores input format
+     */
+    public static final String ERR_CORES_FORMAT
+            = "Input must have format: --cores [number of cores] [lockstep|free] [file name] [interrupt time]";
+
+    /**
+     * message for number of cores which is not supported
+     */
+    public static final String ERR_CORE_COUNT = "Number of cores must be from 1 to 16";
+
+    /**
+     * result of core: id, exit reason, instructions and error
+     */
+    public static final String CORE_RESULT = "core=%d exit=%s instructions=%d %s";
+
+    /**
+     * summary of cores: number of cores, mode, instructions and instructions
+     * per second
+     */
+    public static final String CORES_SUMMARY = "Cores: %d (%s), instructions: %d (%d per second)";
+
+    /**
+     * message for error schedule input format
+     */
+    public static final String ERR_SCHEDULE_FORMAT
+            = "Input must have format: --schedule [rr|priority|mlfq] [interrupt time] [copies] [file name[:priority]]..., copies is positive";
+
+    /**
+     * message for priority which is not a level of ready queue
+     */
+    public static final String ERR_PRIORITY = "Priority must be from 0 to 31";
+
+    /**
+     * message for ready queue with wrong number of levels
+     */
+    public static final String ERR_READY_LEVELS = "Ready queue must have from 1 to 32 levels";
+
+    /**
+     * result of process: id, file, priority, exit reason, instructions,
+     * dispatches and error
+     */
+    public static final String PROCESS_RESULT = "pid=%d file=%s priority=%d exit=%s instructions=%d dispatches=%d %s";
+
+    /**
+     * summary of scheduler: processes, context switches, context switches
+     * per second and instructions
+     */
+    public static final String SCHEDULE_SUMMARY
+            = "Processes: %d, context switches: %d (%d per second), instructions: %d";
+
+    /**
+     * message for error fuzz input format
+     */
+    public static final String ERR_FUZZ_FORMAT
+            = "Input must have format: --fuzz [file name] [interrupt time] [tape|image] [seconds] [output folder]";
+
+    /**
+     * summary of fuzzer: executions, executions per second, covered words,
+     * corpus size and number of faults
+     */
+    public static final String FUZZ_SUMMARY
+            = "Executions: %d (%d per second), covered words: %d, corpus: %d, faults: %d";
+
+    /**
+     * fault found by fuzzer and manifest job which reproduces it
+     */
+    public static final String FUZZ_FINDING = "%s%n    reproduce: %s %d %d tape=%s";
+
+    /**
+     * message for error lanes input format
+     */
+    public static final String ERR_LANES_FORMAT
+            = "Input must have format: --lanes [file name] [interrupt time] [number of lanes] [max instructions]";
+
+    /**
+     * message for number of lanes which is not supported
+     */
+    public static final String ERR_LANE_COUNT = "Number of lanes must be from 1 to 4096";
+
+    /**
+     * result of lane: index, exit reason, instructions, output and error
+     */
+    public static final String LANE_RESULT = "lane=%d exit=%s instructions=%d output=%s %s";
+
+    /**
+     * summary of lanes: number of lanes, instructions, instructions per
+     * second, dispatches, lanes per dispatch and lanes moved to a CPU
+     */
+    public static final String LANES_SUMMARY
+            = "Lanes: %d, instructions: %d (%d per second), dispatches: %d (%.1f lanes each), moved to CPU: %d";
+
+    /**
+     * message for error sweep input format
+     */
+    public static final String ERR_SWEEP_FORMAT
+            = "Input must have format: --sweep [file name] [first interrupt time] [last interrupt time] [max instructions] [checkpoint|full]";
+
+    /**
+     * result of interrupt time: interrupt time, exit reason, instructions,
+     * length and digest of output and error
+     */
+    public static final String SWEEP_RESULT = "interrupt=%d exit=%s instructions=%d output=%d digest=%s %s";
+
+    /**
+     * summary of sweep: interrupt times, runs, shared results, instructions
+     * and milliseconds
+     */
+    public static final String SWEEP_SUMMARY
+            = "Interrupt times: %d, runs: %d, shared: %d, instructions: %d, time: %d ms";
+
+    /**
+     * message for error daemon input format
+     */
+    public static final String ERR_DAEMON_FORMAT = "Input must have format: --daemon [port]";
+
+    /**
+     * message for error client input format
+     */
+    public static final String ERR_CLIENT_FORMAT
+            = "Input must have format: --client [file name] [interrupt time] [port]";
+
+    /**
+     * message for daemon request which is malformed
+     */
+    public static final String ERR_DAEMON_REQUEST
+            = "Request must have format: [file name] [interrupt time] [max instructions] [seed=N] [tape=file] [profile=backend:size] [image=base64]";
+
+    /**
+     * message for client which can not reach daemon or loses it
+     */
+    public static final String ERR_DAEMON_CONNECTION = "Can not run on daemon at port %d: %s";
+
+    /**
+     * daemon is ready: port
+     */
+    public static final String DAEMON_LISTENING = "Daemon listening on port %d";
+
+    /**
+     * message for machine profile which is malformed
+     */
+    public static final String ERR_PROFILE_FORMAT
+            = "Machine profile must have format: [flat|paged|off-heap][:memory size][:metrics]";
+
+    /**
+     * message for error convert input format
+     */
+    public static final String ERR_CONVERT_FORMAT = "Please input with format: --convert [text_file] [image_file]";
     public static final String ERR_IN_USER_MODE = "In User mode";
     public static final String ERR_IN_SYSTEM_MODE = "In System mode";
 }
@@ -0,0 +1,281 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Define machine of many cores which share one memory: <\br>
+ * 1. Each core is a CPU with its own registers, mode, timer and stacks, all
+ * cores run same loaded program. Stacks of one CPU are split evenly between
+ * cores, a push beyond share of a core faults <\br>
+ * 2. Memory is a ConcurrentMemory: every access is volatile and fetch-add
+ * and compare-exchange instructions are atomic, so programs can
+ * synchronise <\br>
+ * 3. Lockstep mode runs cores in turn on calling thread, each for a fixed
+ * number of instructions, so a run is same every time <\br>
+ * 4. Free-running mode runs each core on its own thread as fast as it can
+ * <\br>
+ * Cores share input and output devices, each access of a device is
+ * synchronized. A fault stops only the core which faulted.
+ *
+ * @author duynq
+ */
+public class MultiCoreMachine {
+
+    /**
+     * Define how cores are run
+     */
+    public enum Mode {
+        /**
+         * cores run in turn on one thread, run is reproducible
+         */
+        LOCKSTEP,
+        /**
+         * each core runs on its own thread
+         */
+        FREE_RUNNING
+    }
+
+    /**
+     * Variable to store memory shared by cores
+     */
+    private final ConcurrentMemory memory;
+    /**
+     * Variable to store cores
+     */
+    private final CPU[] cores;
+    /**
+     * Variable to store input and output devices shared by cores
+     */
+    private final SharedDevices devices;
+    /**
+     * Variable to store time of last run in nanoseconds
+     */
+    private long elapsedTime;
+
+    /**
+     * Constructor with number of cores, interrupt time, devices and memory
+     * size
+     *
+     * @param coreCount number of cores
+     * @param interruptTime time for interrupt of every core
+     * @param output device where port instructions of all cores write
+     * @param input device where get instructions of all cores read
+     * @param memorySize number of words of shared memory
+     * @throws IllegalArgumentException when number of cores is not from 1 to
+     * SysConfig.MAX_CORES
+     */
+    public MultiCoreMachine(int coreCount, int interruptTime, OutputDevice output,
+            InputDevice input, int memorySize) throws IllegalArgumentException {
+        if (coreCount < 1 || coreCount > SysConfig.MAX_CORES) {
+            throw new IllegalArgumentException(Messages.ERR_CORE_COUNT);
+        }
+        this.memory = new ConcurrentMemory(memorySize);
+        this.devices = new SharedDevices(output, input);
+        this.cores = new CPU[coreCount];
+        for (int i = 0; i < coreCount; i++) {
+            cores[i] = new CPU(interruptTime, devices, devices, MachineProfile.DEFAULT);
+        }
+    }
+
+    /**
+     * load program into shared memory and attach every core to it
+     *
+     * @param fileName program file
+     * @param maxInstructions maximum number of instructions of each core
+     * @throws IOException when read file
+     * @throws IndexOutOfBoundsException when memory is full
+     */
+    public void load(String fileName, long maxInstructions)
+            throws IOException, IndexOutOfBoundsException {
+        memory.initialize(fileName);
+        for (int i = 0; i < cores.length; i++) {
+            cores[i].setMaxInstructions(maxInstructions);
+            cores[i].attachCore(memory, i, cores.length);
+        }
+    }
+
+    /**
+     * run all cores until each of them ends, faults or reaches its maximum
+     * number of instructions
+     *
+     * @param mode lockstep or free-running
+     * @return result of each core, index is id of core
+     * @throws IOException when a core thread fails
+     */
+    public RunResult[] run(Mode mode) throws IOException {
+        long start = System.nanoTime();
+        try {
+            if (mode == Mode.LOCKSTEP) {
+                runLockstep();
+            } else {
+                runFree();
+            }
+        } finally {
+            devices.flush();
+            elapsedTime = System.nanoTime() - start;
+        }
+        RunResult[] results = new RunResult[cores.length];
+        for (int i = 0; i < cores.length; i++) {
+            results[i] = cores[i].getResult();
+        }
+        return results;
+    }
+
+    /**
+     * run cores in turn, each for SysConfig.LOCKSTEP_QUANTUM instructions
+     */
+    private void runLockstep() {
+        boolean[] isReady = new boolean[cores.length];
+        int readyCount = cores.length;
+        Arrays.fill(isReady, true);
+        while (readyCount > 0) {
+            for (int i = 0; i < cores.length; i++) {
+                if (isReady[i] && !cores[i].runFor(SysConfig.LOCKSTEP_QUANTUM)) {
+                    isReady[i] = false;
+                    readyCount--;
+                }
+            }
+        }
+    }
+
+    /**
+     * run each core on its own thread
+     *
+     * @throws IOException when a core thread fails
+     */
+    private void runFree() throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(cores.length);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (CPU core : cores) {
+            tasks.add(pool.submit(() -> core.runFor(Long.MAX_VALUE)));
+        }
+        try {
+            for (ForkJoinTask<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * read word of shared memory, for use when cores do not run
+     *
+     * @param address of memory
+     * @return value
+     * @throws IndexOutOfBoundsException when address is outside memory
+     */
+    public int readMemory(int address) throws IndexOutOfBoundsException {
+        return memory.read(address);
+    }
+
+    /**
+     * get time of last run
+     *
+     * @return time in nanoseconds
+     */
+    public long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    /**
+     * run program on cores from command line, write result of each core and
+     * summary
+     *
+     * @param coreCount number of cores
+     * @param modeName lockstep or free
+     * @param fileName program file
+     * @param interruptTime time for interrupt
+     * @param out is written report
+     * @throws IOException when read program
+     */
+    public static void runCores(int coreCount, String modeName, String fileName,
+            int interruptTime, PrintStream out) throws IOException {
+        Mode mode;
+        if (SysConfig.CORES_LOCKSTEP.equals(modeName)) {
+            mode = Mode.LOCKSTEP;
+        } else if (SysConfig.CORES_FREE.equals(modeName)) {
+            mode = Mode.FREE_RUNNING;
+        } else {
+            throw new IllegalArgumentException(Messages.ERR_CORES_FORMAT);
+        }
+        MultiCoreMachine machine = new MultiCoreMachine(coreCount, interruptTime,
+                new StreamOutputDevice(out, StreamOutputDevice.FlushPolicy.LINE),
+                new RandomInputDevice(System.nanoTime()), SysConfig.MEMORY_SIZE);
+        machine.load(fileName, Long.MAX_VALUE);
+        RunResult[] results = machine.run(mode);
+        long instructionCount = 0;
+        for (int i = 0; i < results.length; i++) {
+            instructionCount += results[i].getInstructionCount();
+            out.println(String.format(Messages.CORE_RESULT, i, results[i].getExitReason(),
+                    results[i].getInstructionCount(),
+                    results[i].getMessage() == null ? "" : results[i].getMessage()));
+        }
+        long elapsedTime = machine.getElapsedTime();
+        out.println(String.format(Messages.CORES_SUMMARY, coreCount, modeName, instructionCount,
+                elapsedTime == 0 ? 0 : instructionCount * 1000000000L / elapsedTime));
+    }
+
+    /**
+     * Define input and output devices shared by cores, each access is
+     * synchronized
+     */
+    private static final class SharedDevices implements InputDevice, OutputDevice {
+
+        /**
+         * Variable to store wrapped output device
+         */
+        private final OutputDevice output;
+        /**
+         * Variable to store wrapped input device
+         */
+        private final InputDevice input;
+
+        /**
+         * Constructor with wrapped devices
+         *
+         * @param output wrapped output device
+         * @param input wrapped input device
+         */
+        private SharedDevices(OutputDevice output, InputDevice input) {
+            this.output = output;
+            this.input = input;
+        }
+
+        @Override
+        public synchronized int read() {
+            return input.read();
+        }
+
+        @Override
+        public synchronized void writeInt(int value) {
+            output.writeInt(value);
+        }
+
+        @Override
+        public synchronized void writeChar(int value) {
+            output.writeChar(value);
+        }
+
+        @Override
+        public synchronized void flush() {
+            output.flush();
+        }
+    }
+}
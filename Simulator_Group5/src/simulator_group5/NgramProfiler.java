@@ -0,0 +1,130 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Define profiler of opcode sequences of a program or corpus of programs:
+ * <\br>
+ * 1. Walk user, timer and system code of each program slot by slot <\br>
+ * 2. Count each sequence of 2 to SysConfig.MAX_NGRAM_LENGTH opcodes inside a
+ * basic block <\br>
+ * 3. Report most frequent sequences, they are candidates for
+ * Superinstructions.
+ *
+ * @author quyendm
+ */
+public class NgramProfiler {
+
+    /**
+     * start addresses of code regions
+     */
+    private static final int[] REGIONS = {0, SysConfig.TOP_TIMER, SysConfig.TOP_SYSTEM};
+
+    /**
+     * Variable to store count of each sequence, one map per length
+     */
+    private final List<Map<String, int[]>> counts = new ArrayList<>();
+
+    /**
+     * Constructor
+     */
+    public NgramProfiler() {
+        for (int n = 0; n <= SysConfig.MAX_NGRAM_LENGTH; n++) {
+            counts.add(new HashMap<String, int[]>());
+        }
+    }
+
+    /**
+     * count sequences of program file
+     *
+     * @param filePath program text or image file
+     * @throws IOException when read file
+     * @throws IndexOutOfBoundsException when program is too big
+     */
+    public void add(String filePath) throws IOException, IndexOutOfBoundsException {
+        Memory memory = MachineProfile.DEFAULT.createMemory();
+        memory.initialize(filePath);
+        add(memory);
+    }
+
+    /**
+     * count sequences of loaded program
+     *
+     * @param memory with loaded program
+     */
+    public void add(Memory memory) {
+        int[] window = new int[SysConfig.MAX_NGRAM_LENGTH];
+        for (int i = 0; i < REGIONS.length; i++) {
+            int end = Math.min(i + 1 < REGIONS.length ? REGIONS[i + 1] : memory.size(), memory.size());
+            int filled = 0;
+            int address = REGIONS[i];
+            while (address < end) {
+                int opcode = memory.read(address);
+                int size = DecodedProgram.hasOperand(opcode) ? 2 : 1;
+                if (opcode == SysConfig.EMPTY_INSTRUCTION_SET || address + size > end) {
+                    //empty word is not code
+                    filled = 0;
+                    address++;
+                    continue;
+                }
+                System.arraycopy(window, 1, window, 0, window.length - 1);
+                window[window.length - 1] = opcode;
+                filled = Math.min(filled + 1, window.length);
+                for (int n = 2; n <= filled; n++) {
+                    count(window, n);
+                }
+                if (CompiledBlock.isTerminator(opcode)) {
+                    filled = 0;
+                }
+                address += size;
+            }
+        }
+    }
+
+    /**
+     * count sequence of last n opcodes of window
+     */
+    private void count(int[] window, int n) {
+        StringBuilder key = new StringBuilder();
+        for (int i = window.length - n; i < window.length; i++) {
+            if (key.length() > 0) {
+                key.append(' ');
+            }
+            key.append(window[i]);
+        }
+        int[] count = counts.get(n).get(key.toString());
+        if (count == null) {
+            counts.get(n).put(key.toString(), new int[]{1});
+        } else {
+            count[0]++;
+        }
+    }
+
+    /**
+     * write most frequent sequences of each length, one per line: [count]
+     * [opcodes]
+     *
+     * @param out is written
+     */
+    public void report(PrintStream out) {
+        for (int n = 2; n <= SysConfig.MAX_NGRAM_LENGTH; n++) {
+            List<Map.Entry<String, int[]>> entries = new ArrayList<>(counts.get(n).entrySet());
+            entries.sort((a, b) -> b.getValue()[0] != a.getValue()[0]
+                    ? Integer.compare(b.getValue()[0], a.getValue()[0])
+                    : a.getKey().compareTo(b.getKey()));
+            out.println(String.format(Messages.NGRAM_HEADER, n));
+            for (int i = 0; i < entries.size() && i < SysConfig.NGRAM_REPORT_SIZE; i++) {
+                out.println(entries.get(i).getValue()[0] + "\t" + entries.get(i).getKey());
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * Define off-heap Memory: <\br>
+ * 1. Entries are kept in a direct buffer outside heap, in native byte order
+ * <\br>
+ * 2. Heap only holds buffer objects, so many machines do not add to garbage
+ * collection work <\br>
+ * 3. Reset copies written pages back from a direct copy of loaded program.
+ *
+ * @author duynq
+ */
+public class OffHeapMemory extends AbstractMemory {
+
+    /**
+     * entries
+     */
+    private final IntBuffer entries;
+
+    /**
+     * entries of loaded program, restored by reset
+     */
+    private IntBuffer pristineEntries;
+
+    /**
+     * Constructor with size argument
+     *
+     * @param size number of entries
+     */
+    public OffHeapMemory(int size) {
+        super(size);
+        this.entries = allocate(size);
+    }
+
+    /**
+     * Constructor of copy
+     *
+     * @param source memory is copied
+     */
+    private OffHeapMemory(OffHeapMemory source) {
+        super(source);
+        this.entries = allocate(source.size);
+        this.entries.put(source.entries.duplicate());
+        this.pristineEntries = source.pristineEntries;
+    }
+
+    /**
+     * allocate direct buffer of entries
+     *
+     * @param size number of entries
+     * @return buffer whose position is zero
+     */
+    private static IntBuffer allocate(int size) {
+        return ByteBuffer.allocateDirect(size * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    @Override
+    public Memory copy() {
+        return new OffHeapMemory(this);
+    }
+
+    @Override
+    protected int readEntry(int address) {
+        return this.entries.get(address);
+    }
+
+    @Override
+    protected void writeEntry(int address, int value) {
+        this.entries.put(address, value);
+    }
+
+    @Override
+    protected void writeEntries(int address, IntBuffer words, int count) {
+        for (int i = 0; i < count; i++) {
+            this.entries.put(address + i, words.get());
+        }
+    }
+
+    @Override
+    protected void clearEntries() {
+        for (int address = 0; address < this.size; address++) {
+            this.entries.put(address, 0);
+        }
+    }
+
+    @Override
+    protected void saveLoaded() {
+        this.pristineEntries = allocate(this.size);
+        this.pristineEntries.put(this.entries.duplicate());
+    }
+
+    @Override
+    protected void restorePage(int pageIndex) {
+        int start = pageIndex << SysConfig.PAGE_SHIFT;
+        int end = Math.min(start + SysConfig.PAGE_SIZE, this.size);
+        for (int address = start; address < end; address++) {
+            this.entries.put(address, this.pristineEntries.get(address));
+        }
+    }
+}
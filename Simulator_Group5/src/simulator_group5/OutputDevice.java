@@ -0,0 +1,34 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+/**
+ * Define output device where port instruction of CPU writes: <\br>
+ * 1. Port 1 writes AC as an int and a new line <\br>
+ * 2. Port 2 writes AC as a char
+ *
+ * @author duynq
+ */
+public interface OutputDevice {
+
+    /**
+     * write value as an int followed by a new line
+     *
+     * @param value is written
+     */
+    void writeInt(int value);
+
+    /**
+     * write value as a char
+     *
+     * @param value is written
+     */
+    void writeChar(int value);
+
+    /**
+     * flush written values to their destination
+     */
+    void flush();
+}
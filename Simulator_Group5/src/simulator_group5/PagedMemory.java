@@ -0,0 +1,141 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Define sparse paged Memory: <\br>
+ * 1. Entries are kept in pages of SysConfig.PAGE_SIZE words, pages which were
+ * never written share one zero page, so a large mostly empty address space
+ * costs one reference per page <\br>
+ * 2. A page is shared between copies of memory until one of them writes it,
+ * then the writer copies the page first (copy-on-write) <\br>
+ * 3. A page which was already copied is restored in place by reset, so
+ * memory which is reset again and again stops allocating.
+ *
+ * @author duynq
+ */
+public class PagedMemory extends AbstractMemory {
+
+    /**
+     * page which is shared by all untouched parts of memory, never written
+     */
+    private static final int[] ZERO_PAGE = new int[SysConfig.PAGE_SIZE];
+
+    /**
+     * pages of entries
+     */
+    private final int[][] pages;
+
+    /**
+     * version of memory when each page was copied, page can be written in
+     * place only when it equals version of memory
+     */
+    private final int[] pageVersions;
+
+    /**
+     * version of memory, changed when pages are shared with a copy
+     */
+    private int version = 1;
+
+    /**
+     * pages of loaded program, restored by reset
+     */
+    private int[][] pristinePages;
+
+    /**
+     * Constructor with size argument
+     *
+     * @param size number of entries
+     */
+    public PagedMemory(int size) {
+        super(size);
+        this.pages = new int[getPageCount(size)][];
+        Arrays.fill(this.pages, ZERO_PAGE);
+        this.pageVersions = new int[this.pages.length];
+    }
+
+    /**
+     * Constructor of copy, pages are shared until they are written
+     *
+     * @param source memory is copied
+     */
+    private PagedMemory(PagedMemory source) {
+        super(source);
+        this.pages = source.pages.clone();
+        this.pageVersions = new int[this.pages.length];
+        this.pristinePages = source.pristinePages;
+    }
+
+    /**
+     * copy memory in time proportional to number of pages, both memories
+     * share pages and copy a page when they write it
+     *
+     * @return copy of memory
+     */
+    @Override
+    public Memory copy() {
+        //pages written in place so far become shared
+        version++;
+        return new PagedMemory(this);
+    }
+
+    /**
+     * get page which can be written in place, copy it if it is shared
+     *
+     * @param pageIndex index of page
+     * @return page
+     */
+    private int[] getWritablePage(int pageIndex) {
+        int[] page = this.pages[pageIndex];
+        if (this.pageVersions[pageIndex] != version) {
+            page = page.clone();
+            this.pages[pageIndex] = page;
+            this.pageVersions[pageIndex] = version;
+        }
+        return page;
+    }
+
+    @Override
+    protected int readEntry(int address) {
+        return this.pages[address >> SysConfig.PAGE_SHIFT][address & SysConfig.PAGE_MASK];
+    }
+
+    @Override
+    protected void writeEntry(int address, int value) {
+        getWritablePage(address >> SysConfig.PAGE_SHIFT)[address & SysConfig.PAGE_MASK] = value;
+    }
+
+    @Override
+    protected void writeEntries(int address, IntBuffer words, int count) {
+        words.get(getWritablePage(address >> SysConfig.PAGE_SHIFT),
+                address & SysConfig.PAGE_MASK, count);
+    }
+
+    @Override
+    protected void clearEntries() {
+        Arrays.fill(this.pages, ZERO_PAGE);
+        Arrays.fill(this.pageVersions, 0);
+    }
+
+    @Override
+    protected void saveLoaded() {
+        //loaded pages become shared with pristine copy
+        this.pristinePages = this.pages.clone();
+        version++;
+    }
+
+    @Override
+    protected void restorePage(int pageIndex) {
+        if (this.pageVersions[pageIndex] == version) {
+            System.arraycopy(this.pristinePages[pageIndex], 0,
+                    this.pages[pageIndex], 0, SysConfig.PAGE_SIZE);
+        } else {
+            this.pages[pageIndex] = this.pristinePages[pageIndex];
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+/**
+ * Define priority policy: <\br>
+ * 1. A process runs only when no process of higher priority is ready <\br>
+ * 2. Processes of same priority run in turn, each for one timer interrupt
+ * <\br>
+ * Priority of a process never changes, so a process of low priority waits
+ * until all processes of higher priority end.
+ *
+ * @author duynq
+ */
+public class PriorityPolicy implements SchedulingPolicy {
+
+    /**
+     * Variable to store ready processes, one level per priority
+     */
+    private final ReadyQueue queue = new ReadyQueue(SysConfig.PRIORITY_LEVELS);
+
+    @Override
+    public void add(ProcessControlBlock process) {
+        queue.add(process, process.getPriority());
+    }
+
+    @Override
+    public ProcessControlBlock next() {
+        return queue.poll();
+    }
+
+    @Override
+    public int getQuantum(ProcessControlBlock process) {
+        return 1;
+    }
+
+    @Override
+    public void expire(ProcessControlBlock process) {
+        queue.add(process, process.getPriority());
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+}
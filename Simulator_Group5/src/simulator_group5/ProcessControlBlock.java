@@ -0,0 +1,284 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+/**
+ * Define process control block: <\br>
+ * 1. Registers, mode, timer counter and status of run which CPU saves when
+ * it switches away from the process and restores when it switches back <\br>
+ * 2. Memory image of process with its decoded instruction stream, built when
+ * process first runs <\br>
+ * 3. Link and level of ready queue, so a process is queued without any
+ * allocation <\br>
+ * Saved state is written only by CPU, queue state only by ready queue.
+ *
+ * @author duynq
+ */
+public class ProcessControlBlock {
+
+    /**
+     * Define state of process
+     */
+    public enum State {
+        /**
+         * process waits in ready queue
+         */
+        READY,
+        /**
+         * process runs on CPU
+         */
+        RUNNING,
+        /**
+         * process ended, faulted or reached its maximum number of
+         * instructions
+         */
+        TERMINATED
+    }
+
+    /**
+     * Variable to store id of process
+     */
+    private final int pid;
+    /**
+     * Variable to store program file of process
+     */
+    private final String fileName;
+    /**
+     * Variable to store priority, 0 is highest
+     */
+    private final int priority;
+    /**
+     * Variable to store state of process
+     */
+    private State state = State.READY;
+    /**
+     * Variable to store number of times process was switched to
+     */
+    private long dispatchCount;
+
+    /**
+     * Variable to store saved PC register
+     */
+    int pcReg;
+    /**
+     * Variable to store saved AC register
+     */
+    int acReg;
+    /**
+     * Variable to store saved SP register
+     */
+    int spReg;
+    /**
+     * Variable to store saved X register
+     */
+    int xReg;
+    /**
+     * Variable to store saved Y register
+     */
+    int yReg;
+    /**
+     * Variable to store saved IR register
+     */
+    int irReg;
+    /**
+     * Variable to store saved CPU mode
+     */
+    int mode = SysConfig.USER_MODE;
+    /**
+     * Variable to store saved timer counter
+     */
+    int counter;
+    /**
+     * Variable to store status of process is running or not
+     */
+    boolean isRunning = true;
+    /**
+     * Variable to store number of executed instructions
+     */
+    long instructionCount;
+    /**
+     * Variable to store number of instructions saved by superinstructions
+     */
+    long fusedDispatchCount;
+    /**
+     * Variable to store number of instructions where process is stopped
+     */
+    final long instructionLimit;
+    /**
+     * Variable to store fault of process, null when it did not fault
+     */
+    Fault fault;
+    /**
+     * Variable to store id of command which faulted
+     */
+    int faultCommand;
+    /**
+     * Variable to store detail of fault
+     */
+    String faultDetail;
+    /**
+     * Variable to store memory image of process
+     */
+    Memory memory;
+    /**
+     * Variable to store decoded instruction stream of memory, null until
+     * process first runs
+     */
+    DecodedProgram decodedProgram;
+    /**
+     * Variable to store compiled blocks of decoded instruction stream
+     */
+    BlockCache blockCache;
+    /**
+     * Variable to store slots which are never executed in user mode, null
+     * when it is not proved
+     */
+    boolean[] systemOnlySlots;
+    /**
+     * Variable to store status of code is verified or not
+     */
+    boolean isCodeVerified;
+    /**
+     * Variable to store device where port instructions of process write
+     */
+    final OutputDevice output;
+    /**
+     * Variable to store device where get instructions of process read
+     */
+    final InputDevice input;
+
+    /**
+     * Variable to store next process in same level of ready queue
+     */
+    ProcessControlBlock next;
+    /**
+     * Variable to store level of ready queue where process was last queued
+     */
+    int level;
+
+    /**
+     * Constructor with program memory image and devices
+     *
+     * @param pid id of process
+     * @param fileName program file of process
+     * @param priority priority, 0 is highest
+     * @param memory memory image of process, program is loaded
+     * @param systemOnlySlots slots which are never executed in user mode,
+     * null when it is not proved
+     * @param maxInstructions maximum number of instructions of process
+     * @param output device where port instructions write
+     * @param input device where get instructions read
+     */
+    ProcessControlBlock(int pid, String fileName, int priority, Memory memory,
+            boolean[] systemOnlySlots, long maxInstructions, OutputDevice output,
+            InputDevice input) {
+        this.pid = pid;
+        this.fileName = fileName;
+        this.priority = priority;
+        this.memory = memory;
+        this.systemOnlySlots = systemOnlySlots;
+        this.isCodeVerified = true;
+        this.instructionLimit = maxInstructions;
+        this.output = output;
+        this.input = input;
+    }
+
+    /**
+     * get id of process
+     *
+     * @return id of process
+     */
+    public int getPid() {
+        return pid;
+    }
+
+    /**
+     * get program file
+     *
+     * @return program file of process
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * get priority
+     *
+     * @return priority, 0 is highest
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * get state
+     *
+     * @return state of process
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * get number of times process was switched to
+     *
+     * @return number of dispatches
+     */
+    public long getDispatchCount() {
+        return dispatchCount;
+    }
+
+    /**
+     * get number of executed instructions
+     *
+     * @return number of executed instructions
+     */
+    public long getInstructionCount() {
+        return instructionCount;
+    }
+
+    /**
+     * mark process as running
+     */
+    void dispatch() {
+        state = State.RUNNING;
+        dispatchCount++;
+    }
+
+    /**
+     * mark process as ready after it was preempted
+     */
+    void preempt() {
+        state = State.READY;
+    }
+
+    /**
+     * mark process as terminated and drop its memory image
+     */
+    void terminate() {
+        state = State.TERMINATED;
+        memory = null;
+        decodedProgram = null;
+        blockCache = null;
+    }
+
+    /**
+     * build result of process
+     *
+     * @return result of run of process
+     */
+    public RunResult getResult() {
+        RunResult.ExitReason exitReason;
+        if (fault != null) {
+            exitReason = RunResult.ExitReason.FAULT;
+        } else if (isRunning) {
+            exitReason = RunResult.ExitReason.LIMIT;
+        } else {
+            exitReason = RunResult.ExitReason.HALTED;
+        }
+        return new RunResult(exitReason, fault, faultCommand, faultDetail,
+                instructionCount, instructionCount - fusedDispatchCount);
+    }
+}
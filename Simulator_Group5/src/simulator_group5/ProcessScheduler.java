@@ -0,0 +1,274 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Define scheduler of processes on one CPU: <\br>
+ * 1. Each process has its own memory image, copied from program which is
+ * loaded once per file (paged memory shares pages until they are written,
+ * other backends copy whole memory), and its own control block <\br>
+ * 2. Policy chooses next process, it runs until the timer interrupt of its
+ * quantum is delivered, then CPU saves it and switches to next process <\br>
+ * 3. Handler of timer interrupt runs when preempted process is switched to
+ * again, so each process runs exactly as it would run alone <\br>
+ * 4. A process ends when its program ends, faults or reaches its maximum
+ * number of instructions, its memory image is dropped then <\br>
+ * Context switch allocates nothing: registers are copied between CPU and
+ * control blocks and ready queues are linked through control blocks.
+ *
+ * @author quyendm
+ */
+public class ProcessScheduler {
+
+    /**
+     * name of round robin policy
+     */
+    public static final String POLICY_ROUND_ROBIN = "rr";
+
+    /**
+     * name of priority policy
+     */
+    public static final String POLICY_PRIORITY = "priority";
+
+    /**
+     * name of multilevel feedback policy
+     */
+    public static final String POLICY_FEEDBACK = "mlfq";
+
+    /**
+     * Variable to store CPU which runs all processes
+     */
+    private final CPU cpu;
+    /**
+     * Variable to store policy which chooses next process
+     */
+    private final SchedulingPolicy policy;
+    /**
+     * Variable to store profile of memory images
+     */
+    private final MachineProfile profile;
+    /**
+     * Variable to store loaded program of each file
+     */
+    private final Map<String, LoadedProgram> programs = new HashMap<>();
+    /**
+     * Variable to store all processes, in order of creation
+     */
+    private final List<ProcessControlBlock> processes = new ArrayList<>();
+    /**
+     * Variable to store number of context switches
+     */
+    private long contextSwitchCount;
+    /**
+     * Variable to store time of runs in nanoseconds
+     */
+    private long elapsedTime;
+
+    /**
+     * Constructor with interrupt time, policy and machine profile
+     *
+     * @param interruptTime time for interrupt of every process
+     * @param policy policy which chooses next process
+     * @param profile profile of memory images
+     */
+    public ProcessScheduler(int interruptTime, SchedulingPolicy policy, MachineProfile profile) {
+        this.cpu = new CPU(interruptTime, null, null, profile);
+        this.policy = policy;
+        this.profile = profile;
+    }
+
+    /**
+     * create process which is ready to run
+     *
+     * @param fileName program file, it is loaded once for all its processes
+     * @param priority priority, 0 is highest
+     * @param maxInstructions maximum number of instructions of process
+     * @param output device where port instructions of process write
+     * @param input device where get instructions of process read
+     * @return control block of process
+     * @throws IOException when read file
+     * @throws IndexOutOfBoundsException when memory is full
+     * @throws IllegalArgumentException when priority is not a level of ready
+     * queue
+     */
+    public ProcessControlBlock create(String fileName, int priority, long maxInstructions,
+            OutputDevice output, InputDevice input)
+            throws IOException, IndexOutOfBoundsException, IllegalArgumentException {
+        if (priority < 0 || priority >= SysConfig.PRIORITY_LEVELS) {
+            throw new IllegalArgumentException(Messages.ERR_PRIORITY);
+        }
+        LoadedProgram program = programs.get(fileName);
+        if (program == null) {
+            Memory memory = profile.createMemory();
+            memory.initialize(fileName);
+            program = new LoadedProgram(memory, ProgramVerifier.verify(memory));
+            programs.put(fileName, program);
+        }
+        ProcessControlBlock process = new ProcessControlBlock(processes.size(), fileName,
+                priority, program.memory.copy(), program.systemOnlySlots, maxInstructions,
+                output, input);
+        processes.add(process);
+        policy.add(process);
+        return process;
+    }
+
+    /**
+     * run processes until all of them are terminated
+     */
+    public void run() {
+        long start = System.nanoTime();
+        ProcessControlBlock process;
+        while ((process = policy.next()) != null) {
+            cpu.restoreContext(process);
+            process.dispatch();
+            contextSwitchCount++;
+            boolean isReady = true;
+            for (int quantum = policy.getQuantum(process); quantum > 0 && isReady; quantum--) {
+                isReady = cpu.runUntilPreempted();
+            }
+            cpu.saveContext(process);
+            if (isReady) {
+                process.preempt();
+                policy.expire(process);
+            } else {
+                process.output.flush();
+                process.terminate();
+            }
+        }
+        elapsedTime += System.nanoTime() - start;
+    }
+
+    /**
+     * get all processes
+     *
+     * @return processes in order of creation, index is id of process
+     */
+    public List<ProcessControlBlock> getProcesses() {
+        return processes;
+    }
+
+    /**
+     * get number of context switches
+     *
+     * @return number of times a process was switched to
+     */
+    public long getContextSwitchCount() {
+        return contextSwitchCount;
+    }
+
+    /**
+     * write one line per process and summary
+     *
+     * @param out is written report
+     */
+    public void report(PrintStream out) {
+        long instructionCount = 0;
+        for (ProcessControlBlock process : processes) {
+            RunResult result = process.getResult();
+            instructionCount += result.getInstructionCount();
+            out.println(String.format(Messages.PROCESS_RESULT, process.getPid(),
+                    process.getFileName(), process.getPriority(), result.getExitReason(),
+                    result.getInstructionCount(), process.getDispatchCount(),
+                    result.getMessage() == null ? "" : result.getMessage()));
+        }
+        long perSecond = elapsedTime == 0 ? 0 : contextSwitchCount * 1000000000L / elapsedTime;
+        out.println(String.format(Messages.SCHEDULE_SUMMARY, processes.size(),
+                contextSwitchCount, perSecond, instructionCount));
+    }
+
+    /**
+     * create policy from its name
+     *
+     * @param name rr, priority or mlfq
+     * @return new policy
+     * @throws IllegalArgumentException when name is not a policy
+     */
+    public static SchedulingPolicy createPolicy(String name) throws IllegalArgumentException {
+        switch (name) {
+            case POLICY_ROUND_ROBIN:
+                return new RoundRobinPolicy();
+            case POLICY_PRIORITY:
+                return new PriorityPolicy();
+            case POLICY_FEEDBACK:
+                return new FeedbackPolicy();
+            default:
+                throw new IllegalArgumentException(Messages.ERR_SCHEDULE_FORMAT);
+        }
+    }
+
+    /**
+     * run processes from command line, all processes write to screen and
+     * read random input
+     *
+     * @param policyName rr, priority or mlfq
+     * @param interruptTime time for interrupt
+     * @param copies number of processes of each program
+     * @param programs program files, each with optional priority after
+     * separator
+     * @throws IOException when read program
+     */
+    public static void runSchedule(String policyName, int interruptTime, int copies,
+            String[] programs) throws IOException {
+        if (copies < 1) {
+            throw new IllegalArgumentException(Messages.ERR_SCHEDULE_FORMAT);
+        }
+        ProcessScheduler scheduler = new ProcessScheduler(interruptTime,
+                createPolicy(policyName), MachineProfile.DEFAULT);
+        OutputDevice output = new StreamOutputDevice(System.out,
+                StreamOutputDevice.FlushPolicy.LINE);
+        RandomInputDevice input = new RandomInputDevice(System.nanoTime());
+        for (String program : programs) {
+            String fileName = program;
+            int priority = 0;
+            int separator = program.lastIndexOf(SysConfig.PRIORITY_SEPARATOR);
+            if (separator > 0 && separator < program.length() - 1
+                    && program.substring(separator + 1).matches("\\d+")) {
+                fileName = program.substring(0, separator);
+                priority = Integer.parseInt(program.substring(separator + 1));
+            }
+            for (int i = 0; i < copies; i++) {
+                scheduler.create(fileName, priority, Long.MAX_VALUE, output, input);
+            }
+        }
+        scheduler.run();
+        output.flush();
+        scheduler.report(System.out);
+    }
+
+    /**
+     * Define program which is loaded once, memory image of each process is
+     * copied from it
+     */
+    private static final class LoadedProgram {
+
+        /**
+         * Variable to store memory where program is loaded
+         */
+        private final Memory memory;
+        /**
+         * Variable to store slots which are never executed in user mode,
+         * null when it is not proved
+         */
+        private final boolean[] systemOnlySlots;
+
+        /**
+         * Constructor with memory and verified slots
+         *
+         * @param memory memory where program is loaded
+         * @param systemOnlySlots slots which are never executed in user mode
+         */
+        private LoadedProgram(Memory memory, boolean[] systemOnlySlots) {
+            this.memory = memory;
+            this.systemOnlySlots = systemOnlySlots;
+        }
+    }
+}
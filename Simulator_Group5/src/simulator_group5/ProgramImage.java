@@ -0,0 +1,172 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Define binary program image: <\br>
+ * 1. Header: magic, version, number of sections <\br>
+ * 2. Each section: start address, number of words, words <\br>
+ * 3. One section for each used region: user, timer and system <\br>
+ * All values are big-endian 32-bit integers. Image is mapped into memory and
+ * copied to Memory section by section, no word is parsed.
+ *
+ * @author duynq
+ */
+public class ProgramImage {
+
+    /**
+     * magic number of image: "SG5I"
+     */
+    public static final int MAGIC = 0x53473549;
+
+    /**
+     * version of image format
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * size in bytes of header
+     */
+    private static final int HEADER_SIZE = 12;
+
+    /**
+     * size in bytes of section header
+     */
+    private static final int SECTION_HEADER_SIZE = 8;
+
+    /**
+     * start addresses of regions, one section is written for each used region
+     */
+    private static final int[] REGIONS = {0, SysConfig.TOP_TIMER, SysConfig.TOP_SYSTEM};
+
+    /**
+     * check file is program image or not
+     *
+     * @param filePath path of file
+     * @return true if file starts with magic number of image, false if file
+     * can not be read
+     */
+    public static boolean isProgramImage(String filePath) {
+        try (RandomAccessFile file = new RandomAccessFile(filePath, "r")) {
+            return file.length() >= HEADER_SIZE && file.readInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * load image file into memory
+     *
+     * @param filePath path of image
+     * @param memory is loaded
+     * @throws IOException when read file or image is invalid
+     * @throws IndexOutOfBoundsException when a section is outside memory
+     */
+    public static void load(String filePath, Memory memory)
+            throws IOException, IndexOutOfBoundsException {
+        try (RandomAccessFile file = new RandomAccessFile(filePath, "r");
+                FileChannel channel = file.getChannel()) {
+            load(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), memory);
+        }
+    }
+
+    /**
+     * load image which is already in a buffer into memory, buffer is read
+     * from its position
+     *
+     * @param buffer bytes of image
+     * @param memory is loaded
+     * @throws IOException when image is invalid
+     * @throws IndexOutOfBoundsException when a section is outside memory
+     */
+    public static void load(ByteBuffer buffer, Memory memory)
+            throws IOException, IndexOutOfBoundsException {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC
+                || buffer.getInt() != VERSION) {
+            throw new IOException(Messages.ERR_INVALID_IMAGE);
+        }
+        int sectionCount = buffer.getInt();
+        for (int i = 0; i < sectionCount; i++) {
+            if (buffer.remaining() < SECTION_HEADER_SIZE) {
+                throw new IOException(Messages.ERR_INVALID_IMAGE);
+            }
+            int address = buffer.getInt();
+            int length = buffer.getInt();
+            if (length < 0 || buffer.remaining() / 4 < length) {
+                throw new IOException(Messages.ERR_INVALID_IMAGE);
+            }
+            IntBuffer words = buffer.asIntBuffer();
+            words.limit(length);
+            memory.write(address, words);
+            buffer.position(buffer.position() + length * 4);
+        }
+    }
+
+    /**
+     * convert program text file to image
+     *
+     * @param textPath path of program text file
+     * @param imagePath path of image is written
+     * @throws IOException when read or write file
+     * @throws IndexOutOfBoundsException when program is too big
+     */
+    public static void convert(String textPath, String imagePath)
+            throws IOException, IndexOutOfBoundsException {
+        Memory memory = MachineProfile.DEFAULT.createMemory();
+        memory.initialize(textPath);
+        write(memory, imagePath);
+    }
+
+    /**
+     * write used regions of memory to image
+     *
+     * @param memory is written
+     * @param imagePath path of image is written
+     * @throws IOException when write file
+     */
+    public static void write(Memory memory, String imagePath) throws IOException {
+        int[] starts = new int[REGIONS.length];
+        int[] lengths = new int[REGIONS.length];
+        int sectionCount = 0;
+        int size = HEADER_SIZE;
+        for (int i = 0; i < REGIONS.length; i++) {
+            int start = REGIONS[i];
+            int end = i + 1 < REGIONS.length ? REGIONS[i + 1] : memory.size();
+            end = Math.min(end, memory.size());
+            //trailing zero words are not stored
+            while (end > start && memory.read(end - 1) == 0) {
+                end--;
+            }
+            if (end > start) {
+                starts[sectionCount] = start;
+                lengths[sectionCount] = end - start;
+                size += SECTION_HEADER_SIZE + lengths[sectionCount] * 4;
+                sectionCount++;
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(sectionCount);
+        for (int i = 0; i < sectionCount; i++) {
+            buffer.putInt(starts[i]).putInt(lengths[i]);
+            for (int address = starts[i]; address < starts[i] + lengths[i]; address++) {
+                buffer.putInt(memory.read(address));
+            }
+        }
+        buffer.flip();
+        try (RandomAccessFile file = new RandomAccessFile(imagePath, "rw");
+                FileChannel channel = file.getChannel()) {
+            channel.truncate(0);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
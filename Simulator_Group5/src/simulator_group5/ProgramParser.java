@@ -0,0 +1,255 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Define parser of program text file: <\br>
+ * 1. Each line starting with an integer (optionally negative) is one word,
+ * the rest of the line is comment <\br>
+ * 2. Line ".NNNN" moves load address to NNNN, NNNN must be inside memory
+ * <\br>
+ * 3. Every other line is comment <\br>
+ * File is read once through a buffered channel byte by byte, integers are
+ * parsed in place and no object is created per line.
+ *
+ * @author duynq
+ */
+public class ProgramParser {
+
+    /**
+     * size in bytes of read buffer
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * end of file
+     */
+    private static final int EOF = -1;
+
+    /**
+     * Variable to store channel of file
+     */
+    private final FileChannel channel;
+    /**
+     * Variable to store memory is loaded
+     */
+    private final Memory memory;
+    /**
+     * Variable to store read buffer
+     */
+    private final byte[] bytes;
+    /**
+     * Variable to store read buffer wrapping bytes
+     */
+    private final ByteBuffer buffer;
+    /**
+     * Variable to store position of next byte in buffer
+     */
+    private int position;
+    /**
+     * Variable to store number of bytes in buffer
+     */
+    private int limit;
+    /**
+     * Variable to store current line, from 1
+     */
+    private int line;
+    /**
+     * Variable to store column of next byte, from 1
+     */
+    private int column;
+
+    /**
+     * Constructor with channel and memory
+     *
+     * @param channel of file
+     * @param memory is loaded
+     */
+    private ProgramParser(FileChannel channel, Memory memory) {
+        this.channel = channel;
+        this.memory = memory;
+        this.bytes = new byte[BUFFER_SIZE];
+        this.buffer = ByteBuffer.wrap(bytes);
+        this.line = 1;
+        this.column = 1;
+    }
+
+    /**
+     * parse program text file into memory
+     *
+     * @param filePath path of program text file
+     * @param memory is loaded
+     * @throws IOException when read file or file is malformed
+     * @throws IndexOutOfBoundsException when memory is full
+     */
+    public static void parse(String filePath, Memory memory)
+            throws IOException, IndexOutOfBoundsException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+        } catch (IOException | InvalidPathException e) {
+            throw new IOException(Messages.ERR_FILE_NOT_FOUND);
+        }
+        try {
+            new ProgramParser(channel, memory).parse();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * parse all lines
+     */
+    private void parse() throws IOException, IndexOutOfBoundsException {
+        int address = 0;
+        int character = skipSpaces();
+        while (character != EOF) {
+            if (character == '.' && isDigit(peek())) {
+                //address directive
+                int directiveLine = line;
+                int directiveColumn = column - 1;
+                address = parseNumber(next(), false);
+                if (address >= memory.size()) {
+                    throw new IOException(String.format(Messages.ERR_MALFORMED_PROGRAM,
+                            directiveLine, directiveColumn, Messages.ERR_ADDRESS_OUTSIDE_MEMORY));
+                }
+            } else if (character == '-' && isDigit(peek())) {
+                checkMemoryIsFullForAddress(address);
+                memory.write(address++, parseNumber(next(), true));
+            } else if (isDigit(character)) {
+                checkMemoryIsFullForAddress(address);
+                memory.write(address++, parseNumber(character, false));
+            }
+            skipLine();
+            character = skipSpaces();
+        }
+    }
+
+    /**
+     * parse digits starting at first digit which is already read, stop at
+     * first byte which is not digit
+     *
+     * @param firstDigit first digit of number
+     * @param isNegative number has minus sign
+     * @return number
+     */
+    private int parseNumber(int firstDigit, boolean isNegative) throws IOException {
+        int startColumn = column - 1;
+        long limitValue = isNegative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+        long value = firstDigit - '0';
+        while (isDigit(peek())) {
+            value = value * 10 + (next() - '0');
+            if (value > limitValue) {
+                throw new IOException(String.format(Messages.ERR_MALFORMED_PROGRAM,
+                        line, startColumn, Messages.ERR_NUMBER_TOO_BIG));
+            }
+        }
+        return (int) (isNegative ? -value : value);
+    }
+
+    /**
+     * skip spaces and empty lines
+     *
+     * @return first byte which is not space, or EOF
+     */
+    private int skipSpaces() throws IOException {
+        int character = next();
+        while (character != EOF && character <= ' ') {
+            character = next();
+        }
+        return character;
+    }
+
+    /**
+     * skip rest of current line
+     */
+    private void skipLine() throws IOException {
+        int character = peek();
+        while (character != EOF && character != '\n' && character != '\r') {
+            next();
+            character = peek();
+        }
+    }
+
+    /**
+     * Check memory if full or not, if full throw IndexofBound Error
+     */
+    private void checkMemoryIsFullForAddress(int address)
+            throws IndexOutOfBoundsException {
+        if (address == SysConfig.BOTTOM_USER) {
+            throw new IndexOutOfBoundsException(Messages.ERR_IN_USER_MODE);
+        } else if (address == SysConfig.TOP_SYSTEM - 1) {
+            throw new IndexOutOfBoundsException(Messages.ERR_IN_SYSTEM_MODE);
+        }
+    }
+
+    /**
+     * read next byte and move line and column
+     *
+     * @return next byte, or EOF
+     */
+    private int next() throws IOException {
+        if (position == limit && !fill()) {
+            return EOF;
+        }
+        int character = bytes[position++] & 0xFF;
+        if (character == '\n' || (character == '\r' && peek() != '\n')) {
+            line++;
+            column = 1;
+        } else {
+            column++;
+        }
+        return character;
+    }
+
+    /**
+     * look at next byte without reading it
+     *
+     * @return next byte, or EOF
+     */
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return EOF;
+        }
+        return bytes[position] & 0xFF;
+    }
+
+    /**
+     * fill buffer from channel
+     *
+     * @return false when end of file
+     */
+    private boolean fill() throws IOException {
+        buffer.clear();
+        int count;
+        try {
+            count = channel.read(buffer);
+            while (count == 0) {
+                count = channel.read(buffer);
+            }
+        } catch (IOException e) {
+            throw new IOException(Messages.ERR_FILE_NOT_FOUND);
+        }
+        position = 0;
+        limit = Math.max(count, 0);
+        return count > 0;
+    }
+
+    /**
+     * check character is digit or not
+     *
+     * @param character is check return true if character is digit
+     */
+    private static boolean isDigit(int character) {
+        return (character >= '0' && character <= '9');
+    }
+}
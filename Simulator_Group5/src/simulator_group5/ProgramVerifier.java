@@ -0,0 +1,253 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+/**
+ * Define load-time verifier of a program: <\br>
+ * 1. Follow control flow from user entry (address 0), timer entry
+ * (SysConfig.TOP_TIMER) and system entry (SysConfig.TOP_SYSTEM) <\br>
+ * 2. Prove which slots can never be executed in user mode, so a load or store
+ * of system memory in such a slot needs no privilege check <\br>
+ * 3. Give up, so every slot keeps its checks, when control flow is not static:
+ * push or pop of AC, copy of AC to SP, call, ret or int outside user mode,
+ * store into a stack or into code, or code inside a stack. <\br>
+ * Load or store of user memory needs no check in any mode, DecodedProgram
+ * decides that for each slot without verifier.
+ *
+ * @author duynq
+ */
+public final class ProgramVerifier {
+
+    /**
+     * number of modes: user, timer and system
+     */
+    private static final int MODE_COUNT = 3;
+
+    /**
+     * number of words of frame which int and timer push on system stack
+     */
+    private static final int FRAME_SIZE = 5;
+
+    /**
+     * Variable to store memory which is verified
+     */
+    private final Memory memory;
+    /**
+     * Variable to store size of memory
+     */
+    private final int size;
+    /**
+     * Variable to store status of each slot is reached or not, per mode
+     */
+    private final boolean[][] isReached;
+    /**
+     * Variable to store status of each word is part of reached code or not
+     */
+    private final boolean[] isCodeWord;
+    /**
+     * Variable to store modes of slots waiting to be visited
+     */
+    private final int[] pendingModes;
+    /**
+     * Variable to store addresses of slots waiting to be visited
+     */
+    private final int[] pendingAddresses;
+    /**
+     * Variable to store number of slots waiting to be visited
+     */
+    private int pendingCount;
+    /**
+     * Variable to store addresses written by reached store instructions
+     */
+    private final boolean[] isStoreTarget;
+    /**
+     * Variable to store status of control flow is static or not
+     */
+    private boolean isStatic = true;
+
+    /**
+     * Constructor with memory argument
+     *
+     * @param memory is verified
+     */
+    private ProgramVerifier(Memory memory) {
+        this.memory = memory;
+        this.size = memory.size();
+        this.isReached = new boolean[MODE_COUNT][size];
+        this.isCodeWord = new boolean[size];
+        this.isStoreTarget = new boolean[size];
+        this.pendingModes = new int[MODE_COUNT * size];
+        this.pendingAddresses = new int[MODE_COUNT * size];
+    }
+
+    /**
+     * verify loaded program
+     *
+     * @param memory with loaded program
+     * @return status of each slot can never be executed in user mode, null
+     * when control flow is not static
+     */
+    public static boolean[] verify(Memory memory) {
+        ProgramVerifier verifier = new ProgramVerifier(memory);
+        verifier.reach(SysConfig.USER_MODE, 0);
+        verifier.reach(SysConfig.TIMER_MODE, 0);
+        while (verifier.isStatic && verifier.pendingCount > 0) {
+            verifier.pendingCount--;
+            verifier.visit(verifier.pendingModes[verifier.pendingCount],
+                    verifier.pendingAddresses[verifier.pendingCount]);
+        }
+        if (!verifier.isStatic || !verifier.checkWrites()) {
+            return null;
+        }
+        boolean[] isSystemOnly = new boolean[verifier.size];
+        boolean[] isUserReached = verifier.isReached[SysConfig.USER_MODE];
+        for (int address = 0; address < verifier.size; address++) {
+            isSystemOnly[address] = !isUserReached[address];
+        }
+        return isSystemOnly;
+    }
+
+    /**
+     * get base address of PC in mode
+     *
+     * @param mode of CPU
+     * @return address of PC 0
+     */
+    private static int getBase(int mode) {
+        switch (mode) {
+            case SysConfig.USER_MODE:
+                return 0;
+            case SysConfig.TIMER_MODE:
+                return SysConfig.TOP_TIMER;
+            default:
+                return SysConfig.TOP_SYSTEM;
+        }
+    }
+
+    /**
+     * mark slot at PC as reached in mode, CPU faults only when base of mode
+     * plus PC is outside memory, so negative PC of timer or system mode
+     * reaches user memory
+     *
+     * @param mode of CPU
+     * @param pc value of PC
+     */
+    private void reach(int mode, int pc) {
+        int address = getBase(mode) + pc;
+        if (address < 0 || address >= size) {
+            return;
+        }
+        if (!isReached[mode][address]) {
+            isReached[mode][address] = true;
+            pendingModes[pendingCount] = mode;
+            pendingAddresses[pendingCount] = address;
+            pendingCount++;
+        }
+    }
+
+    /**
+     * visit reached slot: record its words and reach its successors
+     *
+     * @param mode of CPU
+     * @param address of slot
+     */
+    private void visit(int mode, int address) {
+        int opcode = memory.read(address);
+        boolean hasOperand = DecodedProgram.hasOperand(opcode);
+        if (hasOperand && address + 1 >= size) {
+            //CPU faults when operand is outside memory
+            return;
+        }
+        int operand = hasOperand ? memory.read(address + 1) : 0;
+        int pc = address - getBase(mode);
+        int nextPc = pc + (hasOperand ? 2 : 1);
+        isCodeWord[address] = true;
+        if (hasOperand) {
+            isCodeWord[address + 1] = true;
+        }
+        boolean isUser = mode == SysConfig.USER_MODE;
+        switch (opcode) {
+            case 7:
+            case 32:
+            case 33:
+                if (operand >= 0 && operand < size) {
+                    isStoreTarget[operand] = true;
+                }
+                reach(mode, nextPc);
+                break;
+            case 18:
+                //stack may be moved anywhere, so ret may pop any word
+                isStatic = false;
+                reach(mode, nextPc);
+                break;
+            case 20:
+                reach(mode, operand);
+                break;
+            case 21:
+            case 22:
+                reach(mode, operand);
+                reach(mode, nextPc);
+                break;
+            case 23:
+                //return site is reached by ret of callee
+                isStatic &= isUser;
+                reach(mode, operand);
+                reach(mode, nextPc);
+                break;
+            case 24:
+                //targets are return sites which are reached by calls
+                isStatic &= isUser;
+                break;
+            case 27:
+            case 28:
+                //value of AC on stack may be popped as return address
+                isStatic = false;
+                break;
+            case 29:
+                //return site is reached by iret of system code
+                isStatic &= isUser;
+                reach(SysConfig.SYSTEM_MODE, 0);
+                reach(mode, nextPc);
+                break;
+            case 30:
+            case 50:
+            case SysConfig.EMPTY_INSTRUCTION_SET:
+                break;
+            default:
+                reach(mode, nextPc);
+                break;
+        }
+    }
+
+    /**
+     * check no store changes code or stacks and no code is inside a stack
+     *
+     * @return true if writes keep control flow static
+     */
+    private boolean checkWrites() {
+        for (int address = 0; address < size; address++) {
+            if (isStoreTarget[address] && isCodeWord[address]) {
+                return false;
+            }
+            if ((isStoreTarget[address] || isCodeWord[address]) && isStack(address)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * check address is inside user stack or frame on system stack
+     *
+     * @param address of memory
+     * @return true if stack instructions may write address
+     */
+    private static boolean isStack(int address) {
+        return (address >= SysConfig.BOTTOM_USER - SysConfig.USER_STACK_LIMIT
+                && address <= SysConfig.BOTTOM_USER)
+                || (address > SysConfig.BOTTOM_SYSTEM - FRAME_SIZE
+                && address <= SysConfig.BOTTOM_SYSTEM);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+/**
+ * Define input device which gives random ints from 0 to 9: <\br>
+ * 1. Seeded once, same seed gives same values <\br>
+ * 2. Not synchronized, one device belongs to one CPU <\br>
+ * 3. Split gives an independent device, so devices split in a fixed order
+ * give the same values on every run <\br>
+ * Generator is SplitMix64, the algorithm of java.util.SplittableRandom,
+ * written here so its state can be copied.
+ *
+ * @author duynq
+ */
+public class RandomInputDevice implements InputDevice {
+
+    /**
+     * default gamma of generator
+     */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /**
+     * Variable to store state of generator
+     */
+    private long seed;
+    /**
+     * Variable to store increment of state, always odd
+     */
+    private final long gamma;
+
+    /**
+     * Constructor with seed
+     *
+     * @param seed of generator
+     */
+    public RandomInputDevice(long seed) {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    /**
+     * Constructor with state of generator
+     *
+     * @param seed state of generator
+     * @param gamma increment of state
+     */
+    private RandomInputDevice(long seed, long gamma) {
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+
+    @Override
+    public int read() {
+        return nextInt(SysConfig.RANDOM_INPUT_BOUND);
+    }
+
+    /**
+     * get random int from 0 to bound - 1
+     *
+     * @param bound upper bound, exclusive
+     * @return random int
+     */
+    public int nextInt(int bound) {
+        //unsigned high bits modulo bound, bias is negligible for small bound
+        return (int) ((mix64(nextSeed()) >>> 1) % bound);
+    }
+
+    /**
+     * split independent device, this device also moves forward
+     *
+     * @return new device
+     */
+    public RandomInputDevice split() {
+        return new RandomInputDevice(mix64(nextSeed()), mixGamma(nextSeed()));
+    }
+
+    /**
+     * copy device, copy gives same values as this device
+     *
+     * @return new device with same state
+     */
+    public RandomInputDevice copy() {
+        return new RandomInputDevice(seed, gamma);
+    }
+
+    /**
+     * move state forward
+     *
+     * @return new state
+     */
+    private long nextSeed() {
+        return seed += gamma;
+    }
+
+    /**
+     * mix bits of value
+     */
+    private static long mix64(long value) {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * mix bits of value into an odd gamma with enough bit changes
+     */
+    private static long mixGamma(long value) {
+        long z = value;
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        int n = Long.bitCount(z ^ (z >>> 1));
+        return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+/**
+ * Define ready queue of processes: <\br>
+ * 1. One first-in first-out list per level, level 0 is served first <\br>
+ * 2. Lists are linked through process control blocks, so add and poll never
+ * allocate <\br>
+ * 3. A bit per level tells which lists are not empty, poll finds the first
+ * of them in constant time <\br>
+ * 4. All levels can be merged into one in time of number of levels.
+ *
+ * @author duynq
+ */
+public class ReadyQueue {
+
+    /**
+     * Variable to store first process of each level
+     */
+    private final ProcessControlBlock[] heads;
+    /**
+     * Variable to store last process of each level
+     */
+    private final ProcessControlBlock[] tails;
+    /**
+     * Variable to store levels which are not empty, one bit per level
+     */
+    private int nonEmptyLevels;
+    /**
+     * Variable to store number of queued processes
+     */
+    private int size;
+
+    /**
+     * Constructor with number of levels
+     *
+     * @param levelCount number of levels
+     * @throws IllegalArgumentException when number of levels is not from 1
+     * to SysConfig.MAX_READY_LEVELS
+     */
+    public ReadyQueue(int levelCount) throws IllegalArgumentException {
+        if (levelCount < 1 || levelCount > SysConfig.MAX_READY_LEVELS) {
+            throw new IllegalArgumentException(Messages.ERR_READY_LEVELS);
+        }
+        heads = new ProcessControlBlock[levelCount];
+        tails = new ProcessControlBlock[levelCount];
+    }
+
+    /**
+     * add process at end of level
+     *
+     * @param process is added, it must not be queued
+     * @param level of queue
+     */
+    public void add(ProcessControlBlock process, int level) {
+        process.next = null;
+        process.level = level;
+        if (tails[level] == null) {
+            heads[level] = process;
+            nonEmptyLevels |= 1 << level;
+        } else {
+            tails[level].next = process;
+        }
+        tails[level] = process;
+        size++;
+    }
+
+    /**
+     * remove first process of first level which is not empty
+     *
+     * @return process, its level is the level it was removed from, null when
+     * queue is empty
+     */
+    public ProcessControlBlock poll() {
+        if (nonEmptyLevels == 0) {
+            return null;
+        }
+        int level = Integer.numberOfTrailingZeros(nonEmptyLevels);
+        ProcessControlBlock process = heads[level];
+        heads[level] = process.next;
+        if (heads[level] == null) {
+            tails[level] = null;
+            nonEmptyLevels &= ~(1 << level);
+        }
+        process.next = null;
+        process.level = level;
+        size--;
+        return process;
+    }
+
+    /**
+     * move all processes to end of first level, in order of their levels
+     */
+    public void mergeIntoFirstLevel() {
+        for (int level = 1; level < heads.length; level++) {
+            if (heads[level] == null) {
+                continue;
+            }
+            if (tails[0] == null) {
+                heads[0] = heads[level];
+            } else {
+                tails[0].next = heads[level];
+            }
+            tails[0] = tails[level];
+            heads[level] = null;
+            tails[level] = null;
+        }
+        //level of each process is set again when it is polled
+        nonEmptyLevels = size == 0 ? 0 : 1;
+    }
+
+    /**
+     * get number of levels
+     *
+     * @return number of levels
+     */
+    public int getLevelCount() {
+        return heads.length;
+    }
+
+    /**
+     * get number of queued processes
+     *
+     * @return number of queued processes
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+/**
+ * Define round robin policy: processes run in turn, each for one timer
+ * interrupt
+ *
+ * @author duynq
+ */
+public class RoundRobinPolicy implements SchedulingPolicy {
+
+    /**
+     * Variable to store ready processes
+     */
+    private final ReadyQueue queue = new ReadyQueue(1);
+
+    @Override
+    public void add(ProcessControlBlock process) {
+        queue.add(process, 0);
+    }
+
+    @Override
+    public ProcessControlBlock next() {
+        return queue.poll();
+    }
+
+    @Override
+    public int getQuantum(ProcessControlBlock process) {
+        return 1;
+    }
+
+    @Override
+    public void expire(ProcessControlBlock process) {
+        queue.add(process, 0);
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+/**
+ * Define result of a run of CPU: <\br>
+ * 1. Exit reason <\br>
+ * 2. Fault and command id when run stopped with fault <\br>
+ * 3. Number of executed instructions and of dispatches <\br>
+ * 4. Address where run stopped at a breakpoint or watchpoint
+ *
+ * @author quyendm
+ */
+public class RunResult {
+
+    /**
+     * Define why run ended
+     */
+    public enum ExitReason {
+        /**
+         * program ended
+         */
+        HALTED,
+        /**
+         * run stopped with fault
+         */
+        FAULT,
+        /**
+         * maximum number of instructions is reached
+         */
+        LIMIT,
+        /**
+         * run stopped before instruction at a breakpoint
+         */
+        BREAKPOINT,
+        /**
+         * run stopped after instruction which accessed a watched address
+         */
+        WATCHPOINT
+    }
+
+    /**
+     * Variable to store exit reason
+     */
+    private final ExitReason exitReason;
+    /**
+     * Variable to store fault, null if there is none
+     */
+    private final Fault fault;
+    /**
+     * Variable to store id of command which faulted
+     */
+    private final int faultCommand;
+    /**
+     * Variable to store message of load or device error
+     */
+    private final String faultDetail;
+    /**
+     * Variable to store number of executed instructions
+     */
+    private final long instructionCount;
+    /**
+     * Variable to store number of dispatches
+     */
+    private final long dispatchCount;
+    /**
+     * Variable to store address of breakpoint or watched access, -1 if run
+     * did not stop at one
+     */
+    private final int stopAddress;
+
+    /**
+     * Constructor with all values but stop address
+     *
+     * @param exitReason why run ended
+     * @param fault fault, null if there is none
+     * @param faultCommand id of command which faulted
+     * @param faultDetail message of load or device error
+     * @param instructionCount number of executed instructions
+     * @param dispatchCount number of dispatches
+     */
+    public RunResult(ExitReason exitReason, Fault fault, int faultCommand,
+            String faultDetail, long instructionCount, long dispatchCount) {
+        this(exitReason, fault, faultCommand, faultDetail, instructionCount, dispatchCount, -1);
+    }
+
+    /**
+     * Constructor with all values
+     *
+     * @param exitReason why run ended
+     * @param fault fault, null if there is none
+     * @param faultCommand id of command which faulted
+     * @param faultDetail message of load or device error
+     * @param instructionCount number of executed instructions
+     * @param dispatchCount number of dispatches
+     * @param stopAddress address of breakpoint or watched access, -1 if run
+     * did not stop at one
+     */
+    public RunResult(ExitReason exitReason, Fault fault, int faultCommand,
+            String faultDetail, long instructionCount, long dispatchCount, int stopAddress) {
+        this.exitReason = exitReason;
+        this.fault = fault;
+        this.faultCommand = faultCommand;
+        this.faultDetail = faultDetail;
+        this.instructionCount = instructionCount;
+        this.dispatchCount = dispatchCount;
+        this.stopAddress = stopAddress;
+    }
+
+    /**
+     * get exit reason
+     *
+     * @return why run ended
+     */
+    public ExitReason getExitReason() {
+        return exitReason;
+    }
+
+    /**
+     * get fault
+     *
+     * @return fault, null if run did not stop with fault
+     */
+    public Fault getFault() {
+        return fault;
+    }
+
+    /**
+     * get id of command which faulted
+     *
+     * @return command id
+     */
+    public int getFaultCommand() {
+        return faultCommand;
+    }
+
+    /**
+     * get number of executed instructions
+     *
+     * @return number of executed instructions
+     */
+    public long getInstructionCount() {
+        return instructionCount;
+    }
+
+    /**
+     * get number of dispatches, a superinstruction is dispatched once for
+     * all its instructions
+     *
+     * @return number of dispatches
+     */
+    public long getDispatchCount() {
+        return dispatchCount;
+    }
+
+    /**
+     * get address where run stopped
+     *
+     * @return address of breakpoint or of watched access, -1 if run did not
+     * stop at one
+     */
+    public int getStopAddress() {
+        return stopAddress;
+    }
+
+    /**
+     * get message of fault, it is built on each call
+     *
+     * @return message, null if run did not stop with fault
+     */
+    public String getMessage() {
+        return fault == null ? null : fault.format(faultCommand, faultDetail);
+    }
+}
@@ -0,0 +1,437 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Define sampling profiler of simulated programs: <\br>
+ * 1. CPU stops every sample interval instructions and records address of PC
+ * and current simulated call stack <\br>
+ * 2. Call stack is a shadow of Call and Ret, Int, timer interrupt and IRet,
+ * kept as a tree of frames so a sample allocates nothing <\br>
+ * 3. Report collapsed stacks, one line per stack, which flame graph tools
+ * read, and table of hottest addresses. <\br>
+ * Frames are named [region]@[address], region is user, timer or system.
+ * Frames deeper than SysConfig.PROFILE_MAX_DEPTH are folded into one frame
+ * named truncated.
+ *
+ * @author duynq
+ */
+public class SamplingProfiler {
+
+    /**
+     * initial size of table of frames called from a frame, a power of two
+     */
+    private static final int INITIAL_CHILDREN = 4;
+
+    /**
+     * address of frame which holds all frames deeper than maximum depth
+     */
+    private static final int TRUNCATED = -1;
+
+    /**
+     * Define frame of call tree
+     */
+    private static final class Frame {
+
+        /**
+         * Variable to store address where frame starts
+         */
+        private final int address;
+        /**
+         * Variable to store status of frame is entered by interrupt or not
+         */
+        private final boolean isInterrupt;
+        /**
+         * Variable to store caller frame, null for root
+         */
+        private final Frame parent;
+        /**
+         * Variable to store number of frames from program start to this frame
+         */
+        private final int depth;
+        /**
+         * Variable to store frames called from this frame, open addressing
+         * table probed by address and kind, null before first call
+         */
+        private Frame[] children;
+        /**
+         * Variable to store number of frames called from this frame
+         */
+        private int childCount;
+        /**
+         * Variable to store number of samples taken in this frame
+         */
+        private long samples;
+
+        /**
+         * Constructor with address, kind and caller
+         */
+        private Frame(int address, boolean isInterrupt, Frame parent) {
+            this.address = address;
+            this.isInterrupt = isInterrupt;
+            this.parent = parent;
+            this.depth = parent == null ? 0 : parent.depth + 1;
+        }
+
+        /**
+         * get frame called from this frame, created on first call. Lookup
+         * allocates nothing.
+         */
+        private Frame enter(int address, boolean isInterrupt) {
+            if (children == null) {
+                children = new Frame[INITIAL_CHILDREN];
+            }
+            int mask = children.length - 1;
+            int index = hash(address, isInterrupt) & mask;
+            Frame child;
+            while ((child = children[index]) != null) {
+                //interrupt frame and call of same address are different frames
+                if (child.address == address && child.isInterrupt == isInterrupt) {
+                    return child;
+                }
+                index = (index + 1) & mask;
+            }
+            child = new Frame(address, isInterrupt, this);
+            children[index] = child;
+            if (++childCount * 2 > children.length) {
+                grow();
+            }
+            return child;
+        }
+
+        /**
+         * double table of called frames
+         */
+        private void grow() {
+            Frame[] old = children;
+            children = new Frame[old.length * 2];
+            int mask = children.length - 1;
+            for (Frame child : old) {
+                if (child != null) {
+                    int index = hash(child.address, child.isInterrupt) & mask;
+                    while (children[index] != null) {
+                        index = (index + 1) & mask;
+                    }
+                    children[index] = child;
+                }
+            }
+        }
+
+        /**
+         * get hash of address and kind of frame
+         */
+        private static int hash(int address, boolean isInterrupt) {
+            int hash = address * 0x9E3779B9 + (isInterrupt ? 1 : 0);
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    /**
+     * Variable to store number of instructions between samples
+     */
+    private final int interval;
+    /**
+     * Variable to store frame of program start
+     */
+    private final Frame root = new Frame(0, false, null);
+    /**
+     * Variable to store current frame
+     */
+    private Frame current = root;
+    /**
+     * Variable to store number of calls and interrupts folded into current
+     * frame when it is truncated frame
+     */
+    private int foldedCount;
+    /**
+     * Variable to store folded count of each folded interrupt, newest last,
+     * so IRet leaves calls of handler too
+     */
+    private final int[] foldedInterrupts = new int[SysConfig.PROFILE_MAX_DEPTH];
+    /**
+     * Variable to store number of folded interrupts which are recorded
+     */
+    private int foldedInterruptCount;
+    /**
+     * Variable to store samples of each address of memory
+     */
+    private long[] addressSamples = new long[0];
+    /**
+     * Variable to store number of samples
+     */
+    private long sampleCount;
+    /**
+     * Variable to store number of executed instructions at next sample
+     */
+    private long nextSample;
+
+    /**
+     * Constructor with sample interval
+     *
+     * @param interval number of instructions between samples
+     */
+    public SamplingProfiler(int interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException(Messages.ERR_SAMPLE_FORMAT);
+        }
+        this.interval = interval;
+        this.nextSample = interval;
+    }
+
+    /**
+     * start a new run of program: call stack goes back to program start and
+     * next sample is one interval away, samples are kept
+     *
+     * @param instructionCount number of executed instructions of machine
+     */
+    public void restart(long instructionCount) {
+        current = root;
+        foldedCount = 0;
+        foldedInterruptCount = 0;
+        nextSample = instructionCount + interval;
+    }
+
+    /**
+     * get number of executed instructions at which next sample is taken
+     *
+     * @return number of instructions
+     */
+    public long getNextSample() {
+        return nextSample;
+    }
+
+    /**
+     * take sample when machine reached next sample
+     *
+     * @param instructionCount number of executed instructions of machine
+     * @param address of memory where PC points
+     */
+    public void sample(long instructionCount, int address) {
+        if (instructionCount < nextSample) {
+            return;
+        }
+        nextSample = instructionCount + interval;
+        current.samples++;
+        sampleCount++;
+        if (address < 0) {
+            return;
+        }
+        if (address >= addressSamples.length) {
+            long[] grown = new long[Math.max(address + 1, SysConfig.MEMORY_SIZE)];
+            System.arraycopy(addressSamples, 0, grown, 0, addressSamples.length);
+            addressSamples = grown;
+        }
+        addressSamples[address]++;
+    }
+
+    /**
+     * record Call
+     *
+     * @param address of memory where called routine starts
+     */
+    public void call(int address) {
+        enter(address, false);
+    }
+
+    /**
+     * record Ret, a Ret without matching Call keeps program start frame
+     */
+    public void ret() {
+        if (foldedCount > 0) {
+            //Ret does not leave folded interrupt, as it does not leave interrupt frame
+            if (foldedInterruptCount == 0
+                    || foldedInterrupts[foldedInterruptCount - 1] != foldedCount) {
+                leaveFolded(foldedCount - 1);
+            }
+            return;
+        }
+        if (current.parent != null && !current.isInterrupt) {
+            current = current.parent;
+        }
+    }
+
+    /**
+     * record Int or timer interrupt
+     *
+     * @param address of memory where handler starts
+     */
+    public void interrupt(int address) {
+        enter(address, true);
+    }
+
+    /**
+     * enter frame called from current frame, or fold it into truncated frame
+     * when current frame is at maximum depth
+     *
+     * @param address of memory where frame starts
+     * @param isInterrupt frame is entered by interrupt or not
+     */
+    private void enter(int address, boolean isInterrupt) {
+        if (foldedCount == 0 && current.depth < SysConfig.PROFILE_MAX_DEPTH) {
+            current = current.enter(address, isInterrupt);
+            return;
+        }
+        if (foldedCount == 0) {
+            current = current.enter(TRUNCATED, false);
+        }
+        foldedCount++;
+        if (isInterrupt) {
+            if (foldedInterruptCount == foldedInterrupts.length) {
+                //oldest interrupt is forgotten, its IRet leaves truncated frame
+                System.arraycopy(foldedInterrupts, 1, foldedInterrupts, 0,
+                        foldedInterruptCount - 1);
+                foldedInterruptCount--;
+            }
+            foldedInterrupts[foldedInterruptCount++] = foldedCount;
+        }
+    }
+
+    /**
+     * leave folded frames until folded count, truncated frame is left at 0
+     *
+     * @param count number of folded frames which are kept
+     */
+    private void leaveFolded(int count) {
+        foldedCount = count;
+        if (foldedCount == 0) {
+            current = current.parent;
+        }
+    }
+
+    /**
+     * record IRet, frames called by handler are left too
+     */
+    public void interruptReturn() {
+        if (foldedCount > 0) {
+            if (foldedInterruptCount > 0) {
+                leaveFolded(foldedInterrupts[--foldedInterruptCount] - 1);
+                return;
+            }
+            //interrupt is not folded, it is left below truncated frame
+            leaveFolded(0);
+        }
+        Frame frame = current;
+        while (frame.parent != null && !frame.isInterrupt) {
+            frame = frame.parent;
+        }
+        if (frame.isInterrupt) {
+            current = frame.parent;
+        }
+    }
+
+    /**
+     * get number of samples
+     *
+     * @return number of samples
+     */
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * write collapsed stacks, one line per stack with samples: frames from
+     * program start separated by semicolon, space and number of samples
+     *
+     * @param out is written
+     */
+    public void writeCollapsed(PrintStream out) {
+        //walk tree without recursion: callees of each frame on path and next one
+        int maxDepth = SysConfig.PROFILE_MAX_DEPTH + 2;
+        List<List<Frame>> callees = new ArrayList<>(maxDepth);
+        int[] nextCallees = new int[maxDepth];
+        int[] stackLengths = new int[maxDepth];
+        StringBuilder stack = new StringBuilder(getFrameName(root.address));
+        writeSamples(out, stack, root);
+        callees.add(getSortedCallees(root));
+        stackLengths[0] = stack.length();
+        while (!callees.isEmpty()) {
+            int level = callees.size() - 1;
+            if (nextCallees[level] == callees.get(level).size()) {
+                callees.remove(level);
+                continue;
+            }
+            Frame frame = callees.get(level).get(nextCallees[level]++);
+            stack.setLength(stackLengths[level]);
+            stack.append(';').append(getFrameName(frame.address));
+            writeSamples(out, stack, frame);
+            callees.add(getSortedCallees(frame));
+            nextCallees[level + 1] = 0;
+            stackLengths[level + 1] = stack.length();
+        }
+    }
+
+    /**
+     * write line of frame when it has samples
+     */
+    private static void writeSamples(PrintStream out, StringBuilder stack, Frame frame) {
+        if (frame.samples > 0) {
+            out.println(stack + " " + frame.samples);
+        }
+    }
+
+    /**
+     * get frames called from frame sorted by address, call before interrupt
+     */
+    private static List<Frame> getSortedCallees(Frame frame) {
+        List<Frame> children = new ArrayList<>(frame.childCount);
+        if (frame.children != null) {
+            for (Frame child : frame.children) {
+                if (child != null) {
+                    children.add(child);
+                }
+            }
+        }
+        children.sort((a, b) -> a.address != b.address ? Integer.compare(a.address, b.address)
+                : Boolean.compare(a.isInterrupt, b.isInterrupt));
+        return children;
+    }
+
+    /**
+     * write addresses with most samples, one per line: [address] [samples]
+     * [percent of samples]
+     *
+     * @param out is written
+     */
+    public void reportHotAddresses(PrintStream out) {
+        List<Integer> addresses = new ArrayList<>();
+        for (int address = 0; address < addressSamples.length; address++) {
+            if (addressSamples[address] > 0) {
+                addresses.add(address);
+            }
+        }
+        addresses.sort((a, b) -> addressSamples[a] != addressSamples[b]
+                ? Long.compare(addressSamples[b], addressSamples[a]) : Integer.compare(a, b));
+        out.println(String.format(Messages.HOT_ADDRESS_HEADER, sampleCount, interval));
+        for (int i = 0; i < addresses.size() && i < SysConfig.HOT_ADDRESS_REPORT_SIZE; i++) {
+            int address = addresses.get(i);
+            out.println(getFrameName(address) + "\t" + addressSamples[address] + "\t"
+                    + String.format("%.1f%%", addressSamples[address] * 100.0 / sampleCount));
+        }
+    }
+
+    /**
+     * get name of address: region and address
+     *
+     * @param address of memory
+     * @return name of address
+     */
+    private static String getFrameName(int address) {
+        String region;
+        if (address == TRUNCATED) {
+            return "truncated";
+        } else if (address < SysConfig.TOP_TIMER) {
+            region = "user";
+        } else if (address < SysConfig.TOP_SYSTEM) {
+            region = "timer";
+        } else {
+            region = "system";
+        }
+        return region + "@" + address;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+/**
+ * Define policy which chooses the next process to run: <\br>
+ * 1. Processes which are ready wait in the policy <\br>
+ * 2. A process runs for a quantum of timer interrupts, then it is given back
+ * to the policy <\br>
+ * 3. Every operation takes constant time and allocates nothing.
+ *
+ * @author duynq
+ */
+public interface SchedulingPolicy {
+
+    /**
+     * add new process which is ready
+     *
+     * @param process is added
+     */
+    void add(ProcessControlBlock process);
+
+    /**
+     * remove process which runs next
+     *
+     * @return process, null when no process is ready
+     */
+    ProcessControlBlock next();
+
+    /**
+     * get quantum of process which was removed by next
+     *
+     * @param process runs
+     * @return number of timer interrupts before process is preempted
+     */
+    int getQuantum(ProcessControlBlock process);
+
+    /**
+     * give back process which was preempted at end of its quantum
+     *
+     * @param process is ready again
+     */
+    void expire(ProcessControlBlock process);
+
+    /**
+     * get number of ready processes
+     *
+     * @return number of processes which wait in policy
+     */
+    int size();
+}
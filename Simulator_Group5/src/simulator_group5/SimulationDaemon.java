@@ -0,0 +1,365 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.InputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Define daemon which runs programs for clients, so a run does not pay for
+ * starting the JVM and compiled code of simulator stays warm: <\br>
+ * 1. Daemon listens on a TCP port of loopback address only, each connection
+ * is served by its own thread and can send many requests <\br>
+ * 2. Request is one line: [file name] [interrupt time] [max instructions]
+ * [seed=N] [tape=file] [profile=backend:size] [image=base64], all but first
+ * two are optional, image is sent inline instead of read from file <\br>
+ * 3. Each request runs on a new machine, output of program is sent as it is
+ * written, line by line <\br>
+ * 4. Request without max instructions stops after
+ * SysConfig.DAEMON_MAX_INSTRUCTIONS, so a run which nobody waits for ends
+ * <\br>
+ * Reply is text, one frame per line: "O line" for a line of output, "P text"
+ * for output without end of line, then "R json" with result record of
+ * request, so shell script or nc can read it. Job without seed or tape gets
+ * random input seeded from clock, as on command line.
+ *
+ * @author quyendm
+ */
+public class SimulationDaemon implements Closeable {
+
+    /**
+     * Variable to store socket which accepts connections
+     */
+    private final ServerSocket server;
+    /**
+     * Variable to store threads which serve connections
+     */
+    private final ExecutorService connections;
+
+    /**
+     * Constructor with port
+     *
+     * @param port port of loopback address, 0 to choose a free one
+     * @throws IOException when port can not be bound
+     */
+    public SimulationDaemon(int port) throws IOException {
+        this.server = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+        this.connections = Executors.newCachedThreadPool();
+    }
+
+    /**
+     * get port which daemon listens on
+     *
+     * @return port
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * accept connections until daemon is closed
+     *
+     * @throws IOException when accept fails while daemon is open
+     */
+    public void serve() throws IOException {
+        while (true) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException e) {
+                if (server.isClosed()) {
+                    return;
+                }
+                throw e;
+            }
+            connections.execute(() -> serve(socket));
+        }
+    }
+
+    /**
+     * stop accepting connections, requests which run are finished
+     *
+     * @throws IOException when socket can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        server.close();
+        connections.shutdown();
+    }
+
+    /**
+     * run requests of one connection until client closes it
+     *
+     * @param socket connection of client
+     */
+    private void serve(Socket socket) {
+        try (Socket client = socket;
+                BufferedReader reader = new BufferedReader(new InputStreamReader(
+                        client.getInputStream(), StandardCharsets.UTF_8));
+                BufferedOutputStream out = new BufferedOutputStream(
+                        client.getOutputStream())) {
+            client.setTcpNoDelay(true);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                byte[] result = runRequest(line, out).getBytes(StandardCharsets.UTF_8);
+                writeFrame(out, SysConfig.FRAME_RESULT, result, 0, result.length);
+                out.flush();
+            }
+        } catch (IOException | UncheckedIOException e) {
+            //client is gone, nothing is left to answer
+        }
+    }
+
+    /**
+     * run one request, its output is sent to client while it runs
+     *
+     * @param spec request in format [file name] [interrupt time] [max
+     * instructions] [seed=N] [tape=file] [profile=backend:size]
+     * [image=base64]
+     * @param out stream of connection
+     * @return JSON result record
+     */
+    private String runRequest(String spec, OutputStream out) {
+        String[] args = spec.split("\\s+");
+        String fileName = args[0];
+        int interruptTime = -1;
+        long maxInstructions = SysConfig.DAEMON_MAX_INSTRUCTIONS;
+        InputDevice input = null;
+        String tapeName = null;
+        byte[] image = null;
+        MachineProfile profile = MachineProfile.DEFAULT;
+        try {
+            if (args.length >= 2) {
+                interruptTime = Integer.parseInt(args[1]);
+            }
+            for (int i = 2; i < args.length; i++) {
+                if (args[i].startsWith(SysConfig.MANIFEST_SEED)) {
+                    input = new RandomInputDevice(Long.parseLong(
+                            args[i].substring(SysConfig.MANIFEST_SEED.length())));
+                } else if (args[i].startsWith(SysConfig.MANIFEST_TAPE)) {
+                    tapeName = args[i].substring(SysConfig.MANIFEST_TAPE.length());
+                } else if (args[i].startsWith(SysConfig.MANIFEST_PROFILE)) {
+                    profile = MachineProfile.parse(
+                            args[i].substring(SysConfig.MANIFEST_PROFILE.length()));
+                } else if (args[i].startsWith(SysConfig.DAEMON_IMAGE)) {
+                    image = Base64.getDecoder().decode(
+                            args[i].substring(SysConfig.DAEMON_IMAGE.length()));
+                } else if (i == 2) {
+                    maxInstructions = Long.parseLong(args[i]);
+                } else {
+                    interruptTime = -1;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            interruptTime = -1;
+        }
+        if (interruptTime < 0 || maxInstructions < 0) {
+            return toJson(fileName, interruptTime, BatchRunner.EXIT_ERROR, 0, 0, 0,
+                    Messages.ERR_DAEMON_REQUEST);
+        }
+        if (tapeName != null) {
+            try {
+                input = TapeInputDevice.load(tapeName);
+            } catch (IOException e) {
+                return toJson(fileName, interruptTime, BatchRunner.EXIT_ERROR, 0, 0, 0,
+                        e.getMessage());
+            }
+        }
+        if (input == null) {
+            input = new RandomInputDevice(System.nanoTime());
+        }
+        OutputDevice output = new StreamOutputDevice(new FrameOutputStream(out),
+                StreamOutputDevice.FlushPolicy.LINE);
+        long start = System.nanoTime();
+        CPU cpu = new CPU(interruptTime, output, input, profile);
+        cpu.setMaxInstructions(maxInstructions);
+        if (image == null) {
+            cpu.load(fileName);
+        } else {
+            cpu.load(ByteBuffer.wrap(image));
+        }
+        RunResult result = cpu.run();
+        long wallTime = System.nanoTime() - start;
+        return toJson(fileName, interruptTime, BatchRunner.exitName(result.getExitReason()),
+                result.getInstructionCount(), result.getDispatchCount(), wallTime,
+                result.getMessage());
+    }
+
+    /**
+     * write one frame: type, space, bytes and end of line
+     *
+     * @param out stream of connection
+     * @param type type of frame
+     * @param bytes array of bytes of frame, without end of line
+     * @param offset first byte of frame in array
+     * @param length number of bytes of frame
+     * @throws IOException when write to connection
+     */
+    private static void writeFrame(OutputStream out, int type, byte[] bytes, int offset,
+            int length) throws IOException {
+        out.write(type);
+        out.write(' ');
+        out.write(bytes, offset, length);
+        out.write('\n');
+    }
+
+    /**
+     * build JSON line of result
+     */
+    private static String toJson(String fileName, int interruptTime, String exit,
+            long instructions, long dispatches, long wallTimeNanos, String error) {
+        return "{\"file\":" + Json.quote(fileName)
+                + ",\"interruptTime\":" + interruptTime
+                + ",\"exit\":" + Json.quote(exit)
+                + ",\"instructions\":" + instructions
+                + ",\"dispatches\":" + dispatches
+                + ",\"wallTimeNanos\":" + wallTimeNanos
+                + ",\"error\":" + Json.quote(error)
+                + "}";
+    }
+
+    /**
+     * run daemon from command line until process is stopped
+     *
+     * @param port port of loopback address
+     * @param out is written port when daemon is ready
+     * @throws IOException when port can not be bound
+     */
+    public static void runDaemon(int port, PrintStream out) throws IOException {
+        try (SimulationDaemon daemon = new SimulationDaemon(port)) {
+            out.println(String.format(Messages.DAEMON_LISTENING, daemon.getPort()));
+            out.flush();
+            daemon.serve();
+        }
+    }
+
+    /**
+     * run program on daemon like from command line: output of program is
+     * written to stream and result record is not written, simclient.sh does
+     * the same without JVM
+     *
+     * @param fileName program file, it is sent as absolute path
+     * @param interruptTime time for interrupt
+     * @param port port of daemon on loopback address
+     * @param out is written output of program
+     * @throws IOException when daemon can not be reached or is lost
+     */
+    public static void runClient(String fileName, int interruptTime, int port, OutputStream out)
+            throws IOException {
+        String request = new File(fileName).getAbsolutePath() + " " + interruptTime + "\n";
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setTcpNoDelay(true);
+            OutputStream requestStream = socket.getOutputStream();
+            requestStream.write(request.getBytes(StandardCharsets.UTF_8));
+            requestStream.flush();
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            while (true) {
+                int type = in.read();
+                if (type < 0 || in.read() != ' ') {
+                    throw new EOFException();
+                }
+                if (type == SysConfig.FRAME_RESULT) {
+                    return;
+                }
+                int value;
+                while ((value = in.read()) != '\n') {
+                    if (value < 0) {
+                        throw new EOFException();
+                    }
+                    out.write(value);
+                }
+                if (type == SysConfig.FRAME_OUTPUT) {
+                    out.write('\n');
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            throw new IOException(String.format(Messages.ERR_DAEMON_CONNECTION, port, e));
+        } finally {
+            out.flush();
+        }
+    }
+
+    /**
+     * Define stream which sends each line as one output frame, text without
+     * end of line is kept until flush and sent as partial frame
+     */
+    private static final class FrameOutputStream extends OutputStream {
+
+        /**
+         * Variable to store stream of connection
+         */
+        private final OutputStream out;
+        /**
+         * Variable to store bytes of line which is not ended
+         */
+        private byte[] line = new byte[SysConfig.FRAME_LINE_CAPACITY];
+        /**
+         * Variable to store number of bytes of line
+         */
+        private int lineLength;
+
+        /**
+         * Constructor with stream of connection
+         *
+         * @param out stream of connection
+         */
+        private FrameOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int value) throws IOException {
+            if (value == '\n') {
+                writeFrame(out, SysConfig.FRAME_OUTPUT, line, 0, lineLength);
+                lineLength = 0;
+                return;
+            }
+            if (lineLength == line.length) {
+                line = Arrays.copyOf(line, line.length * 2);
+            }
+            line[lineLength++] = (byte) value;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            for (int i = offset; i < offset + length; i++) {
+                write(bytes[i]);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (lineLength > 0) {
+                writeFrame(out, SysConfig.FRAME_PART, line, 0, lineLength);
+                lineLength = 0;
+            }
+            out.flush();
+        }
+    }
+}
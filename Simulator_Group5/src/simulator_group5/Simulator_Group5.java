@@ -4,7 +4,10 @@
  */
 package simulator_group5;
 
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
 
 /**
  * Main function to run application
@@ -15,11 +18,178 @@ public class Simulator_Group5 {
 
     /**
      * @param args the command line arguments input format: <\br>
-     * [file name] [interrupt time]
+     * [file name] [interrupt time] <\br>
+     * --convert [text file] [image file] <\br>
+     * --batch [manifest file] [result file], result file is optional <\br>
+     * --ngrams [file name] ..., report frequent opcode sequences <\br>
+     * --sample [file name] [interrupt time] [stack file] [sample interval],
+     * run with sampling profiler, sample interval is optional <\br>
+     * --record [file name] [interrupt time] [trace file], run and record
+     * execution trace <\br>
+     * --replay [trace file] [instruction], run trace again, or show state
+     * after instruction when it is given <\br>
+     * --fuzz [file name] [interrupt time] [tape|image] [seconds] [output
+     * folder], fuzz input tape or program image and write reproducers <\br>
+     * --schedule [rr|priority|mlfq] [interrupt time] [copies] [file
+     * name[:priority]]..., run copies of each program as processes <\br>
+     * --cores [number of cores] [lockstep|free] [file name] [interrupt time],
+     * run program on cores which share memory <\br>
+     * --lanes [file name] [interrupt time] [number of lanes] [max
+     * instructions], run program in lanes, lane i reads random input of seed
+     * i <\br>
+     * --sweep [file name] [first interrupt time] [last interrupt time] [max
+     * instructions] [checkpoint|full], run program once for each interrupt
+     * time <\br>
+     * --daemon [port], run programs for clients, port is optional <\br>
+     * --client [file name] [interrupt time] [port], run program on daemon,
+     * port is optional
      */
     public static void main(String[] args) {
         try {
-            if (args.length == 2) {
+            if (args.length > 0 && SysConfig.OPTION_CONVERT.equals(args[0])) {
+                if (args.length != 3) {
+                    throw new Exception(Messages.ERR_CONVERT_FORMAT);
+                }
+                //Convert program text file to image
+                ProgramImage.convert(args[1], args[2]);
+            } else if (args.length > 0 && SysConfig.OPTION_BATCH.equals(args[0])) {
+                if (args.length != 2 && args.length != 3) {
+                    throw new Exception(Messages.ERR_BATCH_FORMAT);
+                }
+                //Run jobs of manifest in parallel
+                BatchRunner.runBatch(args[1], args.length == 3 ? args[2] : null);
+            } else if (args.length > 0 && SysConfig.OPTION_NGRAMS.equals(args[0])) {
+                if (args.length < 2) {
+                    throw new Exception(Messages.ERR_NGRAMS_FORMAT);
+                }
+                //Count opcode sequences of corpus
+                NgramProfiler profiler = new NgramProfiler();
+                for (int i = 1; i < args.length; i++) {
+                    profiler.add(args[i]);
+                }
+                profiler.report(System.out);
+            } else if (args.length > 0 && SysConfig.OPTION_SAMPLE.equals(args[0])) {
+                if (args.length != 4 && args.length != 5) {
+                    throw new Exception(Messages.ERR_SAMPLE_FORMAT);
+                }
+                int timeInterrupt = Integer.parseInt(args[2]);
+                if (timeInterrupt < 0) {
+                    throw new NumberFormatException(Messages.ERR_INTERUPTIME);
+                }
+                int interval = args.length == 5 ? Integer.parseInt(args[4])
+                        : SysConfig.DEFAULT_SAMPLE_INTERVAL;
+                //Run program with profiler, then write its reports
+                SamplingProfiler profiler = new SamplingProfiler(interval);
+                CPU cpu = new CPU(timeInterrupt);
+                cpu.setProfiler(profiler);
+                cpu.runs(args[1]);
+                try (PrintStream out = new PrintStream(new FileOutputStream(args[3]), false, "UTF-8")) {
+                    profiler.writeCollapsed(out);
+                }
+                profiler.reportHotAddresses(System.out);
+            } else if (args.length > 0 && SysConfig.OPTION_RECORD.equals(args[0])) {
+                if (args.length != 4) {
+                    throw new Exception(Messages.ERR_RECORD_FORMAT);
+                }
+                int timeInterrupt = Integer.parseInt(args[2]);
+                if (timeInterrupt < 0) {
+                    throw new NumberFormatException(Messages.ERR_INTERUPTIME);
+                }
+                //Run program and record each retired instruction
+                try (TraceRecorder tracer = new TraceRecorder(args[3])) {
+                    CPU cpu = new CPU(timeInterrupt);
+                    cpu.setTracer(tracer);
+                    cpu.runs(args[1]);
+                }
+            } else if (args.length > 0 && SysConfig.OPTION_REPLAY.equals(args[0])) {
+                if (args.length == 2) {
+                    //Run trace again with its input values
+                    TraceReader.reexecute(args[1], new StreamOutputDevice(System.out,
+                            StreamOutputDevice.FlushPolicy.LINE));
+                } else if (args.length == 3) {
+                    //Show state after instruction
+                    long instruction = Long.parseLong(args[2]);
+                    try (TraceReader reader = new TraceReader(args[1])) {
+                        if (instruction < 0 || !reader.seek(instruction)) {
+                            throw new Exception(Messages.ERR_REPLAY_FORMAT);
+                        }
+                        System.out.println(String.format(Messages.TRACE_STATE,
+                                reader.getInstructionCount(), reader.getAddress(),
+                                reader.getOpcode(), reader.getAcReg(), reader.getXReg(),
+                                reader.getYReg(), reader.getSpReg(), reader.getMode()));
+                    }
+                } else {
+                    throw new Exception(Messages.ERR_REPLAY_FORMAT);
+                }
+            } else if (args.length > 0 && SysConfig.OPTION_CORES.equals(args[0])) {
+                if (args.length != 5) {
+                    throw new Exception(Messages.ERR_CORES_FORMAT);
+                }
+                int timeInterrupt = Integer.parseInt(args[4]);
+                if (timeInterrupt < 0) {
+                    throw new NumberFormatException(Messages.ERR_INTERUPTIME);
+                }
+                //Run program on cores which share memory
+                MultiCoreMachine.runCores(Integer.parseInt(args[1]), args[2], args[3],
+                        timeInterrupt, System.out);
+            } else if (args.length > 0 && SysConfig.OPTION_LANES.equals(args[0])) {
+                if (args.length != 5) {
+                    throw new Exception(Messages.ERR_LANES_FORMAT);
+                }
+                int timeInterrupt = Integer.parseInt(args[2]);
+                if (timeInterrupt < 0) {
+                    throw new NumberFormatException(Messages.ERR_INTERUPTIME);
+                }
+                //Run copies of program in lanes which share dispatch
+                LaneEngine.runLanes(args[1], timeInterrupt, Integer.parseInt(args[3]),
+                        Long.parseLong(args[4]), System.out);
+            } else if (args.length > 0 && SysConfig.OPTION_SWEEP.equals(args[0])) {
+                if (args.length != 6) {
+                    throw new Exception(Messages.ERR_SWEEP_FORMAT);
+                }
+                //Run program once for each interrupt time of range
+                InterruptSweep.runSweep(args[1], Integer.parseInt(args[2]),
+                        Integer.parseInt(args[3]), Long.parseLong(args[4]), args[5], System.out);
+            } else if (args.length > 0 && SysConfig.OPTION_DAEMON.equals(args[0])) {
+                if (args.length != 1 && args.length != 2) {
+                    throw new Exception(Messages.ERR_DAEMON_FORMAT);
+                }
+                //Run programs for clients until process is stopped
+                SimulationDaemon.runDaemon(args.length == 2 ? Integer.parseInt(args[1])
+                        : SysConfig.DAEMON_PORT, System.out);
+            } else if (args.length > 0 && SysConfig.OPTION_CLIENT.equals(args[0])) {
+                if (args.length != 3 && args.length != 4) {
+                    throw new Exception(Messages.ERR_CLIENT_FORMAT);
+                }
+                int timeInterrupt = Integer.parseInt(args[2]);
+                if (timeInterrupt < 0) {
+                    throw new NumberFormatException(Messages.ERR_INTERUPTIME);
+                }
+                //Run program on daemon, its output is written to screen
+                SimulationDaemon.runClient(args[1], timeInterrupt, args.length == 4
+                        ? Integer.parseInt(args[3]) : SysConfig.DAEMON_PORT, System.out);
+            } else if (args.length > 0 && SysConfig.OPTION_SCHEDULE.equals(args[0])) {
+                if (args.length < 5) {
+                    throw new Exception(Messages.ERR_SCHEDULE_FORMAT);
+                }
+                int timeInterrupt = Integer.parseInt(args[2]);
+                if (timeInterrupt < 0) {
+                    throw new NumberFormatException(Messages.ERR_INTERUPTIME);
+                }
+                //Run programs as processes which share one CPU
+                ProcessScheduler.runSchedule(args[1], timeInterrupt, Integer.parseInt(args[3]),
+                        Arrays.copyOfRange(args, 4, args.length));
+            } else if (args.length > 0 && SysConfig.OPTION_FUZZ.equals(args[0])) {
+                if (args.length != 6) {
+                    throw new Exception(Messages.ERR_FUZZ_FORMAT);
+                }
+                int timeInterrupt = Integer.parseInt(args[2]);
+                if (timeInterrupt < 0) {
+                    throw new NumberFormatException(Messages.ERR_INTERUPTIME);
+                }
+                //Fuzz program on all processors, then report faults
+                Fuzzer.runFuzzer(args[1], timeInterrupt, args[3], Long.parseLong(args[4]), args[5]);
+            } else if (args.length == 2) {
                 //Read arguments
                 String sfileName = args[0];
                 String sTimeInterrupt = args[1];
@@ -0,0 +1,114 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+
+/**
+ * Define output device which writes to a stream through its own buffer,
+ * buffer is written to stream according to flush policy
+ *
+ * @author duynq
+ */
+public class StreamOutputDevice extends AbstractOutputDevice {
+
+    /**
+     * Define when buffer is written to stream
+     */
+    public enum FlushPolicy {
+        /**
+         * after each value
+         */
+        EVERY_WRITE,
+        /**
+         * after each new line
+         */
+        LINE,
+        /**
+         * only when buffer is full or flush is called
+         */
+        WHEN_FULL
+    }
+
+    /**
+     * default size of buffer
+     */
+    private static final int DEFAULT_CAPACITY = 8192;
+
+    /**
+     * Variable to store stream
+     */
+    private final OutputStream stream;
+    /**
+     * Variable to store flush policy
+     */
+    private final FlushPolicy flushPolicy;
+
+    /**
+     * Constructor with stream and flush policy, chars are encoded with
+     * default charset as on console
+     *
+     * @param stream is written
+     * @param flushPolicy when buffer is written to stream
+     */
+    public StreamOutputDevice(OutputStream stream, FlushPolicy flushPolicy) {
+        this(stream, flushPolicy, DEFAULT_CAPACITY, Charset.defaultCharset());
+    }
+
+    /**
+     * Constructor with stream, flush policy, buffer size and charset
+     *
+     * @param stream is written
+     * @param flushPolicy when buffer is written to stream
+     * @param capacity size of buffer
+     * @param charset charset of non ASCII chars
+     */
+    public StreamOutputDevice(OutputStream stream, FlushPolicy flushPolicy,
+            int capacity, Charset charset) {
+        super(Math.max(capacity, 16), charset);
+        this.stream = stream;
+        this.flushPolicy = flushPolicy;
+    }
+
+    @Override
+    protected void ensureCapacity(int length) {
+        if (count + length > bytes.length) {
+            writeBuffer();
+        }
+    }
+
+    @Override
+    protected void afterWrite(boolean isNewLine) {
+        if (flushPolicy == FlushPolicy.EVERY_WRITE
+                || (flushPolicy == FlushPolicy.LINE && isNewLine)) {
+            flush();
+        }
+    }
+
+    @Override
+    public void flush() {
+        writeBuffer();
+        try {
+            stream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * write buffer to stream and empty it
+     */
+    private void writeBuffer() {
+        try {
+            stream.write(bytes, 0, count);
+            count = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
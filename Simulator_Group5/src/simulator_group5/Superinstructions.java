@@ -0,0 +1,117 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.util.Arrays;
+
+/**
+ * Define superinstructions, each replaces a frequent sequence of
+ * instructions inside a compiled block: <\br>
+ * 1. load value, copy to X (1 v; 14) <\br>
+ * 2. load value, put port (1 v; 9 p), as written by error program <\br>
+ * 3. load verified address, put port (2 a; 9 p) <\br>
+ * 4. decrement X, copy from X, jump if not equal (26; 15; 22 a), tail of
+ * counted loops <\br>
+ * None of them can fault, so a superinstruction runs all or none of its
+ * instructions. Sequences were chosen with NgramProfiler.
+ *
+ * @author duynq
+ */
+public final class Superinstructions {
+
+    /**
+     * Constructor, class has only static methods
+     */
+    private Superinstructions() {
+    }
+
+    /**
+     * build compiled block, fusing sequences of decoded instructions
+     *
+     * @param startAddress start address of block
+     * @param opcodes decoded opcodes
+     * @param operands decoded operands
+     * @param sizes decoded sizes
+     * @param length number of decoded instructions
+     * @return compiled block
+     */
+    public static CompiledBlock fuse(int startAddress, int[] opcodes, int[] operands,
+            int[] sizes, int length) {
+        int[] fusedOpcodes = new int[length];
+        int[] fusedOperands = new int[length];
+        int[] extraOperands = new int[length];
+        int[] fusedSizes = new int[length];
+        int[] instructionCounts = new int[length];
+        int count = 0;
+        int i = 0;
+        while (i < length) {
+            int opcode = getFusedOpcode(opcodes, i, length);
+            int instructionCount = getInstructionCount(opcode);
+            fusedOpcodes[count] = opcode;
+            //operand of loop tail is jump address of its last instruction
+            fusedOperands[count] = instructionCount == 3 ? operands[i + 2] : operands[i];
+            if (instructionCount == 2) {
+                //second operand is port of put
+                extraOperands[count] = operands[i + 1];
+            }
+            for (int j = i; j < i + instructionCount; j++) {
+                fusedSizes[count] += sizes[j];
+            }
+            instructionCounts[count] = instructionCount;
+            count++;
+            i += instructionCount;
+        }
+        return new CompiledBlock(startAddress, Arrays.copyOf(fusedOpcodes, count),
+                Arrays.copyOf(fusedOperands, count), Arrays.copyOf(extraOperands, count),
+                Arrays.copyOf(fusedSizes, count), Arrays.copyOf(instructionCounts, count));
+    }
+
+    /**
+     * get number of instructions of an opcode
+     *
+     * @param opcode of instruction or superinstruction
+     * @return number of instructions replaced by superinstruction, 1 for
+     * other opcodes
+     */
+    public static int getInstructionCount(int opcode) {
+        switch (opcode) {
+            case SysConfig.LOAD_VALUE_COPY_TO_X:
+            case SysConfig.LOAD_VALUE_PUT:
+            case SysConfig.LOAD_ADDR_PUT:
+                return 2;
+            case SysConfig.DEC_X_JUMP_IF_NOT_ZERO:
+                return 3;
+            default:
+                return 1;
+        }
+    }
+
+    /**
+     * get opcode of superinstruction starting at index
+     *
+     * @param opcodes decoded opcodes
+     * @param index of first instruction
+     * @param length number of decoded instructions
+     * @return opcode of superinstruction, or opcode at index when no sequence
+     * starts there
+     */
+    private static int getFusedOpcode(int[] opcodes, int index, int length) {
+        int opcode = opcodes[index];
+        int next = index + 1 < length ? opcodes[index + 1] : -1;
+        if (opcode == 1 && next == 14) {
+            return SysConfig.LOAD_VALUE_COPY_TO_X;
+        }
+        if (opcode == 1 && next == 9) {
+            return SysConfig.LOAD_VALUE_PUT;
+        }
+        if (opcode == SysConfig.LOAD_ADDR_UNCHECKED && next == 9) {
+            return SysConfig.LOAD_ADDR_PUT;
+        }
+        if (opcode == 26 && next == 15 && index + 2 < length && opcodes[index + 2] == 22) {
+            return SysConfig.DEC_X_JUMP_IF_NOT_ZERO;
+        }
+        return opcode;
+    }
+}
@@ -12,9 +12,10 @@ package simulator_group5;
 public class SysConfig {
 
     /**
-     * memory size
+     * memory size of default machine profile, covers user, timer and system
+     * regions
      */
-    public static final int MEMORY_SIZE = 240;
+    public static final int MEMORY_SIZE = 2000;
 
     /**
      * top of timer instruction stack
@@ -51,16 +52,462 @@ public class SysConfig {
      */
     public static final int SYSTEM_MODE = 2;
 
+    /**
+     * highest stack pointer of user stack
+     */
+    public static final int USER_STACK_LIMIT = 119;
+
+    /**
+     * highest stack pointer of system stack
+     */
+    public static final int SYSTEM_STACK_LIMIT = 499;
+
+    /**
+     * first opcode which is only produced by decoding, a word in memory with
+     * such value is decoded as UNKNOWN_INSTRUCTION
+     */
+    public static final int FIRST_INTERNAL_OPCODE = 100;
+
+    /**
+     * opcode of instruction which is not known, it does nothing
+     */
+    public static final int UNKNOWN_INSTRUCTION = FIRST_INTERNAL_OPCODE - 1;
+
+    /**
+     * internal opcode: load the value at the address into the AC, address is
+     * verified
+     */
+    public static final int LOAD_ADDR_UNCHECKED = FIRST_INTERNAL_OPCODE + 2;
+
+    /**
+     * internal opcode: store the value in the AC into the address, address is
+     * verified
+     */
+    public static final int STORE_ADDR_UNCHECKED = FIRST_INTERNAL_OPCODE + 7;
+
+    /**
+     * superinstruction: load value (1), copy to X (14)
+     */
+    public static final int LOAD_VALUE_COPY_TO_X = FIRST_INTERNAL_OPCODE + 50;
+
+    /**
+     * superinstruction: load value (1), put port (9)
+     */
+    public static final int LOAD_VALUE_PUT = FIRST_INTERNAL_OPCODE + 51;
+
+    /**
+     * superinstruction: load verified address (2), put port (9)
+     */
+    public static final int LOAD_ADDR_PUT = FIRST_INTERNAL_OPCODE + 52;
+
+    /**
+     * superinstruction: decrement X (26), copy from X (15), jump if not equal
+     * (22)
+     */
+    public static final int DEC_X_JUMP_IF_NOT_ZERO = FIRST_INTERNAL_OPCODE + 53;
+
+    /**
+     * longest sequence of opcodes counted by NgramProfiler
+     */
+    public static final int MAX_NGRAM_LENGTH = 3;
+
+    /**
+     * number of most frequent sequences reported by NgramProfiler for each
+     * length
+     */
+    public static final int NGRAM_REPORT_SIZE = 10;
+
     /**
      * when empty instruction set
      */
     public static final int EMPTY_INSTRUCTION_SET = 0;
 
+    /**
+     * number of address bits inside a page of memory
+     */
+    public static final int PAGE_SHIFT = 6;
+
+    /**
+     * number of entries of a page of memory
+     */
+    public static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+
+    /**
+     * mask of address inside a page of memory
+     */
+    public static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    /**
+     * number of entries before a basic block is compiled
+     */
+    public static final int HOT_BLOCK_THRESHOLD = 50;
+
+    /**
+     * maximum number of instructions of a compiled block
+     */
+    public static final int MAX_BLOCK_LENGTH = 64;
+
+    /**
+     * upper bound (exclusive) of random value of get instruction
+     */
+    public static final int RANDOM_INPUT_BOUND = 10;
+
+    /**
+     * seed of batch, each job gets a device split from it in manifest order
+     */
+    public static final long DEFAULT_BATCH_SEED = 0;
+
     /**
      * comment interrupt
      */
     public static final String INTERRUPT_COMMENT = ".1000";
 
+    /**
+     * option to convert program text file to image
+     */
+    public static final String OPTION_CONVERT = "--convert";
+
+    /**
+     * option to run batch of jobs from manifest
+     */
+    public static final String OPTION_BATCH = "--batch";
+
+    /**
+     * option to report frequent opcode sequences of programs
+     */
+    public static final String OPTION_NGRAMS = "--ngrams";
+
+    /**
+     * option to run program with sampling profiler
+     */
+    public static final String OPTION_SAMPLE = "--sample";
+
+    /**
+     * number of instructions between samples of profiler, prime so samples
+     * do not run in step with loops
+     */
+    public static final int DEFAULT_SAMPLE_INTERVAL = 101;
+
+    /**
+     * number of addresses in report of profiler
+     */
+    public static final int HOT_ADDRESS_REPORT_SIZE = 20;
+
+    /**
+     * maximum depth of call tree of profiler, deeper calls and interrupts are
+     * folded into one truncated frame so Call without Ret can not grow tree
+     * without end
+     */
+    public static final int PROFILE_MAX_DEPTH = 128;
+
+    /**
+     * option to run program and record execution trace
+     */
+    public static final String OPTION_RECORD = "--record";
+
+    /**
+     * option to replay execution trace
+     */
+    public static final String OPTION_REPLAY = "--replay";
+
+    /**
+     * option to run program on cores which share memory
+     */
+    public static final String OPTION_CORES = "--cores";
+
+    /**
+     * mode of cores which run in turn on one thread
+     */
+    public static final String CORES_LOCKSTEP = "lockstep";
+
+    /**
+     * mode of cores which run on their own threads
+     */
+    public static final String CORES_FREE = "free";
+
+    /**
+     * maximum number of cores of a machine
+     */
+    public static final int MAX_CORES = 16;
+
+    /**
+     * number of instructions of each turn of a core in lockstep mode
+     */
+    public static final long LOCKSTEP_QUANTUM = 1;
+
+    /**
+     * option to run programs as processes of a scheduler
+     */
+    public static final String OPTION_SCHEDULE = "--schedule";
+
+    /**
+     * separator of program file and priority of its processes
+     */
+    public static final String PRIORITY_SEPARATOR = ":";
+
+    /**
+     * maximum number of levels of ready queue, one bit per level
+     */
+    public static final int MAX_READY_LEVELS = 32;
+
+    /**
+     * number of priorities of processes, 0 is highest
+     */
+    public static final int PRIORITY_LEVELS = 32;
+
+    /**
+     * number of levels of multilevel feedback policy, quantum of last level
+     * is 2^(levels - 1) timer interrupts
+     */
+    public static final int FEEDBACK_LEVELS = 8;
+
+    /**
+     * number of dispatches of multilevel feedback policy after which all
+     * processes move back to first level
+     */
+    public static final int FEEDBACK_BOOST_INTERVAL = 4096;
+
+    /**
+     * option to fuzz program
+     */
+    public static final String OPTION_FUZZ = "--fuzz";
+
+    /**
+     * fuzz target which mutates input tape
+     */
+    public static final String FUZZ_TARGET_TAPE = "tape";
+
+    /**
+     * fuzz target which mutates program image
+     */
+    public static final String FUZZ_TARGET_IMAGE = "image";
+
+    /**
+     * seed of fuzzer, each worker gets a generator split from it
+     */
+    public static final long DEFAULT_FUZZ_SEED = 0;
+
+    /**
+     * maximum number of instructions of each execution of fuzzer, a mutated
+     * program which never ends costs no more than this
+     */
+    public static final long FUZZ_MAX_INSTRUCTIONS = 10000;
+
+    /**
+     * number of executions of a fuzz worker between checks of its deadline
+     */
+    public static final int FUZZ_EXECUTIONS_PER_CHECK = 64;
+
+    /**
+     * maximum number of values of input tape of fuzzer
+     */
+    public static final int FUZZ_MAX_TAPE_LENGTH = 256;
+
+    /**
+     * maximum number of words patched into program by fuzzer
+     */
+    public static final int FUZZ_MAX_PATCHES = 16;
+
+    /**
+     * one of this many image mutations drops a patch instead of adding one
+     */
+    public static final int FUZZ_DROP_PATCH_BOUND = 4;
+
+    /**
+     * upper bound (exclusive) of opcode written by image mutation, covers
+     * every instruction and small operands
+     */
+    public static final int FUZZ_OPCODE_BOUND = 51;
+
+    /**
+     * values tried by fuzzer at boundaries of memory and int
+     */
+    public static final int[] FUZZ_BOUNDARY_VALUES = {-1, 0, BOTTOM_USER, TOP_TIMER,
+        TOP_SYSTEM, MEMORY_SIZE - 1, MEMORY_SIZE, Integer.MAX_VALUE, Integer.MIN_VALUE};
+
+    /**
+     * file name prefix of reproducer of fuzzer
+     */
+    public static final String FUZZ_FINDING_PREFIX = "finding-";
+
+    /**
+     * file extension of input tape of reproducer
+     */
+    public static final String FUZZ_TAPE_EXTENSION = ".tape";
+
+    /**
+     * file extension of program image of reproducer
+     */
+    public static final String FUZZ_IMAGE_EXTENSION = ".img";
+
+    /**
+     * option to run program in lanes of lane engine
+     */
+    public static final String OPTION_LANES = "--lanes";
+
+    /**
+     * maximum number of lanes of lane engine, memory of all lanes is one
+     * array
+     */
+    public static final int MAX_LANES = 4096;
+
+    /**
+     * initial number of lanes a group of lane engine can hold, it grows when
+     * more lanes join
+     */
+    public static final int LANE_GROUP_CAPACITY = 16;
+
+    /**
+     * option to run program once for each interrupt time of a range
+     */
+    public static final String OPTION_SWEEP = "--sweep";
+
+    /**
+     * sweep mode which forks runs from machine which runs ahead
+     */
+    public static final String SWEEP_CHECKPOINT = "checkpoint";
+
+    /**
+     * sweep mode which runs each interrupt time from start
+     */
+    public static final String SWEEP_FULL = "full";
+
+    /**
+     * seed of random input of every run of sweep
+     */
+    public static final long DEFAULT_SWEEP_SEED = 0;
+
+    /**
+     * interrupt time of machine which runs ahead of sweep, its timer never
+     * fires
+     */
+    public static final int SWEEP_AHEAD_INTERRUPT_TIME = Integer.MAX_VALUE;
+
+    /**
+     * algorithm of digest of output
+     */
+    public static final String OUTPUT_DIGEST_ALGORITHM = "SHA-256";
+
+    /**
+     * option to run daemon which runs programs for clients
+     */
+    public static final String OPTION_DAEMON = "--daemon";
+
+    /**
+     * option to run program on daemon like from command line
+     */
+    public static final String OPTION_CLIENT = "--client";
+
+    /**
+     * default port of daemon, it listens only on loopback address
+     */
+    public static final int DAEMON_PORT = 7405;
+
+    /**
+     * request option of daemon: program image in base64, file name is only
+     * written to result then
+     */
+    public static final String DAEMON_IMAGE = "image=";
+
+    /**
+     * maximum number of instructions of daemon request which does not give
+     * it, so a program which never halts does not hold daemon forever
+     */
+    public static final long DAEMON_MAX_INSTRUCTIONS = 1000000000L;
+
+    /**
+     * type of daemon frame which carries a line of output of program
+     */
+    public static final int FRAME_OUTPUT = 'O';
+
+    /**
+     * type of daemon frame which carries output of program without end of
+     * line
+     */
+    public static final int FRAME_PART = 'P';
+
+    /**
+     * type of daemon frame which carries JSON result of run, it is last
+     * frame of request
+     */
+    public static final int FRAME_RESULT = 'R';
+
+    /**
+     * initial number of bytes of line of daemon output frame
+     */
+    public static final int FRAME_LINE_CAPACITY = 256;
+
+    /**
+     * magic number of execution trace: "SG5T"
+     */
+    public static final int TRACE_MAGIC = 0x53473554;
+
+    /**
+     * version of execution trace format
+     */
+    public static final int TRACE_VERSION = 2;
+
+    /**
+     * size in bytes of each buffer of trace recorder
+     */
+    public static final int TRACE_BUFFER_SIZE = 1 << 20;
+
+    /**
+     * number of buffers of trace recorder, one is encoded while others are
+     * written
+     */
+    public static final int TRACE_BUFFER_COUNT = 4;
+
+    /**
+     * size in bytes of buffer of trace reader
+     */
+    public static final int TRACE_READ_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * start of comment line in manifest
+     */
+    public static final String MANIFEST_COMMENT = "#";
+
+    /**
+     * job option in manifest: seed of random input
+     */
+    public static final String MANIFEST_SEED = "seed=";
+
+    /**
+     * job option in manifest: input tape file
+     */
+    public static final String MANIFEST_TAPE = "tape=";
+
+    /**
+     * job option in manifest: machine profile
+     */
+    public static final String MANIFEST_PROFILE = "profile=";
+
+    /**
+     * separator of backend and memory size of machine profile
+     */
+    public static final String PROFILE_SEPARATOR = ":";
+
+    /**
+     * option of machine profile which turns on execution metrics
+     */
+    public static final String PROFILE_METRICS = "metrics";
+
+    /**
+     * JMX domain of published machine metrics
+     */
+    public static final String METRICS_DOMAIN = "simulator_group5";
+
+    /**
+     * JMX type of metrics of one machine
+     */
+    public static final String METRICS_TYPE_MACHINE = "Machine";
+
+    /**
+     * JMX type of metrics added over a batch
+     */
+    public static final String METRICS_TYPE_BATCH = "Batch";
+
     /**
      * Hyphen character
      */
@@ -0,0 +1,79 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Define input device which replays values of a tape, in order
+ *
+ * @author duynq
+ */
+public class TapeInputDevice implements InputDevice {
+
+    /**
+     * Variable to store values of tape
+     */
+    private final int[] values;
+    /**
+     * Variable to store position of next value
+     */
+    private int position;
+
+    /**
+     * Constructor with values
+     *
+     * @param values of tape
+     */
+    public TapeInputDevice(int[] values) {
+        this.values = values;
+    }
+
+    @Override
+    public int read() {
+        if (position == values.length) {
+            throw new IllegalStateException(Messages.ERR_INPUT_TAPE_EXHAUSTED);
+        }
+        return values[position++];
+    }
+
+    /**
+     * get position
+     *
+     * @return number of values which were read
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * load tape from file, values are separated by spaces or new lines
+     *
+     * @param filePath path of tape file
+     * @return tape device
+     * @throws IOException when read file
+     */
+    public static TapeInputDevice load(String filePath) throws IOException {
+        String content;
+        try {
+            content = new String(Files.readAllBytes(Paths.get(filePath)), StandardCharsets.UTF_8).trim();
+        } catch (IOException e) {
+            throw new IOException(Messages.ERR_FILE_NOT_FOUND);
+        }
+        if (content.isEmpty()) {
+            return new TapeInputDevice(new int[0]);
+        }
+        try {
+            return new TapeInputDevice(Arrays.stream(content.split("\\s+"))
+                    .mapToInt(Integer::parseInt).toArray());
+        } catch (NumberFormatException e) {
+            throw new IOException(Messages.ERR_INPUT_TAPE_FORMAT);
+        }
+    }
+}
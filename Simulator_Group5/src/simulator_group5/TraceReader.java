@@ -0,0 +1,500 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Define reader of execution trace written by TraceRecorder: <\br>
+ * 1. Rebuild memory and registers after each retired instruction, without
+ * program file <\br>
+ * 2. Seek forward to an instruction <\br>
+ * 3. Replay output of run from rebuilt state <\br>
+ * 4. Re-execute run on a new machine loaded from memory of header, get
+ * instructions read input values of trace, run stops where recorded run
+ * stopped. <\br>
+ * A record which was cut when trace was written ends the trace.
+ *
+ * @author duynq
+ */
+public class TraceReader implements Closeable {
+
+    /**
+     * Variable to store file channel of trace
+     */
+    private final FileChannel channel;
+    /**
+     * Variable to store bytes read from file
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocate(SysConfig.TRACE_READ_BUFFER_SIZE);
+    /**
+     * Variable to store status of file was read to the end or not
+     */
+    private boolean isEndOfFile;
+    /**
+     * Variable to store interrupt time of run
+     */
+    private final int interruptTime;
+    /**
+     * Variable to store number of instructions of run, -1 when recorder was
+     * not closed
+     */
+    private final long recordedCount;
+    /**
+     * Variable to store status of run ended with a fault or not
+     */
+    private final boolean isFaulted;
+    /**
+     * Variable to store memory when run started
+     */
+    private final int[] initialMemory;
+    /**
+     * Variable to store memory after last instruction
+     */
+    private final int[] memory;
+    /**
+     * Variable to store address of last instruction
+     */
+    private int address;
+    /**
+     * Variable to store opcode of last instruction
+     */
+    private int opcode;
+    /**
+     * Variable to store address of next instruction when flow does not jump
+     */
+    private int nextAddress;
+    /**
+     * Variable to store AC after last instruction
+     */
+    private int acReg;
+    /**
+     * Variable to store AC before last instruction
+     */
+    private int previousAcReg;
+    /**
+     * Variable to store X after last instruction
+     */
+    private int xReg;
+    /**
+     * Variable to store Y after last instruction
+     */
+    private int yReg;
+    /**
+     * Variable to store SP after last instruction
+     */
+    private int spReg;
+    /**
+     * Variable to store mode after last instruction
+     */
+    private int mode;
+    /**
+     * Variable to store address of last write
+     */
+    private int lastWriteAddress;
+    /**
+     * Variable to store status of last instruction read input or not
+     */
+    private boolean hasInput;
+    /**
+     * Variable to store input value of last instruction
+     */
+    private int input;
+    /**
+     * Variable to store number of instructions which were read
+     */
+    private long instructionCount;
+
+    /**
+     * Constructor with path of trace file, read header
+     *
+     * @param filePath path of trace file
+     * @throws IOException when read file or file is not a trace
+     */
+    public TraceReader(String filePath) throws IOException {
+        try {
+            channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new IOException(Messages.ERR_FILE_NOT_FOUND);
+        }
+        buffer.flip();
+        try {
+            ensure(TraceRecorder.END_POSITION + TraceRecorder.END_SIZE);
+            if (buffer.getInt() != SysConfig.TRACE_MAGIC
+                    || buffer.get() != SysConfig.TRACE_VERSION) {
+                throw new IOException(Messages.ERR_INVALID_TRACE);
+            }
+            recordedCount = buffer.getLong();
+            isFaulted = buffer.get() != 0;
+            interruptTime = readVarint();
+            int size = readVarint();
+            int nonZero = readVarint();
+            if (size <= 0 || nonZero < 0 || nonZero > size) {
+                throw new IOException(Messages.ERR_INVALID_TRACE);
+            }
+            initialMemory = new int[size];
+            int position = 0;
+            for (int i = 0; i < nonZero; i++) {
+                position += readVarint();
+                initialMemory[position] = unzigzag(readVarint());
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            channel.close();
+            throw new IOException(Messages.ERR_INVALID_TRACE);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        memory = initialMemory.clone();
+        mode = SysConfig.USER_MODE;
+    }
+
+    /**
+     * read next instruction and apply its changes
+     *
+     * @return false at end of trace
+     * @throws IOException when read file or record is invalid
+     */
+    public boolean next() throws IOException {
+        if (!ensure(1)) {
+            return false;
+        }
+        try {
+            int flags = buffer.get() & 0xFF;
+            address = nextAddress;
+            if ((flags & TraceRecorder.FLAG_ADDRESS) != 0) {
+                address += unzigzag(readVarint());
+            }
+            opcode = address >= 0 && address < memory.length ? memory[address] : 0;
+            if (opcode < 0 || opcode >= SysConfig.FIRST_INTERNAL_OPCODE) {
+                opcode = SysConfig.UNKNOWN_INSTRUCTION;
+            }
+            previousAcReg = acReg;
+            if ((flags & TraceRecorder.FLAG_AC) != 0) {
+                acReg += unzigzag(readVarint());
+            }
+            if ((flags & TraceRecorder.FLAG_X) != 0) {
+                xReg += unzigzag(readVarint());
+            }
+            if ((flags & TraceRecorder.FLAG_Y) != 0) {
+                yReg += unzigzag(readVarint());
+            }
+            if ((flags & TraceRecorder.FLAG_SP) != 0) {
+                spReg += unzigzag(readVarint());
+            }
+            if ((flags & TraceRecorder.FLAG_MODE) != 0) {
+                ensure(1);
+                mode = buffer.get();
+            }
+            if ((flags & TraceRecorder.FLAG_WRITES) != 0) {
+                readWrites();
+            }
+            hasInput = (flags & TraceRecorder.FLAG_INPUT) != 0;
+            if (hasInput) {
+                input = unzigzag(readVarint());
+            }
+        } catch (BufferUnderflowException e) {
+            //record was cut
+            return false;
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException(Messages.ERR_INVALID_TRACE);
+        }
+        nextAddress = address + TraceRecorder.getSize(opcode);
+        instructionCount++;
+        return true;
+    }
+
+    /**
+     * apply memory writes of record
+     */
+    private void readWrites() throws IOException {
+        int header = readVarint();
+        int writeCount = header >>> 1;
+        int clearPosition = (header & 1) != 0 ? readVarint() : -1;
+        for (int i = 0; i <= writeCount; i++) {
+            if (i == clearPosition) {
+                Arrays.fill(memory, 0);
+            }
+            if (i < writeCount) {
+                lastWriteAddress += unzigzag(readVarint());
+                memory[lastWriteAddress] = unzigzag(readVarint());
+            }
+        }
+    }
+
+    /**
+     * read instructions until given number of instructions were read
+     *
+     * @param instruction number of instructions, counted from start of run
+     * @return true if trace has that many instructions
+     * @throws IOException when read file or record is invalid
+     */
+    public boolean seek(long instruction) throws IOException {
+        while (instructionCount < instruction && next()) {
+            //apply each record
+        }
+        return instructionCount == instruction;
+    }
+
+    /**
+     * replay output of remaining instructions
+     *
+     * @param output device where output is written
+     * @return number of instructions which were read
+     * @throws IOException when read file or record is invalid
+     */
+    public long replay(OutputDevice output) throws IOException {
+        try {
+            while (next()) {
+                if (opcode == 9) {
+                    //put does not change AC, port is operand in memory
+                    int port = address + 1 < memory.length ? memory[address + 1] : 0;
+                    if (port == 1) {
+                        output.writeInt(previousAcReg);
+                    } else {
+                        output.writeChar(previousAcReg);
+                    }
+                }
+            }
+        } finally {
+            output.flush();
+        }
+        return instructionCount;
+    }
+
+    /**
+     * get interrupt time of run
+     *
+     * @return time for interrupt
+     */
+    public int getInterruptTime() {
+        return interruptTime;
+    }
+
+    /**
+     * get number of instructions which were read
+     *
+     * @return number of instructions
+     */
+    public long getInstructionCount() {
+        return instructionCount;
+    }
+
+    /**
+     * get address of last instruction
+     *
+     * @return address of memory
+     */
+    public int getAddress() {
+        return address;
+    }
+
+    /**
+     * get opcode of last instruction
+     *
+     * @return opcode as it was in memory
+     */
+    public int getOpcode() {
+        return opcode;
+    }
+
+    /**
+     * get AC after last instruction
+     *
+     * @return AC
+     */
+    public int getAcReg() {
+        return acReg;
+    }
+
+    /**
+     * get X after last instruction
+     *
+     * @return X
+     */
+    public int getXReg() {
+        return xReg;
+    }
+
+    /**
+     * get Y after last instruction
+     *
+     * @return Y
+     */
+    public int getYReg() {
+        return yReg;
+    }
+
+    /**
+     * get SP after last instruction
+     *
+     * @return SP
+     */
+    public int getSpReg() {
+        return spReg;
+    }
+
+    /**
+     * get mode after last instruction
+     *
+     * @return mode
+     */
+    public int getMode() {
+        return mode;
+    }
+
+    /**
+     * check last instruction read input or not
+     *
+     * @return true if last instruction read input value
+     */
+    public boolean hasInput() {
+        return hasInput;
+    }
+
+    /**
+     * get input value of last instruction
+     *
+     * @return input value
+     */
+    public int getInput() {
+        return input;
+    }
+
+    /**
+     * read memory after last instruction
+     *
+     * @param address of memory
+     * @return value
+     */
+    public int read(int address) {
+        return memory[address];
+    }
+
+    /**
+     * get number of entries of memory
+     *
+     * @return memory size
+     */
+    public int getMemorySize() {
+        return memory.length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * run trace again on a new machine loaded from memory of header, get
+     * instructions read input values of trace. Run stops after number of
+     * instructions of recorded run, or at instruction after them when
+     * recorded run ended with a fault, so a run which reached its limit is
+     * not run past it.
+     *
+     * @param filePath path of trace file
+     * @param output device where output is written
+     * @return result of run
+     * @throws IOException when read file or file is not a trace
+     */
+    public static RunResult reexecute(String filePath, OutputDevice output) throws IOException {
+        MachineProfile profile;
+        File image = File.createTempFile("trace", ".img");
+        try {
+            try (TraceReader reader = new TraceReader(filePath)) {
+                long maxInstructions = reader.recordedCount;
+                if (maxInstructions < 0) {
+                    //recorder was not closed, run stops after last record
+                    try (TraceReader counter = new TraceReader(filePath)) {
+                        counter.seek(Long.MAX_VALUE);
+                        maxInstructions = counter.getInstructionCount();
+                    }
+                } else if (reader.isFaulted) {
+                    maxInstructions++;
+                }
+                profile = new MachineProfile(MachineProfile.Backend.PAGED, reader.getMemorySize());
+                Memory memory = profile.createMemory();
+                for (int address = 0; address < reader.getMemorySize(); address++) {
+                    memory.write(address, reader.initialMemory[address]);
+                }
+                ProgramImage.write(memory, image.getPath());
+                try (TraceReader inputs = new TraceReader(filePath)) {
+                    CPU cpu = new CPU(reader.getInterruptTime(), output, () -> inputs.nextInput(), profile);
+                    cpu.load(image.getPath());
+                    cpu.setMaxInstructions(maxInstructions);
+                    return cpu.run();
+                }
+            }
+        } finally {
+            image.delete();
+        }
+    }
+
+    /**
+     * read instructions until one which read input
+     *
+     * @return input value
+     */
+    private int nextInput() {
+        try {
+            while (next()) {
+                if (hasInput) {
+                    return input;
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage());
+        }
+        throw new IllegalStateException(Messages.ERR_TRACE_INPUT_EXHAUSTED);
+    }
+
+    /**
+     * make sure buffer holds bytes, unless file ends first
+     *
+     * @param bytes number of bytes which are needed
+     * @return true if buffer holds them
+     */
+    private boolean ensure(int bytes) throws IOException {
+        while (buffer.remaining() < bytes && !isEndOfFile) {
+            buffer.compact();
+            if (channel.read(buffer) < 0) {
+                isEndOfFile = true;
+            }
+            buffer.flip();
+        }
+        return buffer.remaining() >= bytes;
+    }
+
+    /**
+     * decode unsigned value written by TraceRecorder
+     */
+    private int readVarint() throws IOException {
+        ensure(5);
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int group = buffer.get();
+            value |= (group & 0x7F) << shift;
+            if ((group & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException(Messages.ERR_INVALID_TRACE);
+    }
+
+    /**
+     * map unsigned value back to signed value
+     */
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,501 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Define recorder of execution trace: <\br>
+ * 1. Header holds number of instructions of run and whether it ended with a
+ * fault, both written when recorder is closed, interrupt time, memory size
+ * and non-zero words of memory when run starts <\br>
+ * 2. One record per retired instruction: address when it is not the next
+ * instruction, changes of AC, X, Y, SP and mode, memory writes and input
+ * value, all delta encoded as variable length integers <\br>
+ * 3. Records are encoded into buffers which a background thread writes to
+ * file channel, CPU waits only when all buffers are waiting to be written
+ * <\br>
+ * Opcode is not stored, a reader takes it from memory rebuilt from header and
+ * writes. Changes made by timer interrupt are stored in record of next
+ * instruction. A recorder records one run.
+ *
+ * @author duynq
+ */
+public class TraceRecorder implements Closeable {
+
+    /**
+     * flag of record: address is not the next instruction
+     */
+    static final int FLAG_ADDRESS = 1;
+    /**
+     * flag of record: AC changed
+     */
+    static final int FLAG_AC = 1 << 1;
+    /**
+     * flag of record: X changed
+     */
+    static final int FLAG_X = 1 << 2;
+    /**
+     * flag of record: Y changed
+     */
+    static final int FLAG_Y = 1 << 3;
+    /**
+     * flag of record: SP changed
+     */
+    static final int FLAG_SP = 1 << 4;
+    /**
+     * flag of record: mode changed
+     */
+    static final int FLAG_MODE = 1 << 5;
+    /**
+     * flag of record: memory was written or cleared
+     */
+    static final int FLAG_WRITES = 1 << 6;
+    /**
+     * flag of record: input value was read
+     */
+    static final int FLAG_INPUT = 1 << 7;
+
+    /**
+     * position in file of end of run in header, after magic and version
+     */
+    static final int END_POSITION = 5;
+    /**
+     * size in bytes of end of run: number of instructions and fault flag
+     */
+    static final int END_SIZE = 9;
+    /**
+     * largest size in bytes of a record without its writes
+     */
+    private static final int MAX_RECORD_SIZE = 48;
+    /**
+     * largest size in bytes of one write
+     */
+    private static final int MAX_WRITE_SIZE = 10;
+    /**
+     * buffer which tells writer thread to stop
+     */
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    /**
+     * Variable to store file channel of trace
+     */
+    private final FileChannel channel;
+    /**
+     * Variable to store buffers which wait to be written
+     */
+    private final BlockingQueue<ByteBuffer> fullBuffers
+            = new ArrayBlockingQueue<>(SysConfig.TRACE_BUFFER_COUNT + 1);
+    /**
+     * Variable to store buffers which were written
+     */
+    private final BlockingQueue<ByteBuffer> freeBuffers
+            = new ArrayBlockingQueue<>(SysConfig.TRACE_BUFFER_COUNT);
+    /**
+     * Variable to store thread which writes buffers
+     */
+    private final Thread writer;
+    /**
+     * Variable to store error of writer thread
+     */
+    private volatile IOException writeError;
+    /**
+     * Variable to store buffer where records are encoded
+     */
+    private ByteBuffer buffer;
+    /**
+     * Variable to store status of run was started or not
+     */
+    private boolean isStarted;
+    /**
+     * Variable to store status of recorder was closed or not
+     */
+    private boolean isClosed;
+    /**
+     * Variable to store address of next instruction when flow does not jump
+     */
+    private int nextAddress;
+    /**
+     * Variable to store AC after last record
+     */
+    private int ac;
+    /**
+     * Variable to store X after last record
+     */
+    private int x;
+    /**
+     * Variable to store Y after last record
+     */
+    private int y;
+    /**
+     * Variable to store SP after last record
+     */
+    private int sp;
+    /**
+     * Variable to store mode after last record
+     */
+    private int mode;
+    /**
+     * Variable to store address of last write
+     */
+    private int lastWriteAddress;
+    /**
+     * Variable to store address and value of writes since last record
+     */
+    private int[] writes = new int[16];
+    /**
+     * Variable to store number of writes since last record
+     */
+    private int writeCount;
+    /**
+     * Variable to store number of writes before memory was cleared, -1 when
+     * memory was not cleared
+     */
+    private int clearPosition = -1;
+    /**
+     * Variable to store status of input value was read since last record
+     */
+    private boolean hasInput;
+    /**
+     * Variable to store input value
+     */
+    private int input;
+    /**
+     * Variable to store number of records
+     */
+    private long recordCount;
+    /**
+     * Variable to store status of run ended with a fault or not
+     */
+    private boolean isFaulted;
+
+    /**
+     * Constructor with path of trace file
+     *
+     * @param filePath path of trace file, it is replaced
+     * @throws IOException when open file
+     */
+    public TraceRecorder(String filePath) throws IOException {
+        channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        for (int i = 1; i < SysConfig.TRACE_BUFFER_COUNT; i++) {
+            freeBuffers.add(ByteBuffer.allocateDirect(SysConfig.TRACE_BUFFER_SIZE));
+        }
+        buffer = ByteBuffer.allocateDirect(SysConfig.TRACE_BUFFER_SIZE);
+        writer = new Thread(this::writeBuffers, "trace-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * start recording a run, write header
+     *
+     * @param memory of machine when run starts
+     * @param interruptTime time for interrupt
+     * @return false if recorder already recorded a run
+     */
+    public boolean start(Memory memory, int interruptTime) {
+        if (isStarted || isClosed) {
+            return false;
+        }
+        isStarted = true;
+        //changes made before run are not part of it
+        writeCount = 0;
+        clearPosition = -1;
+        hasInput = false;
+        int size = memory.size();
+        int nonZero = 0;
+        for (int address = 0; address < size; address++) {
+            if (memory.read(address) != 0) {
+                nonZero++;
+            }
+        }
+        reserve(MAX_RECORD_SIZE + nonZero * MAX_WRITE_SIZE);
+        buffer.putInt(SysConfig.TRACE_MAGIC).put((byte) SysConfig.TRACE_VERSION);
+        //end of run is written over this when recorder is closed
+        buffer.putLong(-1).put((byte) 0);
+        putVarint(interruptTime);
+        putVarint(size);
+        putVarint(nonZero);
+        int previous = 0;
+        for (int address = 0; address < size; address++) {
+            int value = memory.read(address);
+            if (value != 0) {
+                putVarint(address - previous);
+                putVarint(zigzag(value));
+                previous = address;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * record write to memory
+     *
+     * @param address of memory
+     * @param value is written
+     */
+    public void write(int address, int value) {
+        if (writeCount * 2 == writes.length) {
+            writes = Arrays.copyOf(writes, writes.length * 2);
+        }
+        writes[writeCount * 2] = address;
+        writes[writeCount * 2 + 1] = value;
+        writeCount++;
+    }
+
+    /**
+     * record clear of memory, writes before it are dropped
+     */
+    public void clear() {
+        writeCount = 0;
+        clearPosition = 0;
+    }
+
+    /**
+     * record input value
+     *
+     * @param value is read from input device
+     */
+    public void input(int value) {
+        hasInput = true;
+        input = value;
+    }
+
+    /**
+     * record fault which ended run, instruction which faulted is not retired
+     */
+    public void fault() {
+        isFaulted = true;
+    }
+
+    /**
+     * record retired instruction with writes and input since last record
+     *
+     * @param address of memory where instruction starts
+     * @param opcode of decoded instruction
+     * @param ac AC after instruction
+     * @param x X after instruction
+     * @param y Y after instruction
+     * @param sp SP after instruction
+     * @param mode mode after instruction
+     */
+    public void retire(int address, int opcode, int ac, int x, int y, int sp, int mode) {
+        reserve(MAX_RECORD_SIZE + writeCount * MAX_WRITE_SIZE);
+        int flags = (address != nextAddress ? FLAG_ADDRESS : 0)
+                | (ac != this.ac ? FLAG_AC : 0)
+                | (x != this.x ? FLAG_X : 0)
+                | (y != this.y ? FLAG_Y : 0)
+                | (sp != this.sp ? FLAG_SP : 0)
+                | (mode != this.mode ? FLAG_MODE : 0)
+                | (writeCount > 0 || clearPosition >= 0 ? FLAG_WRITES : 0)
+                | (hasInput ? FLAG_INPUT : 0);
+        buffer.put((byte) flags);
+        if ((flags & FLAG_ADDRESS) != 0) {
+            putVarint(zigzag(address - nextAddress));
+        }
+        if ((flags & FLAG_AC) != 0) {
+            putVarint(zigzag(ac - this.ac));
+        }
+        if ((flags & FLAG_X) != 0) {
+            putVarint(zigzag(x - this.x));
+        }
+        if ((flags & FLAG_Y) != 0) {
+            putVarint(zigzag(y - this.y));
+        }
+        if ((flags & FLAG_SP) != 0) {
+            putVarint(zigzag(sp - this.sp));
+        }
+        if ((flags & FLAG_MODE) != 0) {
+            buffer.put((byte) mode);
+        }
+        if ((flags & FLAG_WRITES) != 0) {
+            putVarint(writeCount << 1 | (clearPosition >= 0 ? 1 : 0));
+            if (clearPosition >= 0) {
+                putVarint(clearPosition);
+            }
+            for (int i = 0; i < writeCount; i++) {
+                putVarint(zigzag(writes[i * 2] - lastWriteAddress));
+                putVarint(zigzag(writes[i * 2 + 1]));
+                lastWriteAddress = writes[i * 2];
+            }
+        }
+        if ((flags & FLAG_INPUT) != 0) {
+            putVarint(zigzag(input));
+        }
+        nextAddress = address + getSize(opcode);
+        this.ac = ac;
+        this.x = x;
+        this.y = y;
+        this.sp = sp;
+        this.mode = mode;
+        writeCount = 0;
+        clearPosition = -1;
+        hasInput = false;
+        recordCount++;
+    }
+
+    /**
+     * get number of records
+     *
+     * @return number of retired instructions which were recorded
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * write remaining records and end of run and close file, writes and
+     * input of an instruction which did not retire are dropped
+     *
+     * @throws IOException when write file
+     */
+    @Override
+    public void close() throws IOException {
+        if (isClosed) {
+            return;
+        }
+        isClosed = true;
+        submit(buffer);
+        submit(END);
+        boolean isInterrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                //records must reach file, interrupt is kept for caller
+                isInterrupted = true;
+            }
+        }
+        try {
+            if (isStarted && writeError == null) {
+                ByteBuffer end = ByteBuffer.allocate(END_SIZE);
+                end.putLong(recordCount).put((byte) (isFaulted ? 1 : 0));
+                end.flip();
+                while (end.hasRemaining()) {
+                    channel.write(end, END_POSITION + end.position());
+                }
+            }
+        } finally {
+            channel.close();
+        }
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (writeError != null) {
+            throw writeError;
+        }
+    }
+
+    /**
+     * get size in words of instruction
+     *
+     * @param opcode of decoded instruction
+     * @return number of words, same as size of slot of DecodedProgram
+     */
+    static int getSize(int opcode) {
+        if (opcode == SysConfig.LOAD_ADDR_UNCHECKED || opcode == SysConfig.STORE_ADDR_UNCHECKED) {
+            opcode -= SysConfig.FIRST_INTERNAL_OPCODE;
+        }
+        return DecodedProgram.hasOperand(opcode) ? 2 : 1;
+    }
+
+    /**
+     * map signed value to unsigned value, small magnitudes get small values
+     */
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    /**
+     * encode unsigned value in 7 bit groups, low group first
+     */
+    private void putVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * make room for bytes in buffer, full buffer goes to writer thread
+     */
+    private void reserve(int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        submit(buffer);
+        ByteBuffer next = freeBuffers.poll();
+        if (next == null) {
+            try {
+                next = freeBuffers.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                next = ByteBuffer.allocateDirect(SysConfig.TRACE_BUFFER_SIZE);
+            }
+        }
+        if (next.capacity() < bytes) {
+            next = ByteBuffer.allocateDirect(bytes);
+        }
+        buffer = next;
+    }
+
+    /**
+     * give buffer to writer thread
+     */
+    private void submit(ByteBuffer full) {
+        full.flip();
+        boolean isInterrupted = false;
+        while (true) {
+            try {
+                fullBuffers.put(full);
+                break;
+            } catch (InterruptedException e) {
+                //buffer must not be lost, interrupt is kept for caller
+                isInterrupted = true;
+            }
+        }
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * write buffers to file until END is received, run by writer thread
+     */
+    private void writeBuffers() {
+        while (true) {
+            ByteBuffer full;
+            try {
+                full = fullBuffers.take();
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (full == END) {
+                return;
+            }
+            try {
+                while (writeError == null && full.hasRemaining()) {
+                    channel.write(full);
+                }
+            } catch (IOException e) {
+                writeError = e;
+            }
+            full.clear();
+            if (full.capacity() == SysConfig.TRACE_BUFFER_SIZE) {
+                freeBuffers.offer(full);
+            }
+        }
+    }
+}
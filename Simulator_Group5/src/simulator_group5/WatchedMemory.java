@@ -0,0 +1,164 @@
+/*
+ * Operating System Simulator
+ * Group 5: DuyNQ, QuyenDM, HaiNT
+ */
+package simulator_group5;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Define memory which reports accesses of watched addresses: <\br>
+ * 1. Every operation goes to wrapped memory <\br>
+ * 2. Read and write of an address of a watchpoint is kept as hit, first hit
+ * is kept until it is taken <\br>
+ * CPU uses it instead of its memory only while it runs with watchpoints.
+ *
+ * @author duynq
+ */
+class WatchedMemory implements Memory {
+
+    /**
+     * Variable to store wrapped memory
+     */
+    private final Memory memory;
+    /**
+     * Variable to store watchpoints
+     */
+    private final DebugPoints debugPoints;
+    /**
+     * Variable to store address of first hit, -1 when there is none
+     */
+    private int hitAddress = -1;
+    /**
+     * Variable to store status of first hit is write or not
+     */
+    private boolean isHitWrite;
+
+    /**
+     * Constructor with wrapped memory and watchpoints
+     *
+     * @param memory is wrapped
+     * @param debugPoints watchpoints
+     */
+    WatchedMemory(Memory memory, DebugPoints debugPoints) {
+        this.memory = memory;
+        this.debugPoints = debugPoints;
+    }
+
+    /**
+     * get wrapped memory
+     *
+     * @return memory
+     */
+    Memory getMemory() {
+        return memory;
+    }
+
+    /**
+     * get address of first hit
+     *
+     * @return address, -1 when no watched address was accessed
+     */
+    int getHitAddress() {
+        return hitAddress;
+    }
+
+    /**
+     * check first hit is write or not
+     *
+     * @return true for write, false for read
+     */
+    boolean isHitWrite() {
+        return isHitWrite;
+    }
+
+    /**
+     * forget hit
+     */
+    void clearHit() {
+        hitAddress = -1;
+    }
+
+    /**
+     * keep hit of access when it is watched and no hit is kept
+     */
+    private void check(int start, int end, boolean isWrite) {
+        if (hitAddress < 0) {
+            hitAddress = debugPoints.findWatched(start, end, isWrite);
+            isHitWrite = isWrite;
+        }
+    }
+
+    @Override
+    public void initialize(String filePath) throws IOException, IndexOutOfBoundsException {
+        memory.initialize(filePath);
+    }
+
+    @Override
+    public void initialize(ByteBuffer image) throws IOException, IndexOutOfBoundsException {
+        memory.initialize(image);
+    }
+
+    @Override
+    public int read(int address) throws IndexOutOfBoundsException {
+        check(address, address + 1, false);
+        return memory.read(address);
+    }
+
+    @Override
+    public void write(int address, int value) throws IndexOutOfBoundsException {
+        check(address, address + 1, true);
+        memory.write(address, value);
+    }
+
+    @Override
+    public int getAndAdd(int address, int delta) throws IndexOutOfBoundsException {
+        check(address, address + 1, true);
+        return memory.getAndAdd(address, delta);
+    }
+
+    @Override
+    public int compareAndExchange(int address, int expected, int value)
+            throws IndexOutOfBoundsException {
+        check(address, address + 1, true);
+        return memory.compareAndExchange(address, expected, value);
+    }
+
+    @Override
+    public void write(int address, IntBuffer words) throws IndexOutOfBoundsException {
+        check(address, address + words.remaining(), true);
+        memory.write(address, words);
+    }
+
+    @Override
+    public void clear() {
+        memory.clear();
+    }
+
+    @Override
+    public int size() {
+        return memory.size();
+    }
+
+    @Override
+    public boolean canReset() {
+        return memory.canReset();
+    }
+
+    @Override
+    public void reset() {
+        memory.reset();
+    }
+
+    @Override
+    public Memory copy() {
+        return memory.copy();
+    }
+
+    @Override
+    public void setDecodedProgram(DecodedProgram decodedProgram) {
+        memory.setDecodedProgram(decodedProgram);
+    }
+}